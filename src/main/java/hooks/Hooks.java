@@ -1,9 +1,19 @@
 package hooks;
 
+import infrastructure.Investing;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.elements.DomSnapshot;
+import infrastructure.http.HttpPageDriver;
+import infrastructure.listeners.webriver.helpers.WDListenerPopupGuardHelper;
 import infrastructure.logger.Log;
+import infrastructure.metrics.CommandLatencyRecorder;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.scheduling.ConcurrencyController;
+import infrastructure.session.SessionHealth;
 import infrastructure.threadlocals.*;
 import io.cucumber.java.After;
 import io.cucumber.java.Before;
+import io.cucumber.java.BeforeStep;
 import io.cucumber.java.Scenario;
 
 import static infrastructure.allure.AllureAttachments.allureAttachText;
@@ -15,20 +25,96 @@ public class Hooks {
         ThreadLocalScenario.put(scenario);
         Log.prepareContext();
         clearThreadLocalData();
+
+        if (WebEnvParams.getCommandMetricsParam())
+            CommandLatencyRecorder.startScenario();
+
+        if (WebEnvParams.getTimeBudgetParam())
+            TimeBudget.startScenario();
     }
 
+    /**
+     * Session of the scenario, which was found dead by the heartbeat, is replaced before the step,
+     * so the step doesn't fail on it
+     */
+    @BeforeStep
+    public void beforeStepRespawnDeadSession() {
+        Investing driver = ThreadLocalDriver.get();
+
+        if (WebEnvParams.getSessionHealthParam() && driver != null
+                && driver.belongsToCurrentScenario() && !driver.isHealthy())
+            driver.respawn();
+    }
 
     @After(order = 1)
     public void afterSteps(Scenario scenario) {
+        recordDeadSessionFailure(scenario);
+        attachPopupGuardCounters();
+        attachDomSnapshot(scenario);
+
+        if (WebEnvParams.getCommandMetricsParam()) {
+            if (WebEnvParams.getConcurrencyAdaptiveParam())
+                CommandLatencyRecorder.getScenarioP99().ifPresent(ConcurrencyController.getInstance()::recordCommandLatency);
+
+            CommandLatencyRecorder.finishScenario();
+        }
+
+        if (WebEnvParams.getTimeBudgetParam())
+            TimeBudget.finishScenario();
+
         clearThreadLocalData();
     }
 
+    /**
+     * Failure on a dead session is recorded as a session health event, not as a test failure,
+     * so the scenario is retried without counting the try
+     */
+    private void recordDeadSessionFailure(Scenario scenario) {
+        Investing driver = ThreadLocalDriver.get();
+
+        if (!WebEnvParams.getSessionHealthParam() || !scenario.isFailed() || driver == null
+                || !driver.belongsToCurrentScenario() || driver.delegate == null || driver.delegate instanceof HttpPageDriver)
+            return;
+
+        if (!driver.isHealthy() || !SessionHealth.isAlive(driver.delegate)) {
+            driver.markUnhealthy();
+            SessionHealth.onScenarioFailedOnDeadSession(driver.getRemoteSessionId());
+        }
+    }
+
+    /**
+     * Attach number of banners, closed by the popup guard during the scenario
+     */
+    private void attachPopupGuardCounters() {
+        Investing driver = ThreadLocalDriver.get();
+
+        if (WebEnvParams.getPopupGuardParam() && driver != null && driver.delegate != null)
+            try {
+                allureAttachText("Popup guard", "Closed banners: " + WDListenerPopupGuardHelper.takeCounters());
+            } catch (Exception cause) {
+                Log.warn("Couldn't read popup guard counters: " + cause);
+            }
+    }
+
+    /**
+     * Attach the last DOM snapshot of the failed scenario, so the page could be checked as it was read
+     */
+    private void attachDomSnapshot(Scenario scenario) {
+        DomSnapshot.peek().ifPresent(snapshot -> {
+            if (scenario.isFailed())
+                allureAttachText("DOM snapshot of " + snapshot.getUrl(), snapshot.getHtml());
+        });
+        DomSnapshot.invalidate();
+    }
+
     /**
      * Clear all thread local data, excepting Cucumber Scenario.
-     * Scenario should be provided further into Retry listener
+     * Scenario should be provided further into Retry listener.
+     * Driver is cleared too, so the next scenario of the thread doesn't get the disposed instance
      */
     private void clearThreadLocalData() {
         try {
+            ThreadLocalDriver.clear();
             ThreadLocalEdition.clear();
             ThreadLocalSesId.clear();
             ThreadLocalPopups.clear();
@@ -1,121 +1,275 @@
 package infrastructure;
 
 import infrastructure.constants.WebEnvParams;
+import infrastructure.cookies.CookieJar;
+import infrastructure.elements.DomSnapshot;
 import infrastructure.exceptions.InvestingException;
+import infrastructure.http.HttpPageDriver;
 import infrastructure.listeners.webriver.CommonWebDriveListener;
+import infrastructure.listeners.webriver.helpers.WDListenerCookieHelper;
+import infrastructure.listeners.webriver.helpers.WDListenerPopupGuardHelper;
 import infrastructure.logger.Log;
+import infrastructure.metrics.CommandLatencyListener;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
+import infrastructure.readiness.PageReadiness;
+import infrastructure.scheduling.ConcurrencyController;
+import infrastructure.session.SessionAffinity;
+import infrastructure.session.SessionFactory;
+import infrastructure.session.SessionHealth;
+import infrastructure.session.SessionKey;
+import infrastructure.session.SessionPool;
+import infrastructure.threadlocals.ThreadLocalCookies;
 import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.threadlocals.ThreadLocalPopups;
 import infrastructure.threadlocals.ThreadLocalScenario;
-import io.github.bonigarcia.wdm.WebDriverManager;
+import infrastructure.throttling.HostRateLimiter;
+import io.cucumber.java.Scenario;
 import lombok.Getter;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.edge.EdgeDriver;
-import org.openqa.selenium.edge.EdgeOptions;
-import org.openqa.selenium.firefox.FirefoxDriver;
-import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.remote.RemoteWebDriver;
-import org.openqa.selenium.safari.SafariDriver;
-import org.openqa.selenium.safari.SafariOptions;
 import org.openqa.selenium.support.events.EventFiringDecorator;
 import org.openqa.selenium.support.events.WebDriverListener;
 import org.picocontainer.Disposable;
 
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 
-import static infrastructure.CapabilitiesProvider.getCapability;
-
-
 public class Investing implements WebDriver, Disposable {
 
+    /**
+     * Scenarios with this tag are run without browser, pages are fetched by {@link HttpPageDriver}
+     */
+    public static final String NO_BROWSER_TAG = "@NoBrowser";
+
     public WebDriver delegate;
 
+    /**
+     * Decorated {@link #delegate}, which is built once per session
+     */
+    private volatile WebDriver wrappedDelegate;
+
     @Getter
     private String remoteSessionId;
 
+    /**
+     * Kind of the browser session, which is used by the scenario
+     */
+    private SessionKey sessionKey;
+
+    /**
+     * TRUE if popup guard is evaluated by browser on each new document,
+     * so it shouldn't be injected after navigation
+     */
+    @Getter
+    private boolean popupGuardOnNewDocument;
+
+    /**
+     * FALSE if the session was found dead by the {@link SessionHealth} heartbeat,
+     * so it should be respawned before the next step
+     */
+    private volatile boolean healthy = true;
+
+    /**
+     * The last page requested by the scenario, it's reopened in the respawned session
+     */
+    private volatile String lastUrl;
+
+    /**
+     * Scenario, which session is used by this instance, only its steps may respawn the session
+     */
+    private volatile Scenario owner;
+
     public synchronized WebDriver getDelegate() {
-        if (delegate == null) {
-            String run = WebEnvParams.getRunParam();
-
-            String browser = ThreadLocalScenario.containsTag("@MobileSite")
-                            ? "chromemobile"
-                            : WebEnvParams.getBrowserParam();
-
-            String version = ThreadLocalScenario.containsTag("@Profile")
-                            ? "profile"
-                            : WebEnvParams.getTagParam();
-
-
-            switch (run) {
-                case "local" -> {
-                    if (WebEnvParams.getSelenoidLocalParam())
-                    {
-                        MutableCapabilities options = getCapability(browser, version, run);
-                        Log.info("Provided browser options are: " + options.toJson().toString());
-
-                        try {
-                            delegate = new RemoteWebDriver(new URL("http://localhost:4444/wd/hub"), options);
-                        } catch (Exception cause) {
-                            throw new InvestingException("Couldn't init remote driver local!", cause);
-                        }
-                    } else switch (browser) {
-                        case "chrome", "chromemobile" -> {
-                            WebDriverManager.chromedriver().setup();
-                            delegate = new ChromeDriver((ChromeOptions) getCapability(browser, version, run));
-                        }
-                        case "firefox" -> {
-                            WebDriverManager.firefoxdriver().setup();
-                            delegate = new FirefoxDriver((FirefoxOptions) getCapability(browser, version, run));
-                        }
-                        case "safari" -> {
-                            WebDriverManager.safaridriver().setup();
-                            delegate = new SafariDriver((SafariOptions) getCapability(browser, version, run));
-                        }
-                        case "edge" -> {
-                            WebDriverManager.edgedriver().setup();
-                            delegate = new EdgeDriver((EdgeOptions) getCapability(browser, version, run));
-                        }
-                    }
-                }
-                case "cloud" -> {
-                    MutableCapabilities options = getCapability(browser, version, run);
-                    Log.info("Provided browser options are: " + options.toJson().toString());
-
-                    try {
-                        delegate = new RemoteWebDriver(new URL("http://selenoid:4444/wd/hub"), options);
-                        // session id is parsed right after WebDriver initialization
-                        // to avoid errors while attaching video after the test
-                        // in case when WebDriver instance isn't acceptable
-                        setRemoteSessionId();
-                    } catch (MalformedURLException e) {
-                        Log.error("A malformed URL issue occurred: " + e);
-                    }
-                }
+        if (delegate == null && ThreadLocalScenario.get() != null && ThreadLocalScenario.containsTag(NO_BROWSER_TAG)) {
+            Log.info("Scenario is run without browser, pages are fetched over HTTP");
+            delegate = new HttpPageDriver();
+            bindToScenario();
+        }
+
+        if (delegate == null && WebEnvParams.getScenarioBatchingParam()) {
+            SessionAffinity.Parked parked = SessionAffinity.take(SessionKey.forCurrentScenario());
+
+            // parked session could be deleted by the hub timeout while the scenario was prepared
+            if (parked != null && WebEnvParams.getSessionHealthParam() && !SessionHealth.isAlive(parked.getDriver())) {
+                Log.warn("Parked session is dead, new one is created");
+                quitQuietly(parked.getDriver());
+                parked = null;
             }
 
-            if (browser.equals("chromemobile"))
-                delegate.manage().window().setSize(new Dimension(600, 1000));
-            else
-                delegate.manage().window().maximize();
+            if (parked != null) {
+                sessionKey = parked.getKey();
+                delegate = parked.getDriver();
+                popupGuardOnNewDocument = parked.isPopupGuardOnNewDocument();
+
+                if (sessionKey.getRun().equals("cloud"))
+                    setRemoteSessionId();
 
-            ThreadLocalDriver.put(this);
+                if (WebEnvParams.getSessionHealthParam())
+                    SessionHealth.watch(this);
+
+                bindToScenario();
+            }
+        }
+
+        if (delegate == null) {
+            SessionKey key = SessionKey.forCurrentScenario();
+            sessionKey = key;
+
+            TimeBudget.measure(Phase.SESSION, () -> {
+                long started = System.nanoTime();
+                delegate = WebEnvParams.getSessionPoolParam()
+                        ? SessionPool.getInstance().lease(key)
+                        : SessionFactory.obtain(key);
+
+                if (WebEnvParams.getConcurrencyAdaptiveParam())
+                    ConcurrencyController.getInstance().recordSessionLatency(Duration.ofNanos(System.nanoTime() - started));
+
+                // session id is parsed right after WebDriver initialization
+                // to avoid errors while attaching video after the test
+                // in case when WebDriver instance isn't acceptable
+                if (key.getRun().equals("cloud"))
+                    setRemoteSessionId();
+            });
+
+            // pooled session keeps the guard, which was installed by its previous lease
+            if (WebEnvParams.getPopupGuardParam())
+                popupGuardOnNewDocument = WebEnvParams.getSessionPoolParam()
+                        && SessionPool.getInstance().isPopupGuardOnNewDocument(delegate)
+                        || WDListenerPopupGuardHelper.installOnNewDocument(delegate);
+
+            // requests of the first page are tracked from its start, not from the first readiness poll
+            if (!isBrowserless())
+                PageReadiness.installOnNewDocument(delegate);
+
+            if (WebEnvParams.getCookiesPreseedParam())
+                WDListenerCookieHelper.preseedCookies(delegate);
+
+            if (WebEnvParams.getSessionHealthParam())
+                SessionHealth.watch(this);
+
+            bindToScenario();
         }
         return delegate;
     }
 
+    private void bindToScenario() {
+        owner = ThreadLocalScenario.get();
+        ThreadLocalDriver.put(this);
+    }
+
+    /**
+     * @return TRUE if the session is used by the scenario of the current thread
+     */
+    public boolean belongsToCurrentScenario() {
+        return owner != null && owner == ThreadLocalScenario.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public void markUnhealthy() {
+        healthy = false;
+    }
+
+    /**
+     * Replace dead session by the new one of the same kind and reopen the last requested page. <br>
+     * Session state (cookies, popup flags, DOM snapshot) of the dead session is dropped,
+     * so it's prepared again by the listener on the next navigation
+     */
+    public synchronized void respawn() {
+        WebDriver dead = delegate;
+        String deadSessionId = remoteSessionId;
+
+        SessionHealth.unwatch(this);
+        wrappedDelegate = null;
+        delegate = null;
+        remoteSessionId = null;
+
+        if (dead != null) {
+            quitQuietly(dead);
+
+            if (WebEnvParams.getSessionPoolParam())
+                SessionPool.getInstance().invalidate(dead);
+        }
+
+        ThreadLocalCookies.clear();
+        ThreadLocalPopups.clear();
+        DomSnapshot.invalidate();
+
+        try {
+            getDelegate();
+            healthy = true;
+            SessionHealth.record(SessionHealth.Event.RESPAWNED, deadSessionId, "new session: " + remoteSessionId, true);
+
+            if (lastUrl != null)
+                get(lastUrl);
+        } catch (RuntimeException cause) {
+            SessionHealth.record(SessionHealth.Event.RESPAWN_FAILED, deadSessionId, cause.toString(), true);
+            throw new InvestingException("Couldn't respawn dead session " + deadSessionId, cause);
+        }
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception cause) {
+            Log.warn("Couldn't quit dead session: " + cause);
+        }
+    }
+
+    /**
+     * @return TRUE if pages are fetched over HTTP without browser,
+     *         so scripts, interactions and browser options aren't available
+     */
+    public boolean isBrowserless() {
+        return getDelegate() instanceof HttpPageDriver;
+    }
+
     /**
      * Wrapping is happened using {@link EventFiringDecorator} decorator and provided implementation of {@link WebDriverListener}.
-     * Using this wrapped delegate means, that provided listener will catch all events and complete all needed before/after actions.
+     * Using this wrapped delegate means, that provided listener will catch all events and complete all needed before/after actions. <br><br>
+     *
+     * Decorated driver is cached until the session is quit or disposed,
+     * so regular WebDriver calls don't take the lock and don't build new proxy each time. <br>
+     * Browserless session isn't decorated, as listener's events are processed by scripts in the browser.
      *
      * @return wrapped driver instance
      */
     private WebDriver getWrappedDelegate() {
+        WebDriver wrapped = wrappedDelegate;
+
+        if (wrapped == null)
+            synchronized (this) {
+                wrapped = wrappedDelegate;
+                if (wrapped == null && isBrowserless())
+                    wrappedDelegate = wrapped = getDelegate();
+
+                if (wrapped == null)
+                    wrappedDelegate = wrapped = decorate(getDelegate());
+            }
+
+        return wrapped;
+    }
+
+    /**
+     * @return session decorated by the listeners
+     */
+    WebDriver decorate(WebDriver session) {
         WebDriverListener listener = new CommonWebDriveListener();
-        return new EventFiringDecorator<>(listener).decorate(getDelegate());
+        // latency listener goes first, so its time doesn't include after-events of the common listener
+        return WebEnvParams.getCommandMetricsParam()
+                ? new EventFiringDecorator<>(new CommandLatencyListener(), listener).decorate(session)
+                : new EventFiringDecorator<>(listener).decorate(session);
+    }
+
+    /**
+     * @return bulk cookies API of the current session
+     */
+    public CookieJar getCookieJar() {
+        return new CookieJar(getDelegate());
     }
 
     public WebDriver getDriver() {
@@ -132,6 +286,15 @@ public class Investing implements WebDriver, Disposable {
 
     @Override
     public void get(String url) {
+        if (WebEnvParams.getNavigationRateLimitParam())
+            HostRateLimiter.acquire(url);
+
+        lastUrl = url;
+
+        // storages of each opened origin are cleared, when the session is returned to the pool
+        if (WebEnvParams.getSessionPoolParam() && !isBrowserless())
+            SessionPool.getInstance().recordOrigin(getDelegate(), url);
+
         getDriver().get(url);
     }
 
@@ -167,8 +330,14 @@ public class Investing implements WebDriver, Disposable {
 
     @Override
     public void quit() {
+        SessionHealth.unwatch(this);
+        WebDriver quitting = this.delegate;
         getDriver().quit();
+        this.wrappedDelegate = null;
         this.delegate = null;
+
+        if (WebEnvParams.getSessionPoolParam() && !(quitting instanceof HttpPageDriver))
+            SessionPool.getInstance().invalidate(quitting);
     }
 
     @Override
@@ -200,7 +369,42 @@ public class Investing implements WebDriver, Disposable {
     public void dispose() {
         Log.info("Driver TearDown");
 
-        if (delegate != null)
+        wrappedDelegate = null;
+        SessionHealth.unwatch(this);
+
+        // health of the disposed session isn't carried into the next one
+        boolean dead = !healthy;
+        healthy = true;
+        lastUrl = null;
+        owner = null;
+
+        if (delegate == null)
+            return;
+
+        // dead session is neither parked nor returned to the pool
+        if (dead && !(delegate instanceof HttpPageDriver)) {
+            quitQuietly(delegate);
+
+            if (WebEnvParams.getSessionPoolParam())
+                SessionPool.getInstance().invalidate(delegate);
+
+            delegate = null;
+            return;
+        }
+
+        // session is kept for the next scenario of the same group
+        if (WebEnvParams.getScenarioBatchingParam() && !(delegate instanceof HttpPageDriver)) {
+            SessionAffinity.park(sessionKey, delegate, popupGuardOnNewDocument);
+            delegate = null;
+            return;
+        }
+
+        // pooled session is scrubbed and kept alive for the next scenario
+        if (WebEnvParams.getSessionPoolParam() && !(delegate instanceof HttpPageDriver))
+            SessionPool.getInstance().release(delegate, popupGuardOnNewDocument);
+        else
             delegate.quit();
+
+        delegate = null;
     }
 }
\ No newline at end of file
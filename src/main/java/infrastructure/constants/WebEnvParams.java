@@ -3,8 +3,13 @@ package infrastructure.constants;
 import infrastructure.enums.Edition;
 import infrastructure.threadlocals.ThreadLocalEdition;
 import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
 import static infrastructure.constants.ConstantProvider.WebConstant.Page.CANARY_SUB_DOMAIN;
 
@@ -118,4 +123,350 @@ public class WebEnvParams {
         return Boolean.parseBoolean(headless);
     }
 
+    //* * * * * Hubs * * * * *//
+
+    /**
+     * @return comma separated Selenoid hubs for remote sessions, e.g. "http://selenoid:4444/wd/hub,http://selenoid-2:4444/wd/hub".
+     *         By default, it's the Selenoid container for the cloud run or local Selenoid
+     */
+    public static List<String> getHubsParam() {
+        String hubs = System.getProperty("hubs", "");
+
+        if (hubs.isBlank())
+            return List.of(getRunParam().equals("cloud")
+                    ? "http://selenoid:4444/wd/hub"
+                    : "http://localhost:4444/wd/hub");
+
+        return Arrays.stream(hubs.split(","))
+                .map(String::trim)
+                .filter(hub -> !hub.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return how often status of the hubs is read, if there are several hubs
+     */
+    public static Duration getHubsPollIntervalParam() {
+        return Duration.ofSeconds(getIntegerParam("hubs.poll.seconds", 2));
+    }
+
+    //* * * * * Session health * * * * *//
+
+    /**
+     * @return TRUE if browser sessions should be checked by {@link infrastructure.session.SessionHealth} heartbeat
+     *         and dead session should be respawned between steps
+     */
+    public static boolean getSessionHealthParam() {
+        return Boolean.parseBoolean(System.getProperty("session.health"));
+    }
+
+    /**
+     * @return how often sessions are checked by the heartbeat
+     */
+    public static Duration getSessionHeartbeatParam() {
+        return Duration.ofSeconds(getIntegerParam("session.heartbeat.seconds", 30));
+    }
+
+    //* * * * * Session pool * * * * *//
+
+    /**
+     * @return TRUE if browser sessions should be leased from {@link infrastructure.session.SessionPool}
+     *         and reused across scenarios instead of quit after each one
+     */
+    public static boolean getSessionPoolParam() {
+        return Boolean.parseBoolean(System.getProperty("session.pool"));
+    }
+
+    /**
+     * @return number of idle sessions per key, which are never evicted by idle timeout
+     */
+    public static int getSessionPoolMinParam() {
+        return getIntegerParam("session.pool.min", 0);
+    }
+
+    /**
+     * @return maximum number of live sessions (leased and idle) kept by the pool
+     */
+    public static int getSessionPoolMaxParam() {
+        return getIntegerParam("session.pool.max", 4);
+    }
+
+    /**
+     * @return how long a session may stay idle in the pool before it is quit.
+     *         Should be lower than the Selenoid "-timeout" value (10m)
+     */
+    public static Duration getSessionPoolIdleTimeoutParam() {
+        return Duration.ofSeconds(getIntegerParam("session.pool.idle.seconds", 300));
+    }
+
+    /**
+     * @return how many scenarios may use the same session before it is quit and replaced
+     */
+    public static int getSessionPoolMaxReuseParam() {
+        return getIntegerParam("session.pool.max.reuse", 20);
+    }
+
+    //* * * * * Scenario scheduling * * * * *//
+
+    /**
+     * @return TRUE if scenarios should be run by groups of the same session kind and edition,
+     *         so each group is run sequentially in one browser session
+     */
+    public static boolean getScenarioBatchingParam() {
+        return Boolean.parseBoolean(System.getProperty("scenarios.batching"));
+    }
+
+    /**
+     * @return TRUE if scenarios should be ordered by their duration from previous runs, the longest first
+     */
+    public static boolean getScenarioOrderingParam() {
+        return Boolean.parseBoolean(System.getProperty("scenarios.ordering"));
+    }
+
+    /**
+     * @return file of the scenario durations history, which is kept between runs
+     */
+    public static String getScenarioDurationsParam() {
+        return System.getProperty("scenarios.durations", "history/scenario-durations.json");
+    }
+
+    /**
+     * @return index of the current shard from 0, if scenarios are split between several runs
+     */
+    public static int getShardIndexParam() {
+        return NumberUtils.toInt(System.getProperty("shard.index"), 0);
+    }
+
+    /**
+     * @return number of shards, which split scenarios between them. 1 means that all scenarios are run
+     */
+    public static int getShardTotalParam() {
+        return Math.max(NumberUtils.toInt(System.getProperty("shard.total"), 1), 1);
+    }
+
+    /**
+     * @return address of the {@link infrastructure.scheduling.ScenarioCoordinator}, e.g. "localhost:7070",
+     *         or empty string if scenarios aren't pulled from the coordinator
+     */
+    public static String getCoordinatorParam() {
+        return System.getProperty("coordinator", "");
+    }
+
+    /**
+     * @return TRUE if scenarios should be admitted by {@link infrastructure.scheduling.ConcurrencyController},
+     *         so number of parallel scenarios follows the hub and site latency
+     */
+    public static boolean getConcurrencyAdaptiveParam() {
+        return Boolean.parseBoolean(System.getProperty("concurrency.adaptive"));
+    }
+
+    /**
+     * @return minimal and initial number of parallel scenarios
+     */
+    public static int getConcurrencyMinParam() {
+        return getIntegerParam("concurrency.min", 1);
+    }
+
+    /**
+     * @return maximal number of parallel scenarios, shouldn't be higher than <b>threads.count</b>
+     */
+    public static int getConcurrencyMaxParam() {
+        return getIntegerParam("concurrency.max", 8);
+    }
+
+    //* * * * * Session prefetch * * * * *//
+
+    /**
+     * @return TRUE if sessions should be created in background before scenarios ask for them
+     */
+    public static boolean getSessionPrefetchParam() {
+        return Boolean.parseBoolean(System.getProperty("session.prefetch"));
+    }
+
+    /**
+     * @return number of sessions per key, which are created in advance
+     */
+    public static int getSessionPrefetchDepthParam() {
+        return getIntegerParam("session.prefetch.depth", 1);
+    }
+
+    /**
+     * @return how long prefetched session waits to be claimed before it is closed
+     */
+    public static Duration getSessionPrefetchTtlParam() {
+        return Duration.ofSeconds(getIntegerParam("session.prefetch.ttl.seconds", 120));
+    }
+
+    //* * * * * Page readiness * * * * *//
+
+    /**
+     * @return document.readyState value, which is treated as loaded page: "interactive" or "complete"
+     */
+    public static String getReadinessStateParam() {
+        String state = System.getProperty("readiness.state");
+        return state == null || state.isEmpty()
+                ? "complete"
+                : state.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return how long page should have no fetch/XHR activity to be treated as ready.
+     *         Zero disables this signal
+     */
+    public static Duration getReadinessNetworkIdleParam() {
+        return Duration.ofMillis(getIntegerParam("readiness.network.idle.ms", 500));
+    }
+
+    /**
+     * @return interval between readiness checks
+     */
+    public static Duration getReadinessPollingParam() {
+        return Duration.ofMillis(getIntegerParam("readiness.poll.ms", 100));
+    }
+
+    //* * * * * Popup guard * * * * *//
+
+    /**
+     * @return TRUE if known banners should be closed by in-page guard script
+     *         instead of WebDriver checks after each interaction
+     */
+    public static boolean getPopupGuardParam() {
+        return Boolean.parseBoolean(System.getProperty("popup.guard"));
+    }
+
+    //* * * * * Cookies * * * * *//
+
+    /**
+     * @return TRUE if promo and consent cookies should be set at session start,
+     *         so pages don't need to be refreshed after cookies modification
+     */
+    public static boolean getCookiesPreseedParam() {
+        return Boolean.parseBoolean(System.getProperty("cookies.preseed"));
+    }
+
+    /**
+     * @return TRUE if banner cookies should be modified by single {@link infrastructure.cookies.CookieJar} operation,
+     *         FALSE if each cookie is deleted and added by WebDriver commands
+     */
+    public static boolean getCookiesBulkParam() {
+        return Boolean.parseBoolean(System.getProperty("cookies.bulk", "true"));
+    }
+
+    //* * * * * Metrics * * * * *//
+
+    /**
+     * @return TRUE if latency of each WebDriver command should be recorded and reported
+     */
+    public static boolean getCommandMetricsParam() {
+        return Boolean.parseBoolean(System.getProperty("metrics.commands"));
+    }
+
+    /**
+     * @return TRUE if scenario time should be broken down into phases and reported
+     */
+    public static boolean getTimeBudgetParam() {
+        return Boolean.parseBoolean(System.getProperty("metrics.budget"));
+    }
+
+    //* * * * * Polling * * * * *//
+
+    /**
+     * @return TRUE if waits should poll by adaptive intervals, seeded from the waits history
+     */
+    public static boolean getAdaptivePollingParam() {
+        return Boolean.parseBoolean(System.getProperty("polling.adaptive"));
+    }
+
+    /**
+     * @return file of the waits latency history, which is kept between runs
+     */
+    public static String getPollingHistoryParam() {
+        return System.getProperty("polling.history", "history/wait-latency.json");
+    }
+
+    //* * * * * Timeouts * * * * *//
+
+    /**
+     * @return TRUE if real latencies should be recorded into the timeouts profile
+     */
+    public static boolean getTimeoutsCalibrateParam() {
+        return Boolean.parseBoolean(System.getProperty("timeouts.calibrate"));
+    }
+
+    /**
+     * @return TRUE if timeouts should be derived from the timeouts profile
+     */
+    public static boolean getTimeoutsCalibratedParam() {
+        return Boolean.parseBoolean(System.getProperty("timeouts.calibrated"));
+    }
+
+    /**
+     * @return file of the timeouts profile, which is kept between runs
+     */
+    public static String getTimeoutsProfileParam() {
+        return System.getProperty("timeouts.profile", "history/timeout-profile.json");
+    }
+
+    /**
+     * @return percentile of the profile latencies, which is used as timeout
+     */
+    public static int getTimeoutsPercentileParam() {
+        return getIntegerParam("timeouts.percentile", 95);
+    }
+
+    /**
+     * @return multiplier of the percentile latency
+     */
+    public static double getTimeoutsMarginParam() {
+        return Double.parseDouble(System.getProperty("timeouts.margin", "1.5"));
+    }
+
+    //* * * * * DOM snapshot * * * * *//
+
+    /**
+     * @return TRUE if page objects should read the page from the DOM snapshot, when it's possible
+     */
+    public static boolean getDomSnapshotParam() {
+        return Boolean.parseBoolean(System.getProperty("dom.snapshot"));
+    }
+
+    //* * * * * Navigation rate * * * * *//
+
+    /**
+     * @return TRUE if navigation should be limited by {@link infrastructure.throttling.HostRateLimiter}
+     */
+    public static boolean getNavigationRateLimitParam() {
+        return Boolean.parseBoolean(System.getProperty("navigation.ratelimit"));
+    }
+
+    /**
+     * @return allowed navigations per second to the same host from all threads
+     */
+    public static double getNavigationRateParam() {
+        return Double.parseDouble(System.getProperty("navigation.rate", "2"));
+    }
+
+    /**
+     * @return navigations, which could be done to the same host at once after idle time
+     */
+    public static int getNavigationBurstParam() {
+        return getIntegerParam("navigation.burst", 4);
+    }
+
+    //* * * * * Browserless * * * * *//
+
+    /**
+     * @return directory of the HTTP responses cache of browserless sessions
+     */
+    public static String getHttpCacheParam() {
+        return System.getProperty("http.cache", "target/http-cache");
+    }
+
+    private static int getIntegerParam(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isEmpty()
+                ? defaultValue
+                : Integer.parseInt(value);
+    }
+
 }
@@ -0,0 +1,30 @@
+package infrastructure.cookies;
+
+import lombok.Value;
+
+/**
+ * Single cookie change applied by {@link CookieJar}
+ */
+@Value
+public class CookieChange {
+
+    String name;
+    String domain;
+
+    /**
+     * NULL if cookie wasn't present before the change
+     */
+    String oldValue;
+    String newValue;
+
+    public boolean isAdded() {
+        return oldValue == null;
+    }
+
+    @Override
+    public String toString() {
+        return isAdded()
+                ? String.format("%s (%s): added with value %s", name, domain, newValue)
+                : String.format("%s (%s): %s -> %s", name, domain, oldValue, newValue);
+    }
+}
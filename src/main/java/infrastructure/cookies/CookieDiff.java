@@ -0,0 +1,58 @@
+package infrastructure.cookies;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cookies, which were actually changed by {@link CookieJar#apply}.
+ * Cookies, which already had expected values, are not included.
+ * Cookies, which were set, but kept their values (e.g. ignored by the browser), are reported as ignored
+ */
+@AllArgsConstructor
+@Getter
+public class CookieDiff {
+
+    private final List<CookieChange> changes;
+
+    /**
+     * Changes, which were requested, but not found after the change
+     */
+    private final List<CookieChange> ignored;
+
+    /**
+     * How cookies were applied: "CDP", "script" or "options"
+     */
+    private final String appliedBy;
+
+    public static CookieDiff empty() {
+        return new CookieDiff(List.of(), List.of(), "none");
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty() && ignored.isEmpty())
+            return "No cookies changed";
+
+        String report = changes.stream()
+                .map(CookieChange::toString)
+                .collect(Collectors.joining("\n",
+                        String.format("%d cookie(s) changed by %s:\n", changes.size(), appliedBy),
+                        ""));
+
+        if (ignored.isEmpty())
+            return report;
+
+        return ignored.stream()
+                .map(CookieChange::toString)
+                .collect(Collectors.joining("\n",
+                        report + String.format("\n%d cookie(s) weren't changed by the browser:\n", ignored.size()),
+                        ""));
+    }
+}
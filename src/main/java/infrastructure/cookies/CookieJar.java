@@ -0,0 +1,263 @@
+package infrastructure.cookies;
+
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import infrastructure.utilities.DevToolsUtilities;
+import infrastructure.utilities.ScriptUtilities;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static infrastructure.allure.AllureAttachments.allureAttachText;
+
+/**
+ * Bulk cookies API of the session. <br><br>
+ *
+ * Whole change set is applied by one operation instead of delete and add calls per cookie:
+ * <ul>
+ *     <li>current cookies are read once to define what should be changed</li>
+ *     <li>changed cookies are set by single CDP <b>Network.setCookies</b> command</li>
+ *     <li>or by single script, which writes <b>document.cookie</b>, if CDP isn't supported</li>
+ *     <li>or by the session options, if the session can't execute scripts (HTTP session)</li>
+ * </ul>
+ * Existing cookie is overwritten on its own domain and path with its own secure, httpOnly and sameSite attributes,
+ * so no duplicates are created. <br>
+ * Browser may silently ignore the change (e.g. script can't overwrite httpOnly cookie), so cookies are read again
+ * after the change, and only cookies with new values are reported as changed. Result is reported by single attachment.
+ */
+public class CookieJar {
+
+    private static final String HOST_ONLY = "host-only";
+
+    private final WebDriver driver;
+
+    /**
+     * @param driver not decorated driver, e.g. {@link infrastructure.Investing#getDelegate()}
+     */
+    public CookieJar(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * @return cookies visible for the current page, or empty set if they couldn't be read (e.g. no page opened yet)
+     */
+    public Set<Cookie> read() {
+        try {
+            return driver.manage().getCookies();
+        } catch (WebDriverException cause) {
+            Log.debug("Couldn't read cookies: " + cause);
+            return Set.of();
+        }
+    }
+
+    public CookieDiff apply(Cookie... cookies) {
+        return apply(Arrays.asList(cookies));
+    }
+
+    /**
+     * Set cookies, which are absent or have other values
+     *
+     * @param cookies expected cookies. Cookie without domain overwrites existing cookie with the same name
+     *                or is added for the current host
+     * @return changes, which were actually applied, and changes, which were ignored by the browser
+     */
+    public CookieDiff apply(Collection<Cookie> cookies) {
+        Set<Cookie> current = read();
+
+        List<Map<String, Object>> targets = new ArrayList<>();
+        List<CookieChange> changes = new ArrayList<>();
+
+        for (Cookie cookie : cookies) {
+            Cookie existing = current.stream()
+                    .filter(candidate -> candidate.getName().equals(cookie.getName()))
+                    .filter(candidate -> cookie.getDomain() == null || isSameDomain(candidate.getDomain(), cookie.getDomain()))
+                    .findFirst()
+                    .orElse(null);
+
+            if (existing != null && existing.getValue().equals(cookie.getValue()))
+                continue;
+
+            // attributes of the existing cookie are kept, as only its value should be changed
+            Cookie attributes = existing == null ? cookie : existing;
+
+            Map<String, Object> target = new HashMap<>();
+            target.put("name", cookie.getName());
+            target.put("value", cookie.getValue());
+            target.put("path", existing == null ? cookie.getPath() : existing.getPath());
+            target.put("secure", attributes.isSecure());
+            target.put("httpOnly", attributes.isHttpOnly());
+            if (attributes.getSameSite() != null)
+                target.put("sameSite", attributes.getSameSite());
+
+            String domain = cookie.getDomain() != null
+                    ? cookie.getDomain()
+                    : existing == null ? null : existing.getDomain();
+
+            // getCookies() reports host-only cookies by the host name without leading dot
+            if (domain != null && (cookie.getDomain() != null || domain.startsWith(".")))
+                target.put("domain", domain);
+            else
+                target.put("host", domain);
+
+            if (cookie.getExpiry() != null)
+                target.put("expiry", cookie.getExpiry().getTime());
+
+            targets.add(target);
+            changes.add(new CookieChange(cookie.getName(), domain == null ? HOST_ONLY : domain,
+                    existing == null ? null : existing.getValue(), cookie.getValue()));
+        }
+
+        if (changes.isEmpty())
+            return CookieDiff.empty();
+
+        String appliedBy;
+        Set<Cookie> updated;
+
+        if (applyByCdp(targets)) {
+            appliedBy = "CDP";
+            updated = readByCdp(targets);
+        } else {
+            if (driver instanceof JavascriptExecutor) {
+                appliedBy = "script";
+                applyByScript(targets);
+            } else {
+                appliedBy = "options";
+                applyByOptions(targets);
+            }
+            updated = read();
+        }
+
+        List<CookieChange> applied = new ArrayList<>();
+        List<CookieChange> ignored = new ArrayList<>();
+
+        for (int i = 0; i < targets.size(); i++)
+            (isApplied(targets.get(i), updated) ? applied : ignored).add(changes.get(i));
+
+        CookieDiff diff = new CookieDiff(List.copyOf(applied), List.copyOf(ignored), appliedBy);
+        if (!ignored.isEmpty())
+            Log.warn("Cookies weren't changed by the browser: " + ignored);
+
+        allureAttachText("Cookies modified", diff.toString());
+        return diff;
+    }
+
+    /**
+     * @return TRUE if cookie with the target name, domain and value is present after the change
+     */
+    private static boolean isApplied(Map<String, Object> target, Set<Cookie> updated) {
+        Object domain = target.get("domain") != null ? target.get("domain") : target.get("host");
+
+        return updated.stream()
+                .filter(cookie -> cookie.getName().equals(target.get("name")))
+                .filter(cookie -> domain == null || isSameDomain(cookie.getDomain(), domain.toString()))
+                .anyMatch(cookie -> cookie.getValue().equals(target.get("value")));
+    }
+
+    private boolean applyByCdp(List<Map<String, Object>> targets) {
+        if (!DevToolsUtilities.isCdpSupported(driver))
+            return false;
+
+        List<Map<String, Object>> cdpCookies = new ArrayList<>();
+
+        for (Map<String, Object> target : targets) {
+            Map<String, Object> cdpCookie = new HashMap<>();
+            cdpCookie.put("name", target.get("name"));
+            cdpCookie.put("value", target.get("value"));
+            cdpCookie.put("path", target.get("path"));
+            cdpCookie.put("secure", target.get("secure"));
+            cdpCookie.put("httpOnly", target.get("httpOnly"));
+
+            if (target.get("sameSite") != null)
+                cdpCookie.put("sameSite", target.get("sameSite"));
+
+            if (target.get("expiry") != null)
+                cdpCookie.put("expires", ((Long) target.get("expiry")) / 1000.0);
+
+            // cookie without domain is host-only for the provided url
+            if (target.get("domain") != null)
+                cdpCookie.put("domain", target.get("domain"));
+            else
+                cdpCookie.put("url", cdpUrl(target));
+
+            cdpCookies.add(cdpCookie);
+        }
+
+        return DevToolsUtilities
+                .executeCdpCommand(driver, "Network.setCookies", Map.of("cookies", cdpCookies))
+                .isPresent();
+    }
+
+    /**
+     * Read cookies of the target URLs, as cookies set by CDP could be not visible for the current page
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Cookie> readByCdp(List<Map<String, Object>> targets) {
+        List<String> urls = targets.stream()
+                .map(this::cdpUrl)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Object cookies = DevToolsUtilities
+                .executeCdpCommand(driver, "Network.getCookies", Map.of("urls", urls))
+                .map(result -> result.get("cookies"))
+                .orElse(null);
+
+        if (!(cookies instanceof List))
+            return Set.of();
+
+        Set<Cookie> result = new HashSet<>();
+        for (Map<String, Object> cookie : (List<Map<String, Object>>) cookies)
+            result.add(new Cookie.Builder((String) cookie.get("name"), (String) cookie.get("value"))
+                    .domain((String) cookie.get("domain"))
+                    .path((String) cookie.get("path"))
+                    .isSecure(Boolean.TRUE.equals(cookie.get("secure")))
+                    .isHttpOnly(Boolean.TRUE.equals(cookie.get("httpOnly")))
+                    .sameSite((String) cookie.get("sameSite"))
+                    .build());
+
+        return result;
+    }
+
+    /**
+     * @return URL, which the cookie is set for and read from by CDP
+     */
+    private String cdpUrl(Map<String, Object> target) {
+        Object domain = target.get("domain") != null ? target.get("domain") : target.get("host");
+
+        return domain == null
+                ? driver.getCurrentUrl()
+                : "https://" + domain.toString().replaceFirst("^\\.", "") + target.get("path");
+    }
+
+    private void applyByScript(List<Map<String, Object>> targets) {
+        try {
+            ScriptUtilities.executeSilently(driver, ScriptUtilities.loadScript("setCookies.js"), targets);
+        } catch (WebDriverException cause) {
+            throw new InvestingException("Couldn't set cookies by script: " + targets, cause);
+        }
+    }
+
+    private void applyByOptions(List<Map<String, Object>> targets) {
+        for (Map<String, Object> target : targets) {
+            Object domain = target.get("domain") != null ? target.get("domain") : target.get("host");
+            Object expiry = target.get("expiry");
+
+            driver.manage().addCookie(new Cookie.Builder((String) target.get("name"), (String) target.get("value"))
+                    .domain(domain == null ? null : domain.toString())
+                    .path((String) target.get("path"))
+                    .isSecure((Boolean) target.get("secure"))
+                    .isHttpOnly((Boolean) target.get("httpOnly"))
+                    .sameSite((String) target.get("sameSite"))
+                    .expiresOn(expiry == null ? null : new Date((Long) expiry))
+                    .build());
+        }
+    }
+
+    private static boolean isSameDomain(String first, String second) {
+        return first != null && first.replaceFirst("^\\.", "").equalsIgnoreCase(second.replaceFirst("^\\.", ""));
+    }
+}
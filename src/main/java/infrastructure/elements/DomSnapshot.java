@@ -0,0 +1,229 @@
+package infrastructure.elements;
+
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import infrastructure.utilities.ScriptUtilities;
+import lombok.Getter;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.Elements;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Rendered DOM of the opened page, which is read by single script execution and parsed locally. <br><br>
+ *
+ * Read-only checks (text, visibility, attributes, counts) are evaluated against the parsed tree
+ * by CSS selectors and XPath, so they don't cost WebDriver calls.
+ * Elements, which weren't rendered at the snapshot moment, are marked by the snapshot script,
+ * so visibility is estimated by these marks. <br>
+ * Snapshot is kept per thread and it's invalidated after navigation and any interaction with the page.
+ * Empty result means a miss, so caller should look up the live page.
+ */
+public class DomSnapshot {
+
+    private static final String HIDDEN_MARK = "data-inv-hidden";
+
+    /**
+     * Whitespace, which is collapsed by browser. Non-breaking space isn't collapsed
+     */
+    private static final Pattern WHITESPACE = Pattern.compile("[ \\t\\n\\r\\f]+");
+
+    private static final ThreadLocal<DomSnapshot> current = new ThreadLocal<>();
+
+    @Getter
+    private final String url;
+    @Getter
+    private final Duration takenIn;
+    private final Document document;
+
+    private DomSnapshot(String url, String html, Duration takenIn) {
+        this.url = url;
+        this.takenIn = takenIn;
+        this.document = Jsoup.parse(html, url);
+    }
+
+    /**
+     * @param driver not decorated driver
+     * @return snapshot of the opened page, it's taken if there is no actual one
+     */
+    public static DomSnapshot get(WebDriver driver) {
+        DomSnapshot snapshot = current.get();
+
+        if (snapshot == null) {
+            snapshot = take(driver);
+            current.set(snapshot);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * @return actual snapshot or empty, if it wasn't taken since the last page change
+     */
+    public static Optional<DomSnapshot> peek() {
+        return Optional.ofNullable(current.get());
+    }
+
+    /**
+     * Forget the snapshot, because the page was changed
+     */
+    public static void invalidate() {
+        current.remove();
+    }
+
+    private static DomSnapshot take(WebDriver driver) {
+        long started = System.nanoTime();
+
+        try {
+            Map<?, ?> page = (Map<?, ?>) ScriptUtilities.readSilently(driver,
+                    ScriptUtilities.loadScript("locate.js", "domSnapshot.js"));
+
+            DomSnapshot snapshot = new DomSnapshot(
+                    String.valueOf(page.get("url")),
+                    String.valueOf(page.get("html")),
+                    Duration.ofNanos(System.nanoTime() - started));
+
+            Log.info(String.format("DOM snapshot of %s is taken in %d ms", snapshot.url, snapshot.takenIn.toMillis()));
+            return snapshot;
+        } catch (WebDriverException cause) {
+            throw new InvestingException("Couldn't take DOM snapshot of the page", cause);
+        }
+    }
+
+    /**
+     * @return elements found by the locator, or empty if locator isn't supported locally
+     */
+    public Optional<Elements> select(By locator) {
+        Optional<Elements> found = JsoupLocators.select(document, locator);
+
+        if (found.isEmpty())
+            Log.debug("Locator couldn't be evaluated on DOM snapshot: " + locator);
+
+        return found;
+    }
+
+    /**
+     * @return text of the first found element, if it's visible. Text is rendered as by {@link WebElement#getText()}
+     */
+    public Optional<String> getVisibleText(By locator) {
+        return findFirst(locator)
+                .filter(DomSnapshot::isVisible)
+                .map(DomSnapshot::renderText);
+    }
+
+    /**
+     * @return TRUE if the first found element is visible, empty if nothing is found
+     */
+    public Optional<Boolean> isDisplayed(By locator) {
+        return findFirst(locator).map(DomSnapshot::isVisible);
+    }
+
+    /**
+     * @return attribute value of the first found element, empty if nothing is found or attribute is absent
+     */
+    public Optional<String> getAttribute(By locator, String name) {
+        return findFirst(locator)
+                .filter(element -> element.hasAttr(name))
+                .map(element -> element.attr(name));
+    }
+
+    /**
+     * @return number of found elements, empty if locator isn't supported locally
+     */
+    public Optional<Integer> count(By locator) {
+        return select(locator).map(Elements::size);
+    }
+
+    public String getHtml() {
+        return document.outerHtml();
+    }
+
+    private Optional<Element> findFirst(By locator) {
+        return select(locator).map(Elements::first);
+    }
+
+    /**
+     * Render text like WebDriver does: hidden elements are skipped, block elements and {@code <br>} start new lines,
+     * table cells are separated by space, whitespace is collapsed inside each line,
+     * lines are trimmed and non-breaking spaces become spaces
+     */
+    public static String renderText(Element element) {
+        List<StringBuilder> lines = new ArrayList<>();
+        lines.add(new StringBuilder());
+        appendText(element, lines);
+
+        List<String> rendered = lines.stream()
+                .map(line -> WHITESPACE.matcher(line).replaceAll(" ").trim().replace('\u00a0', ' '))
+                .collect(Collectors.toList());
+
+        int first = 0;
+        int last = rendered.size();
+        while (first < last && rendered.get(first).isEmpty())
+            first++;
+        while (last > first && rendered.get(last - 1).isEmpty())
+            last--;
+
+        return String.join("\n", rendered.subList(first, last));
+    }
+
+    private static void appendText(Node node, List<StringBuilder> lines) {
+        if (node instanceof TextNode) {
+            lines.get(lines.size() - 1).append(((TextNode) node).getWholeText());
+            return;
+        }
+
+        if (!(node instanceof Element) || node.hasAttr(HIDDEN_MARK))
+            return;
+
+        Element element = (Element) node;
+        if (element.normalName().equals("br")) {
+            lines.add(new StringBuilder());
+            return;
+        }
+
+        // table cells are separated by space, rows start new lines
+        boolean cell = element.normalName().equals("td") || element.normalName().equals("th");
+        boolean block = element.isBlock() && !cell;
+
+        if (block)
+            startLine(lines);
+
+        for (Node child : element.childNodes())
+            appendText(child, lines);
+
+        if (block)
+            startLine(lines);
+        else if (cell)
+            lines.get(lines.size() - 1).append(' ');
+    }
+
+    /**
+     * Block element starts a new line, unless the current line has no text yet
+     */
+    private static void startLine(List<StringBuilder> lines) {
+        if (!lines.get(lines.size() - 1).toString().isBlank())
+            lines.add(new StringBuilder());
+    }
+
+    private static boolean isVisible(Element element) {
+        for (Element current = element; current != null; current = current.parent())
+            if (current.hasAttr(HIDDEN_MARK))
+                return false;
+
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package infrastructure.elements;
+
+import infrastructure.exceptions.InvestingException;
+import infrastructure.utilities.BaseUtilities;
+import infrastructure.utilities.ByLocatorUtilities;
+import infrastructure.utilities.ScriptUtilities;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.*;
+
+/**
+ * Query of several element properties, which are read by single script execution. <br><br>
+ *
+ * Elements are provided by name, as locators or elements. {@link org.openqa.selenium.support.PageFactory}
+ * elements are queried by their locators, so they aren't looked up by separate WebDriver calls.
+ * Requested properties are read for each element:
+ * <pre>
+ * ElementQueryResult result = new ElementQuery()
+ *         .element("title", pageTitle)
+ *         .element("price", priceLocator)
+ *         .text()
+ *         .displayed()
+ *         .attribute("href")
+ *         .execute(driver.getDelegate());
+ * </pre>
+ */
+public class ElementQuery {
+
+    private final Map<String, Object> elements = new LinkedHashMap<>();
+
+    private boolean text;
+    private boolean displayed;
+    private boolean rect;
+    private final Set<String> attributes = new LinkedHashSet<>();
+    private final Set<String> cssValues = new LinkedHashSet<>();
+
+    /**
+     * @param name        name of the element in the result
+     * @param elementAttr element or locator
+     */
+    public <T> ElementQuery element(String name, T elementAttr) {
+        BaseUtilities.validateElementOrLocator(elementAttr);
+        elements.put(name, elementAttr);
+        return this;
+    }
+
+    public ElementQuery text() {
+        text = true;
+        return this;
+    }
+
+    public ElementQuery displayed() {
+        displayed = true;
+        return this;
+    }
+
+    public ElementQuery rect() {
+        rect = true;
+        return this;
+    }
+
+    public ElementQuery attribute(String... names) {
+        attributes.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    public ElementQuery cssValue(String... names) {
+        cssValues.addAll(Arrays.asList(names));
+        return this;
+    }
+
+    /**
+     * Read requested properties of all elements
+     *
+     * @param driver not decorated driver, e.g. {@link infrastructure.Investing#getDelegate()}
+     */
+    public ElementQueryResult execute(WebDriver driver) {
+        List<Map<String, Object>> targets = new ArrayList<>();
+        List<WebElement> provided = new ArrayList<>();
+
+        elements.forEach((name, elementAttr) -> {
+            Map<String, Object> target = new HashMap<>();
+            target.put("name", name);
+            target.put("locator", toScriptLocator(elementAttr));
+
+            if (target.get("locator") == null)
+                provided.add((WebElement) elementAttr);
+
+            targets.add(target);
+        });
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("text", text);
+        properties.put("displayed", displayed);
+        properties.put("rect", rect);
+        properties.put("attributes", new ArrayList<>(attributes));
+        properties.put("css", new ArrayList<>(cssValues));
+
+        try {
+            Map<?, ?> states = (Map<?, ?>) ScriptUtilities.readSilently(driver,
+                    ScriptUtilities.loadScript("locate.js", "queryElements.js"), targets, provided, properties);
+
+            return new ElementQueryResult(states);
+        } catch (WebDriverException cause) {
+            throw new InvestingException("Couldn't query elements: " + elements.keySet(), cause);
+        }
+    }
+
+    /**
+     * @return script locator, or NULL if the element itself should be provided to the script
+     */
+    private static Map<String, Object> toScriptLocator(Object elementAttr) {
+        By locator = elementAttr instanceof By
+                ? (By) elementAttr
+                : ByLocatorUtilities.getPageFactoryLocator((WebElement) elementAttr);
+
+        if (locator == null)
+            return null;
+
+        try {
+            return ByLocatorUtilities.getScriptLocator(locator);
+        } catch (IllegalArgumentException unsupported) {
+            if (elementAttr instanceof By)
+                throw new InvestingException("Locator couldn't be queried by script: " + locator, unsupported);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package infrastructure.elements;
+
+import lombok.Getter;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.Rectangle;
+
+import java.util.*;
+
+/**
+ * Properties of elements read by {@link ElementQuery}, by element name
+ */
+public class ElementQueryResult {
+
+    private final Map<String, ElementProperties> elements = new LinkedHashMap<>();
+
+    /**
+     * Properties of a single element. Properties, which weren't requested, are NULL
+     */
+    @Getter
+    public static class ElementProperties {
+        private final boolean present;
+        private final Boolean displayed;
+        private final String text;
+        private final Rectangle rect;
+        private final Map<String, String> attributes = new LinkedHashMap<>();
+        private final Map<String, String> cssValues = new LinkedHashMap<>();
+
+        private ElementProperties(Map<?, ?> state) {
+            present = Boolean.TRUE.equals(state.get("present"));
+            displayed = (Boolean) state.get("displayed");
+            text = (String) state.get("text");
+
+            Map<?, ?> bounds = (Map<?, ?>) state.get("rect");
+            rect = bounds == null
+                    ? null
+                    : new Rectangle(toInt(bounds.get("x")), toInt(bounds.get("y")),
+                            toInt(bounds.get("height")), toInt(bounds.get("width")));
+
+            copy((Map<?, ?>) state.get("attributes"), attributes);
+            copy((Map<?, ?>) state.get("css"), cssValues);
+        }
+
+        public String getAttribute(String name) {
+            return attributes.get(name);
+        }
+
+        public String getCssValue(String name) {
+            return cssValues.get(name);
+        }
+
+        private static int toInt(Object value) {
+            return ((Number) value).intValue();
+        }
+
+        private static void copy(Map<?, ?> source, Map<String, String> target) {
+            if (source != null)
+                source.forEach((key, value) -> target.put(String.valueOf(key), value == null ? null : String.valueOf(value)));
+        }
+
+        @Override
+        public String toString() {
+            return present
+                    ? String.format("displayed: %s, text: %s, rect: %s, attributes: %s, css: %s",
+                            displayed, text, rect == null ? null : rect.getDimension() + " at " + rect.getPoint(),
+                            attributes, cssValues)
+                    : "not present";
+        }
+    }
+
+    ElementQueryResult(Map<?, ?> states) {
+        states.forEach((name, state) -> elements.put(String.valueOf(name), new ElementProperties((Map<?, ?>) state)));
+    }
+
+    /**
+     * @return properties of the element
+     * @throws NoSuchElementException if element isn't present on the page
+     */
+    public ElementProperties get(String name) {
+        ElementProperties properties = find(name);
+
+        if (!properties.isPresent())
+            throw new NoSuchElementException("Queried element \"" + name + "\" isn't present on the page");
+
+        return properties;
+    }
+
+    /**
+     * @return properties of the element, including not present ones
+     */
+    public ElementProperties find(String name) {
+        ElementProperties properties = elements.get(name);
+
+        if (properties == null)
+            throw new IllegalArgumentException("Element \"" + name + "\" wasn't queried, queried elements: " + elements.keySet());
+
+        return properties;
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(elements.keySet());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        elements.forEach((name, properties) -> result.append(name).append(": ").append(properties).append("\n"));
+        return result.toString().trim();
+    }
+}
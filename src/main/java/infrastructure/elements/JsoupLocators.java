@@ -0,0 +1,50 @@
+package infrastructure.elements;
+
+import infrastructure.utilities.ByLocatorUtilities;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Selector;
+import org.openqa.selenium.By;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Evaluates WebDriver locators against the parsed jsoup tree. <br>
+ * Locators are evaluated by their W3C strategy, so {@link By#id}, {@link By#name} and {@link By#className}
+ * are supported as CSS selectors. XPath is evaluated by jsoup, so XPath 1.0 expressions are expected.
+ */
+public class JsoupLocators {
+
+    private JsoupLocators() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param root    element to search in, e.g. whole document
+     * @param locator WebDriver locator
+     * @return found elements, or empty if the locator couldn't be evaluated by jsoup
+     */
+    public static Optional<Elements> select(Element root, By locator) {
+        try {
+            Map<String, Object> scriptLocator = ByLocatorUtilities.getScriptLocator(locator);
+            String value = String.valueOf(scriptLocator.get("value"));
+
+            return Optional.of(switch (String.valueOf(scriptLocator.get("using"))) {
+                case "css selector" -> root.select(value);
+                case "xpath" -> root.selectXpath(value);
+                case "tag name" -> root.getElementsByTag(value);
+                case "link text" -> root.select("a").stream()
+                        .filter(link -> link.text().equals(value))
+                        .collect(Collectors.toCollection(Elements::new));
+                case "partial link text" -> root.select("a").stream()
+                        .filter(link -> link.text().contains(value))
+                        .collect(Collectors.toCollection(Elements::new));
+                default -> throw new IllegalArgumentException("Unsupported locator strategy: " + scriptLocator.get("using"));
+            });
+        } catch (IllegalArgumentException | Selector.SelectorParseException unsupported) {
+            return Optional.empty();
+        }
+    }
+}
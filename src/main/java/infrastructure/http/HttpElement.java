@@ -0,0 +1,135 @@
+package infrastructure.http;
+
+import infrastructure.elements.DomSnapshot;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Element of the page, which is fetched by {@link HttpPageDriver}. <br>
+ * Content of the element could be read, but it couldn't be interacted with, as there is no browser.
+ * Visibility is defined by markup only: hidden attribute, inline styles and non-rendered ancestors,
+ * styles from stylesheets aren't taken into account.
+ */
+public class HttpElement implements WebElement {
+
+    private static final Set<String> NOT_RENDERED_TAGS = Set.of("head", "script", "style", "template", "noscript");
+
+    private final Element element;
+
+    HttpElement(Element element) {
+        this.element = element;
+    }
+
+    @Override
+    public String getText() {
+        return isDisplayed() ? DomSnapshot.renderText(element) : "";
+    }
+
+    @Override
+    public String getAttribute(String name) {
+        return getDomAttribute(name);
+    }
+
+    @Override
+    public String getDomAttribute(String name) {
+        return element.hasAttr(name) ? element.attr(name) : null;
+    }
+
+    @Override
+    public String getTagName() {
+        return element.tagName();
+    }
+
+    @Override
+    public boolean isDisplayed() {
+        for (Element current = element; current != null; current = current.parent()) {
+            if (NOT_RENDERED_TAGS.contains(current.normalName()) || current.hasAttr("hidden"))
+                return false;
+
+            String style = current.attr("style").replace(" ", "").toLowerCase(Locale.ROOT);
+            if (style.contains("display:none") || style.contains("visibility:hidden"))
+                return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !element.hasAttr("disabled");
+    }
+
+    @Override
+    public boolean isSelected() {
+        return element.hasAttr("checked") || element.hasAttr("selected");
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return HttpPageDriver.find(element, this, by);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return HttpPageDriver.first(findElements(by), by);
+    }
+
+    @Override
+    public void click() {
+        throw unsupported("click");
+    }
+
+    @Override
+    public void submit() {
+        throw unsupported("submit");
+    }
+
+    @Override
+    public void sendKeys(CharSequence... keysToSend) {
+        throw unsupported("sendKeys");
+    }
+
+    @Override
+    public void clear() {
+        throw unsupported("clear");
+    }
+
+    @Override
+    public Point getLocation() {
+        throw unsupported("getLocation");
+    }
+
+    @Override
+    public Dimension getSize() {
+        throw unsupported("getSize");
+    }
+
+    @Override
+    public Rectangle getRect() {
+        throw unsupported("getRect");
+    }
+
+    @Override
+    public String getCssValue(String propertyName) {
+        throw unsupported("getCssValue");
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        throw unsupported("getScreenshotAs");
+    }
+
+    private UnsupportedOperationException unsupported(String action) {
+        return new UnsupportedOperationException(
+                String.format("Element <%s> can't be used for \"%s\" in HTTP session, tag the scenario for browser run", getTagName(), action));
+    }
+
+    @Override
+    public String toString() {
+        return "[HTTP] " + element.cssSelector();
+    }
+}
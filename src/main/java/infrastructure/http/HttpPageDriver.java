@@ -0,0 +1,406 @@
+package infrastructure.http;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.elements.JsoupLocators;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import infrastructure.throttling.HostRateLimiter;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Cookie;
+import okhttp3.CookieJar;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidCookieDomainException;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.Logs;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Browserless backend of {@link infrastructure.Investing} for scenarios, which only read server rendered pages. <br><br>
+ *
+ * Pages are fetched by OkHttp client, which is shared by all sessions:
+ * <ul>
+ *     <li>connections are kept in the pool and reused, HTTP/2 is negotiated if server supports it</li>
+ *     <li>responses are kept in the disk cache from <b>http.cache</b>, so pages with ETag or Last-Modified
+ *     are revalidated by conditional requests instead of being downloaded again</li>
+ * </ul>
+ * Fetched HTML is parsed by jsoup and page objects find elements by the same {@link By} locators.
+ * Scripts aren't executed, so only content, which is present in the server response, could be found. <br>
+ * Cookies are kept per session and managed by {@link #manage()}, window management and frames aren't supported.
+ */
+public class HttpPageDriver implements WebDriver {
+
+    public static final String WINDOW_HANDLE = "http";
+
+    private static final String USER_AGENT = "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) "
+            + "Chrome/122.0.0.0 Safari/537.36";
+    private static final long CACHE_SIZE = 100L * 1024 * 1024;
+
+    private static final OkHttpClient sharedClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(32, 5, TimeUnit.MINUTES))
+            .cache(new Cache(new File(WebEnvParams.getHttpCacheParam()), CACHE_SIZE))
+            .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .followRedirects(true)
+            .followSslRedirects(true)
+            .addNetworkInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                    .header("User-Agent", USER_AGENT)
+                    .build()))
+            .build();
+
+    /**
+     * Client shares connection pool and cache with other sessions, but has its own cookies
+     */
+    private final OkHttpClient client;
+    private final SessionCookies cookies = new SessionCookies();
+    private final List<String> history = new ArrayList<>();
+    private int historyIndex = -1;
+
+    private Document document;
+    private boolean quit;
+
+    public HttpPageDriver() {
+        this.client = sharedClient.newBuilder()
+                .cookieJar(cookies)
+                .build();
+    }
+
+    @Override
+    public void get(String url) {
+        load(url);
+
+        history.subList(historyIndex + 1, history.size()).clear();
+        history.add(getCurrentUrl());
+        historyIndex = history.size() - 1;
+    }
+
+    private void load(String url) {
+        if (quit)
+            throw new NoSuchSessionException("HTTP session is quit");
+
+        Request request = new Request.Builder()
+                .url(url)
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .build();
+
+        long started = System.nanoTime();
+
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            String html = body == null ? "" : body.string();
+            String finalUrl = response.request().url().toString();
+
+            if (!response.isSuccessful())
+                Log.warn(String.format("Page %s responded with status %d", finalUrl, response.code()));
+
+            document = Jsoup.parse(html, finalUrl);
+
+            if (WebEnvParams.getNavigationRateLimitParam())
+                HostRateLimiter.onResponse(finalUrl, response.code(), document.title());
+
+            Log.debug(String.format("Page %s is fetched by %s in %d ms%s", finalUrl, response.protocol(),
+                    Duration.ofNanos(System.nanoTime() - started).toMillis(),
+                    response.networkResponse() == null ? " from cache"
+                            : response.cacheResponse() != null ? " after revalidation" : ""));
+        } catch (IOException | IllegalArgumentException cause) {
+            throw new InvestingException("Couldn't fetch the " + url + " page", cause);
+        }
+    }
+
+    private Document getDocument() {
+        if (document == null)
+            throw new WebDriverException("No page is loaded in the HTTP session");
+
+        return document;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return document == null ? "about:blank" : document.location();
+    }
+
+    @Override
+    public String getTitle() {
+        return document == null ? "" : document.title();
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return find(getDocument(), this, by);
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return first(findElements(by), by);
+    }
+
+    /**
+     * Find elements by locator, which is evaluated by jsoup.
+     * Composite locators, e.g. {@link org.openqa.selenium.support.pagefactory.ByChained}, are resolved by their parts
+     *
+     * @param root    element to search in
+     * @param context search context of the root element
+     */
+    static List<WebElement> find(Element root, SearchContext context, By by) {
+        Optional<List<WebElement>> found = JsoupLocators.select(root, by)
+                .map(elements -> elements.stream()
+                        .map(HttpElement::new)
+                        .collect(Collectors.toList()));
+
+        if (found.isPresent())
+            return found.get();
+
+        if (by instanceof By.Remotable)
+            throw new InvalidSelectorException("Locator couldn't be evaluated on the HTTP page: " + by);
+
+        return by.findElements(context);
+    }
+
+    static WebElement first(List<WebElement> elements, By by) {
+        if (elements.isEmpty())
+            throw new NoSuchElementException("Unable to locate element on the HTTP page: " + by);
+
+        return elements.get(0);
+    }
+
+    @Override
+    public String getPageSource() {
+        return getDocument().outerHtml();
+    }
+
+    @Override
+    public void close() {
+        quit();
+    }
+
+    @Override
+    public void quit() {
+        quit = true;
+        document = null;
+        cookies.clear();
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Set.of(WINDOW_HANDLE);
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return WINDOW_HANDLE;
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("Windows and frames aren't supported by HTTP session");
+    }
+
+    @Override
+    public Navigation navigate() {
+        return new HttpNavigation();
+    }
+
+    /**
+     * @return options, which manage cookies of the session. Timeouts and window aren't supported
+     */
+    @Override
+    public Options manage() {
+        return new HttpOptions();
+    }
+
+    /**
+     * @return URL of the opened page, or NULL if no page is opened
+     */
+    private HttpUrl currentHttpUrl() {
+        return document == null ? null : HttpUrl.parse(document.location());
+    }
+
+    private class HttpOptions implements Options {
+
+        @Override
+        public void addCookie(org.openqa.selenium.Cookie cookie) {
+            HttpUrl url = currentHttpUrl();
+
+            if (cookie.getDomain() == null && url == null)
+                throw new InvalidCookieDomainException("Cookie without domain can't be added before any page is opened");
+
+            Cookie.Builder builder = new Cookie.Builder()
+                    .name(cookie.getName())
+                    .value(cookie.getValue())
+                    .path(cookie.getPath() == null ? "/" : cookie.getPath());
+
+            if (cookie.getDomain() == null)
+                builder.hostOnlyDomain(url.host());
+            else
+                builder.domain(cookie.getDomain().replaceFirst("^\\.", ""));
+
+            if (cookie.getExpiry() != null)
+                builder.expiresAt(cookie.getExpiry().getTime());
+            if (cookie.isSecure())
+                builder.secure();
+            if (cookie.isHttpOnly())
+                builder.httpOnly();
+
+            cookies.save(builder.build());
+        }
+
+        @Override
+        public void deleteCookieNamed(String name) {
+            HttpUrl url = currentHttpUrl();
+            cookies.remove(cookie -> cookie.name().equals(name) && (url == null || cookie.matches(url)));
+        }
+
+        @Override
+        public void deleteCookie(org.openqa.selenium.Cookie cookie) {
+            deleteCookieNamed(cookie.getName());
+        }
+
+        @Override
+        public void deleteAllCookies() {
+            HttpUrl url = currentHttpUrl();
+            cookies.remove(cookie -> url == null || cookie.matches(url));
+        }
+
+        @Override
+        public Set<org.openqa.selenium.Cookie> getCookies() {
+            HttpUrl url = currentHttpUrl();
+
+            if (url == null)
+                return Set.of();
+
+            return cookies.loadForRequest(url).stream()
+                    .map(HttpPageDriver::toSeleniumCookie)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+        }
+
+        @Override
+        public org.openqa.selenium.Cookie getCookieNamed(String name) {
+            return getCookies().stream()
+                    .filter(cookie -> cookie.getName().equals(name))
+                    .findFirst()
+                    .orElse(null);
+        }
+
+        @Override
+        public Timeouts timeouts() {
+            throw new UnsupportedOperationException("Timeouts aren't supported by HTTP session");
+        }
+
+        @Override
+        public Window window() {
+            throw new UnsupportedOperationException("Window isn't supported by HTTP session");
+        }
+
+        @Override
+        public Logs logs() {
+            throw new UnsupportedOperationException("Logs aren't supported by HTTP session");
+        }
+    }
+
+    /**
+     * Cookie is reported as by browser: host-only cookie by the host name, domain cookie with the leading dot
+     */
+    private static org.openqa.selenium.Cookie toSeleniumCookie(Cookie cookie) {
+        return new org.openqa.selenium.Cookie.Builder(cookie.name(), cookie.value())
+                .domain(cookie.hostOnly() ? cookie.domain() : "." + cookie.domain())
+                .path(cookie.path())
+                .expiresOn(cookie.persistent() ? new Date(cookie.expiresAt()) : null)
+                .isSecure(cookie.secure())
+                .isHttpOnly(cookie.httpOnly())
+                .build();
+    }
+
+    private class HttpNavigation implements Navigation {
+
+        @Override
+        public void back() {
+            if (historyIndex > 0)
+                load(history.get(--historyIndex));
+        }
+
+        @Override
+        public void forward() {
+            if (historyIndex < history.size() - 1)
+                load(history.get(++historyIndex));
+        }
+
+        @Override
+        public void to(String url) {
+            get(url);
+        }
+
+        @Override
+        public void to(URL url) {
+            get(url.toString());
+        }
+
+        @Override
+        public void refresh() {
+            if (historyIndex >= 0)
+                load(history.get(historyIndex));
+        }
+    }
+
+    /**
+     * In-memory cookies of the single HTTP session
+     */
+    private static class SessionCookies implements CookieJar {
+
+        private final List<Cookie> cookies = new ArrayList<>();
+
+        @Override
+        public synchronized void saveFromResponse(HttpUrl url, List<Cookie> received) {
+            received.forEach(this::save);
+        }
+
+        /**
+         * Cookie replaces the saved one with the same name, domain and path
+         */
+        synchronized void save(Cookie cookie) {
+            cookies.removeIf(saved -> saved.name().equals(cookie.name())
+                    && saved.domain().equals(cookie.domain())
+                    && saved.path().equals(cookie.path()));
+            cookies.add(cookie);
+        }
+
+        synchronized void remove(Predicate<Cookie> filter) {
+            cookies.removeIf(filter);
+        }
+
+        @Override
+        public synchronized List<Cookie> loadForRequest(HttpUrl url) {
+            long now = System.currentTimeMillis();
+            cookies.removeIf(cookie -> cookie.expiresAt() < now);
+
+            return cookies.stream()
+                    .filter(cookie -> cookie.matches(url))
+                    .collect(Collectors.toList());
+        }
+
+        synchronized void clear() {
+            cookies.clear();
+        }
+    }
+}
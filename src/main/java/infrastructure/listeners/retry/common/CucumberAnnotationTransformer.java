@@ -10,6 +10,9 @@ public class CucumberAnnotationTransformer implements IAnnotationTransformer {
 
     @Override
     public void transform(ITestAnnotation annotation, Class testClass, Constructor testConstructor, Method testMethod) {
+        if (testMethod != null && testMethod.isAnnotationPresent(NotRetried.class))
+            return;
+
         annotation.setRetryAnalyzer(CucumberRetryListener.class);
     }
 }
@@ -2,6 +2,7 @@ package infrastructure.listeners.retry.common;
 
 import infrastructure.constants.WebEnvParams;
 import infrastructure.logger.Log;
+import infrastructure.session.SessionHealth;
 import infrastructure.threadlocals.ThreadLocalScenario;
 import io.cucumber.java.Scenario;
 import org.testng.IRetryAnalyzer;
@@ -54,6 +55,12 @@ public class CucumberRetryListener implements IRetryAnalyzer {
 
     @Override
     public boolean retry(ITestResult result) {
+        // failure on a dead session isn't counted as a try
+        if (WebEnvParams.getSessionHealthParam() && SessionHealth.takeFreeRetry()) {
+            Log.info(String.format("Retrying test \"%s\" failed on a dead session", getScenario()));
+            return true;
+        }
+
         AtomicInteger retryNumber = getRetryNumber();
 
         try {
@@ -0,0 +1,15 @@
+package infrastructure.listeners.retry.common;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Test methods with this annotation don't get {@link CucumberRetryListener},
+ * e.g. if scenarios are retried by {@link infrastructure.scheduling.ScenarioCoordinator}
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface NotRetried {
+}
@@ -1,33 +1,89 @@
 package infrastructure.listeners;
 
+import infrastructure.constants.WebEnvParams;
 import infrastructure.logger.Log;
+import infrastructure.metrics.CommandLatencyRecorder;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.scheduling.ConcurrencyController;
+import infrastructure.scheduling.ScenarioDurations;
+import infrastructure.scheduling.ScenarioSchedule;
+import infrastructure.session.HubRouter;
+import infrastructure.session.SessionHealth;
+import infrastructure.throttling.HostRateLimiter;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.waits.WaitLatencyHistory;
 import io.cucumber.plugin.ConcurrentEventListener;
 import io.cucumber.plugin.event.EventHandler;
 import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.TestCaseFinished;
 import io.cucumber.plugin.event.TestRunFinished;
 import io.cucumber.plugin.event.TestRunStarted;
 
+import java.time.Duration;
+import java.time.Instant;
+
 import static infrastructure.ReportAttachments.cucumberReportCheckSize;
 
 @SuppressWarnings("unused")
 public class testEventListener implements ConcurrentEventListener {
 
+    private volatile Instant runStarted;
+
     @Override
     public void setEventPublisher(EventPublisher eventPublisher) {
         eventPublisher.registerHandlerFor(TestRunStarted.class, setup);
+        eventPublisher.registerHandlerFor(TestCaseFinished.class, scenarioFinished);
         eventPublisher.registerHandlerFor(TestRunFinished.class, teardown);
     }
 
-    private final EventHandler<TestRunStarted> setup = event -> beforeAll();
+    private final EventHandler<TestRunStarted> setup = event -> beforeAll(event.getInstant());
 
-    private void beforeAll() {
+    private void beforeAll(Instant started) {
         Log.info("Before all");
+        runStarted = started;
     }
 
-    private final EventHandler<TestRunFinished> teardown = event -> afterAll();
+    private final EventHandler<TestCaseFinished> scenarioFinished = event -> {
+        if (ScenarioDurations.isUsed())
+            ScenarioDurations.record(
+                    ScenarioDurations.key(event.getTestCase().getName(), event.getTestCase().getLocation().getLine()),
+                    event.getResult().getDuration());
+    };
 
-    private void afterAll() {
+    private final EventHandler<TestRunFinished> teardown = event -> afterAll(event.getInstant());
+
+    private void afterAll(Instant finished) {
         Log.info("After all");
         cucumberReportCheckSize(100);
+
+        if (WebEnvParams.getCommandMetricsParam())
+            CommandLatencyRecorder.writeRunSummary();
+
+        if (WebEnvParams.getTimeBudgetParam())
+            TimeBudget.writeRunSummary();
+
+        if (WebEnvParams.getAdaptivePollingParam())
+            WaitLatencyHistory.save();
+
+        if (WebEnvParams.getTimeoutsCalibrateParam())
+            TimeoutCalibration.save();
+
+        if (HubRouter.isUsed())
+            HubRouter.getInstance().writeRunSummary();
+
+        if (WebEnvParams.getNavigationRateLimitParam())
+            HostRateLimiter.writeRunSummary();
+
+        if (WebEnvParams.getSessionHealthParam())
+            SessionHealth.writeRunSummary();
+
+        if (ConcurrencyController.isUsed())
+            ConcurrencyController.getInstance().writeRunSummary();
+
+        if (WebEnvParams.getScenarioOrderingParam())
+            ScenarioSchedule.writeRunSummary(Duration.between(runStarted, finished));
+
+        if (ScenarioDurations.isUsed())
+            ScenarioDurations.save();
     }
 }
@@ -1,22 +1,32 @@
 package infrastructure.listeners.webriver;
 
+import infrastructure.constants.WebEnvParams;
+import infrastructure.elements.DomSnapshot;
 import infrastructure.listeners.webriver.helpers.WDListenerBaseHelper;
 import infrastructure.listeners.webriver.helpers.WDListenerCookieHelper;
+import infrastructure.listeners.webriver.helpers.WDListenerPopupGuardHelper;
 import infrastructure.listeners.webriver.helpers.WDListenerPopupHelper;
 import infrastructure.logger.Log;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
+import infrastructure.readiness.PageReadiness;
+import infrastructure.readiness.PageReadinessResult;
 import infrastructure.threadlocals.ThreadLocalDriver;
 import infrastructure.threadlocals.ThreadLocalPopups;
+import infrastructure.throttling.HostRateLimiter;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
 import infrastructure.utilities.NavigationUtilities;
-import infrastructure.utilities.Utilities;
+import infrastructure.waits.WaitLatencyHistory;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.interactions.Sequence;
 import org.openqa.selenium.support.events.WebDriverListener;
 
+import java.lang.reflect.Method;
 import java.util.Collection;
 
 import static infrastructure.allure.AllureAttachments.allureAttachText;
-import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.GO_TO_URL_DURATION;
 import static infrastructure.utilities.NavigationUtilities.isPagePro;
 
 /**
@@ -28,30 +38,44 @@ public class CommonWebDriveListener implements WebDriverListener {
     @Override
     public void afterGet(WebDriver driver, String url) {
         Log.info("afterGet event detected");
+        DomSnapshot.invalidate();
 
         try {
-            Utilities.sleep(GO_TO_URL_DURATION);
+            PageReadinessResult readiness = PageReadiness.waitFor(driver, url, TimeoutCalibration.timeout(TimeoutKind.NAVIGATION));
+
+            if (WebEnvParams.getNavigationRateLimitParam()
+                    && HostRateLimiter.onResponse(url, readiness.getResponseStatus(), readiness.getTitle()))
+                allureAttachText("warning", "Navigation was throttled by the host: " + readiness);
+
+            injectPopupGuard(driver);
             String page = NavigationUtilities.getPageFromUrl(url);
 
+            if (WebEnvParams.getAdaptivePollingParam())
+                WaitLatencyHistory.setPage(page);
+
             if (isPagePro(page))
                 return;
             else {
                 // Privacy / CCPA popup processing
                 WDListenerPopupHelper.detectAndClosePrivacyCcpaPopup(url);
-                // prevent InvestingPro promo banner
-                WDListenerCookieHelper.modifyProPromoPopupCookie();
-                // prevent InvestingPro Sale banner
-                WDListenerCookieHelper.modifyProSalePromoPopupCookies(page);
-                // prevent ProPicks banner
-                WDListenerCookieHelper.modifyProPicksPromoPopupCookies(page);
-                // prevent ProTips banner
-                WDListenerCookieHelper.addPromoBannerAutoCookie();
-
-                if (WDListenerCookieHelper.cookiesModifiedFlag.get()) {
-                    // refresh page if any cookie for any banner was modified
-                    ThreadLocalDriver.get().navigate().refresh();
-                    WDListenerCookieHelper.cookiesModifiedFlag.set(false);
-                }
+
+                // refresh caused by cookies is counted as cookies processing time
+                TimeBudget.measure(Phase.COOKIE, () -> {
+                    // prevent InvestingPro promo banner
+                    WDListenerCookieHelper.modifyProPromoPopupCookie();
+                    // prevent InvestingPro Sale banner
+                    WDListenerCookieHelper.modifyProSalePromoPopupCookies(page);
+                    // prevent ProPicks banner
+                    WDListenerCookieHelper.modifyProPicksPromoPopupCookies(page);
+                    // prevent ProTips banner
+                    WDListenerCookieHelper.addPromoBannerAutoCookie();
+
+                    if (WDListenerCookieHelper.cookiesModifiedFlag.get()) {
+                        // refresh page if any cookie for any banner was modified
+                        ThreadLocalDriver.get().navigate().refresh();
+                        WDListenerCookieHelper.cookiesModifiedFlag.set(false);
+                    }
+                });
             }
         } catch (Exception cause) {
             allureAttachText("error","Couldn't complete afterGet steps with WebDriver listener:\n" + cause);
@@ -61,7 +85,8 @@ public class CommonWebDriveListener implements WebDriverListener {
     @Override
     public void afterRefresh(WebDriver.Navigation navigation) {
         Log.info("afterRefresh event detected");
-        Utilities.sleep(GO_TO_URL_DURATION);
+        PageReadiness.waitFor(ThreadLocalDriver.get().getDelegate(), null, TimeoutCalibration.timeout(TimeoutKind.NAVIGATION));
+        injectPopupGuard(ThreadLocalDriver.get().getDelegate());
 
         // Privacy / CCPA popup processing
         if (!ThreadLocalPopups.getPrivacyCcpaPopupShownFlag()) {
@@ -70,18 +95,44 @@ public class CommonWebDriveListener implements WebDriverListener {
         }
     }
 
+    /**
+     * Inject popup guard into the opened document, if it isn't evaluated by browser for each new document
+     */
+    private void injectPopupGuard(WebDriver driver) {
+        if (WebEnvParams.getPopupGuardParam() && !ThreadLocalDriver.get().isPopupGuardOnNewDocument())
+            WDListenerPopupGuardHelper.injectIntoCurrentDocument(driver);
+    }
+
+    @Override
+    public void afterAnyNavigationCall(WebDriver.Navigation navigation, Method method, Object[] args, Object result) {
+        DomSnapshot.invalidate();
+    }
+
     public void afterPerform(WebDriver driver, Collection<Sequence> actions) {
         Log.info("afterPerform event detected");
+        DomSnapshot.invalidate();
         WDListenerBaseHelper.closeBannersAfterScrollOrClick();
     }
 
     public void afterExecuteScript(WebDriver driver, String script, Object[] args, Object result) {
         Log.info("afterExecuteScript event detected");
+        DomSnapshot.invalidate();
         WDListenerBaseHelper.closeBannersAfterScrollOrClick();
     }
 
+    @Override
+    public void afterSendKeys(WebElement element, CharSequence... keysToSend) {
+        DomSnapshot.invalidate();
+    }
+
+    @Override
+    public void afterClear(WebElement element) {
+        DomSnapshot.invalidate();
+    }
+
     public void afterClick(WebElement element) {
         Log.info("afterClick event detected");
+        DomSnapshot.invalidate();
         WDListenerBaseHelper.closeBannersAfterScrollOrClick();
     }
 
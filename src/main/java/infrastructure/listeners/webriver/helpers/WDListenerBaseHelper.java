@@ -1,5 +1,7 @@
 package infrastructure.listeners.webriver.helpers;
 
+import infrastructure.constants.WebEnvParams;
+
 import java.util.function.Predicate;
 
 import static infrastructure.constants.ConstantProvider.WebConstant.Page.*;
@@ -44,6 +46,10 @@ public class WDListenerBaseHelper {
                     || page.contains("us-spx-500");
 
     public static void closeBannersAfterScrollOrClick() {
+        // banners are closed in the page by the popup guard
+        if (WebEnvParams.getPopupGuardParam())
+            return;
+
         // ProPicks banner processing if env is Canary
         WDListenerPopupHelper.detectAndCloseProPicksPromoPopupOnCanary();
     }
@@ -1,12 +1,23 @@
 package infrastructure.listeners.webriver.helpers;
 
 import infrastructure.constants.ConstantProvider;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.cookies.CookieDiff;
+import infrastructure.cookies.CookieJar;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
 import infrastructure.threadlocals.ThreadLocalCookies;
 import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.threadlocals.ThreadLocalEdition;
 import infrastructure.utilities.BaseUtilities;
+import infrastructure.utilities.DevToolsUtilities;
+import infrastructure.utilities.ReflectionUtils;
 import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Collectors;
 
 import static infrastructure.allure.AllureAttachments.allureAttachText;
@@ -15,26 +26,43 @@ import static infrastructure.listeners.webriver.helpers.WDListenerBaseHelper.isP
 import static infrastructure.listeners.webriver.helpers.WDListenerBaseHelper.isPageRelevantForProSaleBanner;
 import static io.qameta.allure.Allure.step;
 
+/**
+ * Banner cookies are applied to the session of {@link infrastructure.threadlocals.ThreadLocalDriver},
+ * and "already modified" flags are kept in {@link ThreadLocalCookies}, so cookies of parallel sessions are modified without locks
+ */
 public class WDListenerCookieHelper {
 
     public static final ThreadLocal<Boolean> cookiesModifiedFlag = ThreadLocal.withInitial(() -> false);
 
+    /**
+     * Apply all cookies by single cookie jar operation.
+     * Page should be refreshed only if any cookie was actually changed. <br>
+     * If <b>cookies.bulk</b> is disabled, each cookie is deleted and added by WebDriver commands
+     */
     private static void modifyCookies(Cookie... cookies) {
-        Arrays.stream(cookies)
-                        .forEach(cookie -> step("Cookies are modified!", () -> {
-                            ThreadLocalDriver.get().manage().deleteCookieNamed(cookie.getName());
-                            ThreadLocalDriver.get().manage().addCookie(cookie);
-                            allureAttachText(cookie.getName() + " cookie modified", "Value changed to " + cookie.getValue());
-                        }));
-
-        cookiesModifiedFlag.set(true);
+        if (!WebEnvParams.getCookiesBulkParam()) {
+            Arrays.stream(cookies)
+                    .forEach(cookie -> step("Cookies are modified!", () -> {
+                        ThreadLocalDriver.get().manage().deleteCookieNamed(cookie.getName());
+                        ThreadLocalDriver.get().manage().addCookie(cookie);
+                        allureAttachText(cookie.getName() + " cookie modified", "Value changed to " + cookie.getValue());
+                    }));
+
+            cookiesModifiedFlag.set(true);
+            return;
+        }
+
+        CookieDiff diff = ThreadLocalDriver.get().getCookieJar().apply(cookies);
+
+        if (!diff.isEmpty())
+            cookiesModifiedFlag.set(true);
     }
 
     /**
      * <b>invpro_promote_variant</b> cookie should be set as <b>0</b>
      * to prevent Pro Promo popup displaying
      */
-    public static synchronized void modifyProPromoPopupCookie() {
+    public static void modifyProPromoPopupCookie() {
         if (!ThreadLocalCookies.getInvProPromoteVariantCookieModifiedFlag())
             if (BaseUtilities.isCookiePresented(invProPromoteVariantCookie)) {
                 modifyCookies(invProPromoteVariantCookie);
@@ -62,7 +90,7 @@ public class WDListenerCookieHelper {
      * For new promotion this logic will be restarted.
      * Dismissal is either when a user click on the X button OR clicks on the site background.
      */
-    public static synchronized void modifyProSalePromoPopupCookies(String page) {
+    public static void modifyProSalePromoPopupCookies(String page) {
         if (!ThreadLocalCookies.getEventPopupCookiesModifiedFlag())
             if (isPageRelevantForProSaleBanner.test(page))
                 if (BaseUtilities.isCookiePresented(eventPopupCounterCookie)) {
@@ -94,7 +122,7 @@ public class WDListenerCookieHelper {
      * For new promotion this logic will be restarted.
      * Dismissal is either when a user click on the X button OR clicks on the site background.
      */
-    public static synchronized void modifyProPicksPromoPopupCookies(String page) {
+    public static void modifyProPicksPromoPopupCookies(String page) {
         if (!ThreadLocalCookies.getProPicksPopupCookiesModifiedFlag()) {
             if (isPageRelevantForProPicksBanner.test(page))
                 if (BaseUtilities.isCookiePresented(propicksPopupCounterCookie)) {
@@ -110,12 +138,58 @@ public class WDListenerCookieHelper {
      *
      * Now it works for the ProTips Promo popup
      */
-    public static synchronized void addPromoBannerAutoCookie() {
+    public static void addPromoBannerAutoCookie() {
         if (!ThreadLocalCookies.getPromoBannerAutoCookieAddedFlag()) {
-            ThreadLocalDriver.get().manage().addCookie(promoBannerAutoCookie);
-            allureAttachText(promoBannerAutoCookie.getName() + " cookie", "Cookie added!");
+            modifyCookies(promoBannerAutoCookie);
             ThreadLocalCookies.putPromoBannerAutoCookieAddedFlag();
-            cookiesModifiedFlag.set(true);
         }
     }
+
+    /**
+     * Set all cookies from {@link ConstantProvider.WebConstant.Cookies} before the first navigation. <br>
+     * Cookies are set for the whole site domain by {@link CookieJar}: by CDP command if it's supported.
+     * Else lightweight page of the current edition is opened to set cookies by script. <br><br>
+     *
+     * All cookies flags are set, so banners cookies aren't modified after navigation and page isn't refreshed.
+     *
+     * @param driver not decorated driver of the new session
+     */
+    public static void preseedCookies(WebDriver driver) {
+        List<Cookie> cookies = getPreseededCookies("." + WebEnvParams.getUrlParam());
+
+        try {
+            TimeBudget.measure(Phase.COOKIE, () -> {
+                // without CDP cookies could be set only from a page of the same domain
+                if (!DevToolsUtilities.isCdpSupported(driver))
+                    driver.get(String.format("https://%s.%s/robots.txt",
+                            ThreadLocalEdition.get().toStringLowerCased(), WebEnvParams.getUrlParam()));
+
+                new CookieJar(driver).apply(cookies);
+            });
+        } catch (Exception cause) {
+            allureAttachText("error", "Couldn't preseed cookies, they will be modified after navigation:\n" + cause);
+            return;
+        }
+
+        ThreadLocalCookies.putInvProPromoteVariantCookieModifiedFlag();
+        ThreadLocalCookies.putEventPopupCookiesModifiedFlag();
+        ThreadLocalCookies.putProPicksPopupCookiesModifiedFlag();
+        ThreadLocalCookies.putPromoBannerAutoCookieAddedFlag();
+    }
+
+    private static List<Cookie> getPreseededCookies(String domain) {
+        return ReflectionUtils.getStaticFields(ConstantProvider.WebConstant.Cookies.class, Cookie.class).stream()
+                .map(field -> {
+                    try {
+                        Cookie cookie = (Cookie) field.get(null);
+                        return new Cookie.Builder(cookie.getName(), cookie.getValue())
+                                .domain(domain)
+                                .path("/")
+                                .build();
+                    } catch (IllegalAccessException cause) {
+                        throw new InvestingException("Couldn't read cookie constant " + field.getName(), cause);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,97 @@
+package infrastructure.listeners.webriver.helpers;
+
+import com.google.gson.Gson;
+import infrastructure.logger.Log;
+import infrastructure.utilities.ByLocatorUtilities;
+import infrastructure.utilities.DevToolsUtilities;
+import infrastructure.utilities.ScriptUtilities;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.util.*;
+
+import static infrastructure.constants.GlobalLocators.WebGlobalLocators.PopupLocators.*;
+import static infrastructure.constants.GlobalLocators.WebGlobalLocators.WorkstationLocators.watchlistOnboardingPanel;
+
+/**
+ * In-page popup guard. <br><br>
+ *
+ * Guard script watches the DOM by MutationObserver and closes known banners right after they appear:
+ * <ul>
+ *     <li>InvestingPro Promo and ProPicks popups</li>
+ *     <li>OneTrust Privacy and CCPA popups</li>
+ *     <li>Watchlist onboarding panel</li>
+ * </ul>
+ * So no WebDriver calls are needed to process popups after each interaction. <br>
+ * Number of closed banners is kept in the sessionStorage and could be taken by {@link #takeCounters()}.
+ */
+public class WDListenerPopupGuardHelper {
+
+    private static final String COUNTERS_KEY = "__invPopupGuard";
+
+    private static final String guardScript = ScriptUtilities.loadScript("locate.js", "popupGuard.js")
+            .replace("__RULES__", new Gson().toJson(List.of(
+                    rule("proPromoPopup", proPromoPopup, proPromoPopupCloseBtn),
+                    rule("privacyPopUp", privacyPopUp, privacyPopUpAcceptBtn),
+                    rule("ccpaPopUp", ccpaPopUp, ccpaPopUpCloseBtn),
+                    rule("watchlistOnboardingPanel", watchlistOnboardingPanel, null)
+            )));
+
+    private static Map<String, Object> rule(String name, By target, By close) {
+        Map<String, Object> rule = new HashMap<>();
+        rule.put("name", name);
+        rule.put("target", ByLocatorUtilities.getScriptLocator(target));
+        rule.put("close", close == null ? null : ByLocatorUtilities.getScriptLocator(close));
+        return rule;
+    }
+
+    /**
+     * Make browser evaluate guard script on each new document by CDP command
+     *
+     * @param driver not decorated driver
+     * @return FALSE if CDP isn't supported, so guard should be injected after each navigation
+     */
+    public static boolean installOnNewDocument(WebDriver driver) {
+        boolean installed = DevToolsUtilities
+                .executeCdpCommand(driver, "Page.addScriptToEvaluateOnNewDocument", Map.of("source", guardScript))
+                .isPresent();
+
+        Log.info(installed
+                ? "Popup guard is installed for each new document"
+                : "Popup guard couldn't be installed by CDP, it will be injected after navigation");
+
+        return installed;
+    }
+
+    /**
+     * Inject guard into the current document. Guard is installed only once per document
+     *
+     * @param driver not decorated driver
+     */
+    public static void injectIntoCurrentDocument(WebDriver driver) {
+        try {
+            ScriptUtilities.executeSilently(driver, guardScript);
+        } catch (Exception cause) {
+            Log.warn("Couldn't inject popup guard: " + cause);
+        }
+    }
+
+    /**
+     * Read and reset counters, so the next scenario of the batched or pooled session counts its own banners
+     *
+     * @return number of banners closed by the guard in the current tab and origin since the last call, by banner name
+     */
+    public static Map<String, Long> takeCounters() {
+        Object counters = ScriptUtilities.readSilently(
+                "var counters = window.sessionStorage.getItem('" + COUNTERS_KEY + "');"
+                        + "window.sessionStorage.removeItem('" + COUNTERS_KEY + "');"
+                        + "return counters;");
+
+        Map<String, Long> result = new TreeMap<>();
+        if (counters != null)
+            new Gson().<Map<String, Double>>fromJson(counters.toString(), Map.class)
+                    .forEach((name, count) -> result.put(name, count.longValue()));
+
+        return result;
+    }
+}
@@ -1,20 +1,26 @@
 package infrastructure.listeners.webriver.helpers;
 
 import infrastructure.constants.WebEnvParams;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
 import infrastructure.threadlocals.ThreadLocalPopups;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
 import infrastructure.utilities.NavigationUtilities;
+import org.openqa.selenium.By;
 import org.openqa.selenium.TimeoutException;
 
-import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.MINIMAL_WAITING_DURATION;
-import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.POPUP_WAITING_DURATION;
+import java.time.Duration;
+
 import static infrastructure.constants.GlobalLocators.WebGlobalLocators.PopupLocators.ccpaPopUp;
 import static infrastructure.constants.GlobalLocators.WebGlobalLocators.PopupLocators.privacyPopUp;
 import static infrastructure.listeners.webriver.helpers.WDListenerBaseHelper.*;
 import static infrastructure.utilities.PopupUtilities.*;
-import static infrastructure.utilities.WaitUtilities.waitUntil;
-import static org.openqa.selenium.support.ui.ExpectedConditions.or;
-import static org.openqa.selenium.support.ui.ExpectedConditions.visibilityOfElementLocated;
 
+/**
+ * Popups are awaited in the page of the current thread session and "already shown" flags are kept in {@link ThreadLocalPopups},
+ * so a long popup wait of one thread doesn't delay popup processing of other threads
+ */
 public class WDListenerPopupHelper {
 
     /**
@@ -29,37 +35,46 @@ public class WDListenerPopupHelper {
      * </ul>
      *
      * Expected, that one of these popups should be displayed one the 1st opened Investing.com page.
-     * If this condition wasn't completed, then current user's location doesn't require such popup.
+     * If this condition wasn't completed, then current user's location doesn't require such popup. <br>
+     * Popups are closed by the popup guard, if it's enabled, so there is nothing to wait for.
      */
-    public static synchronized void detectAndClosePrivacyCcpaPopup(String url) {
+    public static void detectAndClosePrivacyCcpaPopup(String url) {
+        if (WebEnvParams.getPopupGuardParam()) {
+            ThreadLocalPopups.putPrivacyCcpaPopupClosedFlag();
+            return;
+        }
+
         if (!ThreadLocalPopups.getPrivacyCcpaPopupShownFlag())
             if (isPageRelevantForPrivacyOrCcpaPopup.test(url))
                 try {
-                    waitUntil(
-                            POPUP_WAITING_DURATION,
-                            or(
-                                    visibilityOfElementLocated(privacyPopUp),
-                                    visibilityOfElementLocated(ccpaPopUp)
-                            ));
-                    if (isPopupDisplayed(MINIMAL_WAITING_DURATION, privacyPopUp))
-                        closePrivacyPopUp();
-                    else
-                        closeCCPAPopUp();
+                    TimeBudget.measure(Phase.POPUP, () -> {
+                        // both popups are checked by single script on each poll
+                        long started = System.nanoTime();
+                        By popup = waitForAnyPopup(TimeoutCalibration.timeout(TimeoutKind.POPUP), privacyPopUp, ccpaPopUp);
+                        TimeoutCalibration.record(TimeoutKind.POPUP, Duration.ofNanos(System.nanoTime() - started));
+
+                        if (popup.equals(privacyPopUp))
+                            closePrivacyPopUp();
+                        else
+                            closeCCPAPopUp();
+                    });
                 } catch (TimeoutException ignore) {
                 } finally {
                     ThreadLocalPopups.putPrivacyCcpaPopupClosedFlag();
                 }
     }
 
-    public static synchronized void detectAndCloseProPicksPromoPopup(String page) {
+    public static void detectAndCloseProPicksPromoPopup(String page) {
         if (!ThreadLocalPopups.getProPicksPromoPopupShownFlag()) {
             if (isPageRelevantForProPicksBanner.test(page))
-                if (closeProPromoPopup())
-                    ThreadLocalPopups.putProPicksPromoPopupShownFlag();
+                TimeBudget.measure(Phase.POPUP, () -> {
+                    if (closeProPromoPopup())
+                        ThreadLocalPopups.putProPicksPromoPopupShownFlag();
+                });
         }
     }
 
-    public static synchronized void detectAndCloseProPicksPromoPopupOnCanary() {
+    public static void detectAndCloseProPicksPromoPopupOnCanary() {
         // cookies for the ProPicks banner can't be loaded on Canary
         if (WebEnvParams.isOnCanary())
             if (!ThreadLocalPopups.getProPicksPromoPopupShownFlag()) {
@@ -0,0 +1,67 @@
+package infrastructure.metrics;
+
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures latency of each WebDriver command of the decorated session. <br><br>
+ *
+ * Listener should be the first one in the {@link org.openqa.selenium.support.events.EventFiringDecorator}:
+ * its <b>afterAnyCall</b> is fired before the <b>after*</b> events of other listeners,
+ * so page readiness waits and popups processing are not counted as the command time. <br>
+ * Commands are named by the interface and method, e.g. "WebDriver.findElement", "WebElement.click".
+ */
+public class CommandLatencyListener implements WebDriverListener {
+
+    private static final Map<Method, String> commandNames = new ConcurrentHashMap<>();
+
+    /**
+     * Start times of commands in progress. Commands could be nested, when other listeners call the decorated driver
+     */
+    private static final ThreadLocal<CallStack> calls = ThreadLocal.withInitial(CallStack::new);
+
+    private static class CallStack {
+        private long[] started = new long[8];
+        private int depth;
+
+        private void push(long time) {
+            if (depth == started.length)
+                started = Arrays.copyOf(started, depth * 2);
+            started[depth++] = time;
+        }
+
+        private long pop() {
+            return depth == 0 ? -1 : started[--depth];
+        }
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        calls.get().push(System.nanoTime());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(method, false);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(method, true);
+    }
+
+    private static void record(Method method, boolean failed) {
+        long started = calls.get().pop();
+
+        if (started >= 0)
+            CommandLatencyRecorder.record(
+                    commandNames.computeIfAbsent(method, key -> key.getDeclaringClass().getSimpleName() + "." + key.getName()),
+                    System.nanoTime() - started,
+                    failed);
+    }
+}
@@ -0,0 +1,173 @@
+package infrastructure.metrics;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.logger.Log;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static infrastructure.allure.AllureAttachments.allureAttachText;
+
+/**
+ * Latency histograms of WebDriver commands recorded by {@link CommandLatencyListener}. <br><br>
+ *
+ * Each thread records into its own scenario histograms, so recording doesn't need any locking.
+ * Histograms are reused between scenarios of the thread. At the scenario end they are merged
+ * into the run histograms, which are written into <b>reports/command-latency.json</b> at the run end. <br>
+ * Latency is recorded in microseconds with 3 significant digits.
+ */
+public class CommandLatencyRecorder {
+
+    private static final String RUN_REPORT = "reports/command-latency.json";
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final ThreadLocal<Map<String, CommandHistogram>> scenarioHistograms = ThreadLocal.withInitial(HashMap::new);
+    private static final Map<String, CommandHistogram> runHistograms = new TreeMap<>();
+
+    private CommandLatencyRecorder() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static class CommandHistogram {
+        private final Histogram latency = new Histogram(SIGNIFICANT_DIGITS);
+        private long errors;
+
+        private void add(CommandHistogram other) {
+            latency.add(other.latency);
+            errors += other.errors;
+        }
+
+        private void reset() {
+            latency.reset();
+            errors = 0;
+        }
+    }
+
+    /**
+     * Percentiles of the command latency in milliseconds
+     */
+    private static class CommandSummary {
+        private final long count;
+        private final long errors;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+        private final double total;
+
+        private CommandSummary(CommandHistogram histogram) {
+            Histogram latency = histogram.latency;
+            count = latency.getTotalCount();
+            errors = histogram.errors;
+            p50 = toMillis(latency.getValueAtPercentile(50));
+            p90 = toMillis(latency.getValueAtPercentile(90));
+            p99 = toMillis(latency.getValueAtPercentile(99));
+            max = toMillis(latency.getMaxValue());
+            total = toMillis((long) (latency.getMean() * count));
+        }
+
+        private static double toMillis(long micros) {
+            return Math.round(micros / 100.0) / 10.0;
+        }
+    }
+
+    static void record(String command, long nanos, boolean failed) {
+        CommandHistogram histogram = scenarioHistograms.get().computeIfAbsent(command, key -> new CommandHistogram());
+        histogram.latency.recordValue(Math.max(0, nanos / 1000));
+
+        if (failed)
+            histogram.errors++;
+    }
+
+    /**
+     * Forget commands, which were recorded by the thread before the scenario start
+     */
+    public static void startScenario() {
+        scenarioHistograms.get().values().forEach(CommandHistogram::reset);
+    }
+
+    /**
+     * @return p99 latency of all commands of the current scenario in milliseconds, or empty if no command was recorded
+     */
+    public static OptionalDouble getScenarioP99() {
+        Histogram all = new Histogram(SIGNIFICANT_DIGITS);
+        scenarioHistograms.get().values().forEach(histogram -> all.add(histogram.latency));
+
+        return all.getTotalCount() == 0
+                ? OptionalDouble.empty()
+                : OptionalDouble.of(CommandSummary.toMillis(all.getValueAtPercentile(99)));
+    }
+
+    /**
+     * Attach latency summary of the scenario commands and add them to the run histograms
+     */
+    public static void finishScenario() {
+        Map<String, CommandHistogram> histograms = scenarioHistograms.get();
+
+        Map<String, CommandSummary> summary = summarize(histograms);
+        if (!summary.isEmpty())
+            allureAttachText("WebDriver commands latency", format(summary));
+
+        synchronized (runHistograms) {
+            histograms.forEach((command, histogram) -> {
+                if (histogram.latency.getTotalCount() > 0)
+                    runHistograms.computeIfAbsent(command, key -> new CommandHistogram()).add(histogram);
+            });
+        }
+
+        histograms.values().forEach(CommandHistogram::reset);
+    }
+
+    /**
+     * Write latency summary of all run commands into the JSON report
+     */
+    public static void writeRunSummary() {
+        Map<String, CommandSummary> summary;
+        synchronized (runHistograms) {
+            summary = summarize(runHistograms);
+        }
+
+        if (summary.isEmpty())
+            return;
+
+        Log.info("WebDriver commands latency:\n" + format(summary));
+
+        File report = new File(RUN_REPORT);
+        report.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(report)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(summary, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write commands latency report: " + cause);
+        }
+    }
+
+    private static Map<String, CommandSummary> summarize(Map<String, CommandHistogram> histograms) {
+        Map<String, CommandSummary> summary = new TreeMap<>();
+
+        histograms.forEach((command, histogram) -> {
+            if (histogram.latency.getTotalCount() > 0)
+                summary.put(command, new CommandSummary(histogram));
+        });
+
+        return summary;
+    }
+
+    /**
+     * @return table of commands ordered by the total time spent
+     */
+    private static String format(Map<String, CommandSummary> summary) {
+        return summary.entrySet().stream()
+                .sorted(Comparator.comparingDouble(entry -> -entry.getValue().total))
+                .map(entry -> String.format("%-40s count: %5d, errors: %3d, p50: %8.1f, p90: %8.1f, p99: %8.1f, max: %8.1f, total: %9.1f ms",
+                        entry.getKey(), entry.getValue().count, entry.getValue().errors,
+                        entry.getValue().p50, entry.getValue().p90, entry.getValue().p99,
+                        entry.getValue().max, entry.getValue().total))
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,258 @@
+package infrastructure.metrics;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.logger.Log;
+import infrastructure.threadlocals.ThreadLocalScenario;
+import io.cucumber.java.Scenario;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static infrastructure.allure.AllureAttachments.allureAttachText;
+
+/**
+ * Breakdown of the scenario wall-clock time into phases. <br><br>
+ *
+ * Framework code marks its phases by measured actions:
+ * <pre>
+ * TimeBudget.measure(Phase.WAIT, () -> ...);
+ * </pre>
+ * Time is exclusive: when a span is started inside another one, the outer phase is paused,
+ * e.g. popups processing after navigation isn't counted as navigation time.
+ * Time, which isn't covered by any span, is counted as {@link Phase#STEP}. <br>
+ * Spans outside of a scenario (e.g. in background threads) are not counted. <br><br>
+ *
+ * Breakdown is attached to each scenario. Run roll-up, which ranks phases and scenarios by
+ * overhead time, is written into <b>reports/time-budget.json</b> at the run end.
+ */
+public class TimeBudget {
+
+    private static final String RUN_REPORT = "reports/time-budget.json";
+    private static final int TOP_SCENARIOS = 20;
+
+    public enum Phase {
+        /** browser session acquisition */
+        SESSION,
+        /** page navigation including readiness wait */
+        NAVIGATION,
+        /** navigation delayed by the host rate limiter */
+        THROTTLE,
+        /** fixed sleeps */
+        SLEEP,
+        /** explicit waits */
+        WAIT,
+        /** popups detection and closing */
+        POPUP,
+        /** cookies modification and caused refresh */
+        COOKIE,
+        /** step bodies, all time not covered by other phases */
+        STEP
+    }
+
+    /**
+     * Started phase. Should be closed in the same thread
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Span NO_SPAN = () -> {};
+
+    private static final ThreadLocal<ScenarioBudget> budgets = new ThreadLocal<>();
+
+    private static final Map<Phase, Long> runPhases = new EnumMap<>(Phase.class);
+    private static final List<ScenarioSummary> runScenarios = new ArrayList<>();
+    private static int runScenariosCount;
+
+    private TimeBudget() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static class ScenarioBudget {
+        private final long started = System.nanoTime();
+        private final long[] spent = new long[Phase.values().length];
+        private Phase[] phases = new Phase[8];
+        private int depth;
+        private long segmentStarted;
+
+        private void enter(Phase phase, long now) {
+            if (depth > 0)
+                spent[phases[depth - 1].ordinal()] += now - segmentStarted;
+            if (depth == phases.length)
+                phases = Arrays.copyOf(phases, depth * 2);
+
+            phases[depth++] = phase;
+            segmentStarted = now;
+        }
+
+        private void exit(long now) {
+            if (depth == 0)
+                return;
+
+            spent[phases[--depth].ordinal()] += now - segmentStarted;
+            segmentStarted = now;
+        }
+    }
+
+    /**
+     * Summary of a scenario phases in milliseconds
+     */
+    private static class ScenarioSummary {
+        private final String scenario;
+        private final long total;
+        private final long overhead;
+        private final Map<Phase, Long> phases;
+
+        private ScenarioSummary(String scenario, long total, Map<Phase, Long> phases) {
+            this.scenario = scenario;
+            this.total = total;
+            this.phases = phases;
+            this.overhead = total - phases.get(Phase.STEP);
+        }
+    }
+
+    public static void startScenario() {
+        budgets.set(new ScenarioBudget());
+    }
+
+    /**
+     * Start phase of the current scenario
+     *
+     * @return span, which should be closed at the phase end
+     */
+    public static Span start(Phase phase) {
+        ScenarioBudget budget = budgets.get();
+
+        if (budget == null)
+            return NO_SPAN;
+
+        budget.enter(phase, System.nanoTime());
+        return () -> budget.exit(System.nanoTime());
+    }
+
+    /**
+     * Run the action as the phase of the current scenario
+     */
+    public static void measure(Phase phase, Runnable action) {
+        Span span = start(phase);
+        try {
+            action.run();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Get the result of the action as the phase of the current scenario
+     *
+     * @return result of the action
+     */
+    public static <T> T measure(Phase phase, Supplier<T> action) {
+        Span span = start(phase);
+        try {
+            return action.get();
+        } finally {
+            span.close();
+        }
+    }
+
+    /**
+     * Attach breakdown of the scenario time and add it to the run roll-up
+     */
+    public static void finishScenario() {
+        ScenarioBudget budget = budgets.get();
+        budgets.remove();
+
+        if (budget == null)
+            return;
+
+        long now = System.nanoTime();
+        while (budget.depth > 0)
+            budget.exit(now);
+
+        long total = toMillis(now - budget.started);
+        Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+        long covered = 0;
+
+        for (Phase phase : Phase.values())
+            if (phase != Phase.STEP) {
+                phases.put(phase, toMillis(budget.spent[phase.ordinal()]));
+                covered += phases.get(phase);
+            }
+        phases.put(Phase.STEP, Math.max(0, total - covered));
+
+        ScenarioSummary summary = new ScenarioSummary(scenarioName(), total, phases);
+        allureAttachText("Time budget", format(phases, total));
+
+        synchronized (runPhases) {
+            phases.forEach((phase, spent) -> runPhases.merge(phase, spent, Long::sum));
+            runScenarios.add(summary);
+            runScenarios.sort(Comparator.comparingLong((ScenarioSummary scenario) -> scenario.overhead).reversed());
+            if (runScenarios.size() > TOP_SCENARIOS)
+                runScenarios.remove(TOP_SCENARIOS);
+            runScenariosCount++;
+        }
+    }
+
+    /**
+     * Write run roll-up: phases ranked by total time and scenarios with the biggest overhead
+     */
+    public static void writeRunSummary() {
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        synchronized (runPhases) {
+            if (runScenariosCount == 0)
+                return;
+
+            long total = runPhases.values().stream().mapToLong(Long::longValue).sum();
+
+            report.put("scenarios", runScenariosCount);
+            report.put("totalMs", total);
+            report.put("wasteRanking", runPhases.entrySet().stream()
+                    .filter(entry -> entry.getKey() != Phase.STEP)
+                    .sorted(Map.Entry.<Phase, Long>comparingByValue().reversed())
+                    .map(entry -> Map.of(
+                            "phase", entry.getKey(),
+                            "totalMs", entry.getValue(),
+                            "meanPerScenarioMs", entry.getValue() / runScenariosCount,
+                            "share", total == 0 ? 0 : Math.round(1000.0 * entry.getValue() / total) / 10.0))
+                    .collect(Collectors.toList()));
+            report.put("stepsMs", runPhases.get(Phase.STEP));
+            report.put("topOverheadScenarios", new ArrayList<>(runScenarios));
+
+            Log.info("Time budget of the run:\n" + format(runPhases, total));
+        }
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write time budget report: " + cause);
+        }
+    }
+
+    private static String format(Map<Phase, Long> phases, long total) {
+        return phases.entrySet().stream()
+                .sorted(Map.Entry.<Phase, Long>comparingByValue().reversed())
+                .map(entry -> String.format("%-10s %8d ms %5.1f%%", entry.getKey(), entry.getValue(),
+                        total == 0 ? 0 : 100.0 * entry.getValue() / total))
+                .collect(Collectors.joining("\n", String.format("%-10s %8d ms%n", "TOTAL", total), ""));
+    }
+
+    private static String scenarioName() {
+        Scenario scenario = ThreadLocalScenario.get();
+        return scenario == null ? "unknown" : scenario.getName() + " (line " + scenario.getLine() + ")";
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
@@ -0,0 +1,173 @@
+package infrastructure.readiness;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
+import infrastructure.utilities.ByLocatorUtilities;
+import infrastructure.utilities.DevToolsUtilities;
+import infrastructure.utilities.NavigationUtilities;
+import infrastructure.utilities.ScriptUtilities;
+import infrastructure.utilities.Utilities;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static infrastructure.allure.AllureAttachments.allureAttachText;
+import static infrastructure.constants.ConstantProvider.WebConstant.Page.HOME_NO_EDITION_URL;
+
+/**
+ * Waits for the page to be ready after navigation instead of the fixed sleep. <br><br>
+ *
+ * Page is ready when all following signals are met:
+ * <ul>
+ *     <li>document.readyState reached <b>readiness.state</b> value</li>
+ *     <li>no fetch/XHR requests were in flight for <b>readiness.network.idle.ms</b></li>
+ *     <li>sentinel element is visible, if it's registered for the page by {@link #registerSentinel(String, By)}</li>
+ * </ul>
+ * Signals are read by single script per poll. Waiting is limited by the provided budget. <br>
+ * Requests are tracked from the document start, if the tracker is installed by {@link #installOnNewDocument(WebDriver)}.
+ * Otherwise tracking starts with the first poll, and earlier requests are seen by resource timings only.
+ * Result is attached to the report, only if the page didn't become ready.
+ */
+public class PageReadiness {
+
+    private static final Map<String, By> sentinels = new ConcurrentHashMap<>();
+
+    private static final String trackerScript = ScriptUtilities.loadScript("readinessTracker.js");
+
+    /**
+     * Sessions, which evaluate the tracker on each new document
+     */
+    private static final Set<WebDriver> trackedSessions = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private PageReadiness() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Register element, which should be visible on the page to treat it as ready
+     *
+     * @param pagePrefix page without domain, e.g. "/equities"
+     * @param sentinel   locator of the element
+     */
+    public static void registerSentinel(String pagePrefix, By sentinel) {
+        sentinels.put(pagePrefix, sentinel);
+    }
+
+    /**
+     * Make browser evaluate fetch/XHR tracker on each new document by CDP command.
+     * Tracker is installed once per session, so pooled and parked sessions don't get it again
+     *
+     * @param driver not decorated driver
+     * @return FALSE if CDP isn't supported, so tracker is injected by the first readiness poll
+     */
+    public static boolean installOnNewDocument(WebDriver driver) {
+        if (trackedSessions.contains(driver))
+            return true;
+
+        boolean installed = DevToolsUtilities
+                .executeCdpCommand(driver, "Page.addScriptToEvaluateOnNewDocument", Map.of("source", trackerScript))
+                .isPresent();
+
+        if (installed)
+            trackedSessions.add(driver);
+
+        return installed;
+    }
+
+    /**
+     * Wait for the page readiness. Result is attached to the report, if the page didn't become ready
+     *
+     * @param driver not decorated driver, so readiness checks don't trigger listener events
+     * @param url    navigated url, used to define sentinel element. Could be NULL
+     * @param budget maximum time to wait
+     */
+    public static PageReadinessResult waitFor(WebDriver driver, String url, Duration budget) {
+        String script = ScriptUtilities.loadScript("locate.js", "readinessTracker.js", "pageReadiness.js");
+        Map<String, Object> sentinel = defineSentinel(url);
+
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        int polls = 0;
+        Map<?, ?> signals = Map.of();
+        boolean ready = false;
+
+        try {
+            while (true) {
+                polls++;
+                signals = (Map<?, ?>) ScriptUtilities.readSilently(driver, script, sentinel);
+
+                if (isReady(signals)) {
+                    ready = true;
+                    break;
+                }
+
+                long left = deadline - System.nanoTime();
+                if (left <= 0)
+                    break;
+
+                Utilities.sleepQuietly(Duration.ofNanos(Math.min(left, WebEnvParams.getReadinessPollingParam().toNanos())));
+            }
+        } catch (Exception cause) {
+            // readiness couldn't be detected, so the whole budget is used as before
+            Log.warn("Couldn't check page readiness, waiting for the full duration: " + cause);
+            long left = deadline - System.nanoTime();
+            if (left > 0)
+                Utilities.sleepQuietly(Duration.ofNanos(left));
+        }
+
+        PageReadinessResult result = new PageReadinessResult(
+                String.valueOf(signals.get("url") == null ? url : signals.get("url")),
+                Duration.ofNanos(System.nanoTime() - started),
+                budget,
+                polls,
+                ready,
+                String.valueOf(signals.get("readyState")),
+                signals.get("inflight") == null ? 0 : ((Number) signals.get("inflight")).longValue(),
+                signals.get("status") == null ? 0 : ((Number) signals.get("status")).intValue(),
+                String.valueOf(signals.get("title"))
+        );
+
+        if (ready) {
+            TimeoutCalibration.record(TimeoutKind.NAVIGATION, result.getWaited());
+            Log.debug("Page readiness: " + result);
+        } else {
+            allureAttachText("Page readiness", result.toString());
+        }
+
+        return result;
+    }
+
+    private static boolean isReady(Map<?, ?> signals) {
+        boolean stateReached = WebEnvParams.getReadinessStateParam().equals("interactive")
+                ? !"loading".equals(signals.get("readyState"))
+                : "complete".equals(signals.get("readyState"));
+
+        long idleNeeded = WebEnvParams.getReadinessNetworkIdleParam().toMillis();
+        boolean networkIdle = idleNeeded == 0
+                || (((Number) signals.get("inflight")).longValue() == 0
+                        && ((Number) signals.get("idleMs")).longValue() >= idleNeeded);
+
+        return stateReached && networkIdle && Boolean.TRUE.equals(signals.get("sentinel"));
+    }
+
+    /**
+     * @return script locator of the sentinel registered for the longest matching page prefix, or NULL
+     */
+    private static Map<String, Object> defineSentinel(String url) {
+        if (url == null || !url.contains(HOME_NO_EDITION_URL))
+            return null;
+
+        String page = NavigationUtilities.getPageFromUrl(url);
+
+        return sentinels.entrySet().stream()
+                .filter(entry -> page.startsWith(entry.getKey()))
+                .max(Map.Entry.comparingByKey((first, second) -> Integer.compare(first.length(), second.length())))
+                .map(entry -> ByLocatorUtilities.getScriptLocator(entry.getValue()))
+                .orElse(null);
+    }
+}
@@ -0,0 +1,45 @@
+package infrastructure.readiness;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Outcome of waiting for page readiness after navigation
+ */
+@AllArgsConstructor
+@Getter
+public class PageReadinessResult {
+
+    private final String url;
+    private final Duration waited;
+    private final Duration budget;
+    private final int polls;
+    private final boolean ready;
+
+    /**
+     * Last readiness signals, which were read from the page
+     */
+    private final String readyState;
+    private final long inflightRequests;
+    private final int responseStatus;
+    private final String title;
+
+    /**
+     * @return time, which would be spent on the fixed sleep, but wasn't needed
+     */
+    public Duration getSaved() {
+        return budget.minus(waited).isNegative()
+                ? Duration.ZERO
+                : budget.minus(waited);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%s after %d ms of %d ms (saved %d ms), polls: %d, readyState: %s, in-flight requests: %d, url: %s",
+                ready ? "Ready" : "Not ready",
+                waited.toMillis(), budget.toMillis(), getSaved().toMillis(), polls, readyState, inflightRequests, url);
+    }
+}
@@ -0,0 +1,298 @@
+package infrastructure.scheduling;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission of scenarios by adaptive concurrency limit. <br><br>
+ *
+ * TestNG threads ({@code threads.count}) are the upper bound, each scenario takes a permit before its hooks
+ * and returns it at the end, so only {@link #getLimit()} scenarios are run at the same time. <br>
+ * Limit is changed by AIMD:
+ * <ul>
+ *     <li>it grows by 1 per window of the limit size, while all permits are used and signals are healthy</li>
+ *     <li>it's multiplied by {@link #BACKOFF} if latency degrades or scenarios fail too often,
+ *     after that it isn't decreased again during the next window</li>
+ * </ul>
+ * Signals are session creation latency, p99 of the scenario WebDriver commands (needs <b>metrics.commands</b>)
+ * and failed scenarios rate. Latency degrades, if its recent average is {@link #TOLERANCE} times higher than
+ * the long term one. <br>
+ * Limit changes and the limit, which the run converged on, are written into <b>reports/concurrency.json</b>.
+ */
+public class ConcurrencyController {
+
+    private static final String RUN_REPORT = "reports/concurrency.json";
+
+    private static final double BACKOFF = 0.75;
+    private static final double TOLERANCE = 1.5;
+    private static final double ERROR_RATE_LIMIT = 0.2;
+    private static final int OUTCOMES_WINDOW = 20;
+    private static final int MIN_SAMPLES = 5;
+    private static final Duration ACQUIRE_LOG_INTERVAL = Duration.ofMinutes(1);
+
+    private static volatile ConcurrencyController instance;
+
+    private final int min;
+    private final int max;
+    private final long started = System.nanoTime();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final ThreadLocal<Boolean> acquired = ThreadLocal.withInitial(() -> false);
+
+    private final Signal sessionLatency = new Signal("session latency");
+    private final Signal commandLatency = new Signal("command p99");
+    private final Deque<Boolean> outcomes = new ArrayDeque<>();
+    private final List<Map<String, Object>> changes = new ArrayList<>();
+
+    private double limit;
+    private int inUse;
+    private int cooldown;
+    private long limitChanged = System.nanoTime();
+    private double weightedLimitMs;
+
+    /**
+     * Short and long term averages of the latency signal
+     */
+    private static class Signal {
+        private static final double SHORT_WEIGHT = 0.3;
+        private static final double LONG_WEIGHT = 0.05;
+
+        private final String name;
+        private double shortTerm;
+        private double longTerm;
+        private int samples;
+
+        private Signal(String name) {
+            this.name = name;
+        }
+
+        private void add(double value) {
+            shortTerm = samples == 0 ? value : shortTerm + SHORT_WEIGHT * (value - shortTerm);
+            longTerm = samples == 0 ? value : longTerm + LONG_WEIGHT * (value - longTerm);
+            samples++;
+        }
+
+        private boolean isDegraded() {
+            return samples >= MIN_SAMPLES && shortTerm > longTerm * TOLERANCE;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %.0f ms vs %.0f ms", name, shortTerm, longTerm);
+        }
+    }
+
+    ConcurrencyController(int min, int max) {
+        this.min = Math.max(min, 1);
+        this.max = Math.max(max, this.min);
+        this.limit = this.min;
+    }
+
+    public static ConcurrencyController getInstance() {
+        if (instance == null)
+            synchronized (ConcurrencyController.class) {
+                if (instance == null)
+                    instance = new ConcurrencyController(
+                            WebEnvParams.getConcurrencyMinParam(),
+                            WebEnvParams.getConcurrencyMaxParam());
+            }
+
+        return instance;
+    }
+
+    /**
+     * @return TRUE if controller was used in the run
+     */
+    public static boolean isUsed() {
+        return instance != null;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait for a permit to run the scenario
+     */
+    public void acquire() {
+        lock.lock();
+        try {
+            long waitStarted = System.nanoTime();
+            while (inUse >= (int) limit)
+                if (!permitReleased.await(ACQUIRE_LOG_INTERVAL.toNanos(), TimeUnit.NANOSECONDS))
+                    Log.info(String.format("Scenario waits for admission for %d s, running: %d, limit: %d",
+                            Duration.ofNanos(System.nanoTime() - waitStarted).toSeconds(), inUse, (int) limit));
+
+            inUse++;
+            acquired.set(true);
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new InvestingException("Interrupted while waiting for scenario admission", cause);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return the permit of the scenario and adjust the limit by its outcome
+     *
+     * @param failed TRUE if scenario failed
+     */
+    public void release(boolean failed) {
+        if (!acquired.get())
+            return;
+
+        acquired.set(false);
+
+        lock.lock();
+        try {
+            boolean saturated = inUse >= (int) limit;
+            inUse--;
+
+            outcomes.addLast(failed);
+            if (outcomes.size() > OUTCOMES_WINDOW)
+                outcomes.removeFirst();
+
+            adjust(saturated);
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordSessionLatency(Duration latency) {
+        lock.lock();
+        try {
+            sessionLatency.add(latency.toMillis());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void recordCommandLatency(double p99Millis) {
+        lock.lock();
+        try {
+            commandLatency.add(p99Millis);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(boolean saturated) {
+        long failures = outcomes.stream().filter(Boolean::booleanValue).count();
+        double errorRate = outcomes.isEmpty() ? 0 : (double) failures / outcomes.size();
+
+        String reason = null;
+        if (sessionLatency.isDegraded())
+            reason = sessionLatency.toString();
+        else if (commandLatency.isDegraded())
+            reason = commandLatency.toString();
+        else if (outcomes.size() >= MIN_SAMPLES && errorRate > ERROR_RATE_LIMIT)
+            reason = String.format("error rate %.0f%%", 100 * errorRate);
+
+        if (cooldown > 0)
+            cooldown--;
+
+        if (reason != null) {
+            if (cooldown == 0 && limit > min) {
+                setLimit(Math.max(min, Math.floor(limit * BACKOFF)), "back off: " + reason);
+                cooldown = (int) limit;
+            }
+        } else if (saturated && limit < max)
+            setLimit(Math.min(max, limit + 1 / limit), "increase");
+    }
+
+    private void setLimit(double newLimit, String reason) {
+        long now = System.nanoTime();
+        accountLimit(now);
+
+        int previous = (int) limit;
+        limit = newLimit;
+
+        if ((int) limit != previous) {
+            Map<String, Object> change = new LinkedHashMap<>();
+            change.put("atSeconds", Duration.ofNanos(now - started).toSeconds());
+            change.put("limit", (int) limit);
+            change.put("reason", reason);
+            changes.add(change);
+
+            Log.info(String.format("Concurrency limit is changed from %d to %d: %s", previous, (int) limit, reason));
+        }
+    }
+
+    /**
+     * Account time, which was spent with the current limit
+     */
+    private void accountLimit(long now) {
+        double spentMs = (now - limitChanged) / 1_000_000.0;
+        weightedLimitMs += (int) limit * spentMs;
+        limitChanged = now;
+    }
+
+    /**
+     * Write limit changes and the converged limit into the run report
+     */
+    public void writeRunSummary() {
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        lock.lock();
+        try {
+            accountLimit(System.nanoTime());
+            double runMs = Math.max((System.nanoTime() - started) / 1_000_000.0, 1);
+
+            report.put("min", min);
+            report.put("max", max);
+            report.put("finalLimit", (int) limit);
+            report.put("meanLimit", Math.round(10 * weightedLimitMs / runMs) / 10.0);
+            report.put("convergedLimit", convergedLimit());
+            report.put("sessionLatency", sessionLatency.samples == 0 ? null : sessionLatency.toString());
+            report.put("commandLatency", commandLatency.samples == 0 ? null : commandLatency.toString());
+            report.put("changes", new ArrayList<>(changes));
+        } finally {
+            lock.unlock();
+        }
+
+        Log.info(String.format("Concurrency converged on %s, final limit: %s", report.get("convergedLimit"), report.get("finalLimit")));
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write concurrency report: " + cause);
+        }
+    }
+
+    /**
+     * @return the most frequent limit in the second half of the changes, as the first half is the ramp up
+     */
+    private int convergedLimit() {
+        if (changes.isEmpty())
+            return (int) limit;
+
+        Map<Integer, Integer> frequency = new HashMap<>();
+        for (Map<String, Object> change : changes.subList(changes.size() / 2, changes.size()))
+            frequency.merge((Integer) change.get("limit"), 1, Integer::sum);
+
+        return Collections.max(frequency.entrySet(), Map.Entry.comparingByValue()).getKey();
+    }
+}
@@ -0,0 +1,106 @@
+package infrastructure.scheduling;
+
+import infrastructure.exceptions.InvestingException;
+import infrastructure.utilities.Utilities;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Connection of the runner thread to the {@link ScenarioCoordinator}
+ */
+public class CoordinatorClient implements Closeable {
+
+    private static final Duration WAIT_DURATION = Duration.ofMillis(500);
+
+    public enum Status {
+        PASSED,
+        FAILED,
+        SKIPPED
+    }
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    /**
+     * @param address coordinator address, e.g. "localhost:7070"
+     * @param worker  name of the runner thread, which is used in the utilization report
+     */
+    public CoordinatorClient(String address, String worker) {
+        String[] hostAndPort = address.split(":");
+
+        try {
+            socket = new Socket(hostAndPort[0], hostAndPort.length > 1
+                    ? Integer.parseInt(hostAndPort[1])
+                    : ScenarioCoordinator.DEFAULT_PORT);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+        } catch (IOException cause) {
+            throw new InvestingException("Couldn't connect to the scenario coordinator " + address, cause);
+        }
+
+        request("HELLO " + worker);
+    }
+
+    /**
+     * Provide scenarios of the run. Coordinator uses only the first provided list
+     *
+     * @param ids scenario ids in the order of execution
+     */
+    public void seed(List<String> ids) {
+        out.println("SEED " + ids.size());
+        ids.forEach(out::println);
+        request(null);
+    }
+
+    /**
+     * @return id of the next scenario, or empty if all scenarios are done.
+     *         Waits, while scenarios of other runners could be retried
+     */
+    public Optional<String> next() {
+        while (true) {
+            String response = request("NEXT");
+
+            if (response.startsWith("RUN "))
+                return Optional.of(response.substring(4));
+
+            if (response.equals("DONE"))
+                return Optional.empty();
+
+            Utilities.sleepQuietly(WAIT_DURATION);
+        }
+    }
+
+    /**
+     * @return TRUE if failed scenario is put back into the queue, so it's not the final result
+     */
+    public boolean result(String id, Status status, Duration duration) {
+        return request(String.format("RESULT %s %d %s", status, duration.toMillis(), id)).equals("RETRY");
+    }
+
+    private String request(String command) {
+        if (command != null)
+            out.println(command);
+
+        try {
+            String response = in.readLine();
+
+            if (response == null || response.startsWith("ERROR"))
+                throw new InvestingException("Scenario coordinator rejected \"" + command + "\": " + response);
+
+            return response;
+        } catch (IOException cause) {
+            throw new InvestingException("Couldn't read response of the scenario coordinator", cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
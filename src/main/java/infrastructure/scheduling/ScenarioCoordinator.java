@@ -0,0 +1,244 @@
+package infrastructure.scheduling;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Local process, which owns the queue of scenarios for several runner JVMs. <br><br>
+ *
+ * Runners connect by {@link CoordinatorClient} and pull scenarios one by one, so a runner,
+ * which is free earlier, takes more scenarios and durations drift doesn't leave stragglers.
+ * Line protocol, one connection per runner thread:
+ * <ul>
+ *     <li><b>HELLO {worker}</b> → <b>OK</b></li>
+ *     <li><b>SEED {count}</b> and {count} lines of scenario ids → <b>OK</b>. Only the first seed is used,
+ *     as all runners select the same scenarios</li>
+ *     <li><b>NEXT</b> → <b>RUN {id}</b>, <b>WAIT</b> if queue is empty, but some scenarios could be retried,
+ *     or <b>DONE</b></li>
+ *     <li><b>RESULT {PASSED|FAILED|SKIPPED} {ms} {id}</b> → <b>RETRY</b> if failed scenario is put back into
+ *     the queue for any runner, otherwise <b>OK</b></li>
+ * </ul>
+ * Scenarios of the disconnected runner are put back into the queue. Coordinator finishes, once the queue is done
+ * and all runners are disconnected, and writes utilization of each runner into the <b>reports/coordinator.json</b>. <br>
+ * Run as: <i>mvn compile exec:java -Dexec.mainClass=infrastructure.scheduling.ScenarioCoordinator -Dexec.args=7070 -Dtries.count=2</i>
+ */
+public class ScenarioCoordinator {
+
+    public static final int DEFAULT_PORT = 7070;
+
+    private static final String RUN_REPORT = "reports/coordinator.json";
+    private static final int ACCEPT_TIMEOUT_MS = 1000;
+
+    private final int tries;
+    private final Deque<String> queue = new ArrayDeque<>();
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final Map<String, String> inFlight = new HashMap<>();
+    private final Map<String, WorkerStats> workers = new LinkedHashMap<>();
+    private final long started = System.nanoTime();
+    private boolean seeded;
+    private int connections;
+    private int retried;
+
+    private static class WorkerStats {
+        private final long connected = System.nanoTime();
+        private long disconnected;
+        private long busyMs;
+        private int scenarios;
+        private int failed;
+    }
+
+    public ScenarioCoordinator(int tries) {
+        this.tries = Math.max(tries, 1);
+    }
+
+    /**
+     * @param args optional port, {@link #DEFAULT_PORT} by default
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        new ScenarioCoordinator(WebEnvParams.getRetriesNumberParam()).serve(port);
+    }
+
+    public void serve(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port)) {
+            server.setSoTimeout(ACCEPT_TIMEOUT_MS);
+            Log.info("Scenario coordinator listens on port " + port);
+
+            while (!isFinished())
+                try {
+                    Socket socket = server.accept();
+                    synchronized (this) {
+                        connections++;
+                    }
+                    Thread handler = new Thread(() -> handle(socket), "coordinator-" + socket.getPort());
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (SocketTimeoutException ignore) {
+                }
+        }
+
+        writeRunSummary();
+    }
+
+    private synchronized boolean isFinished() {
+        return seeded && queue.isEmpty() && inFlight.isEmpty() && connections == 0;
+    }
+
+    private void handle(Socket socket) {
+        String worker = String.valueOf(socket.getRemoteSocketAddress());
+
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(" ", 2);
+                String argument = parts.length > 1 ? parts[1] : "";
+
+                switch (parts[0]) {
+                    case "HELLO" -> {
+                        worker = argument;
+                        out.println("OK");
+                    }
+                    case "SEED" -> {
+                        List<String> ids = new ArrayList<>();
+                        for (int i = Integer.parseInt(argument); i > 0; i--)
+                            ids.add(in.readLine());
+                        seed(ids);
+                        out.println("OK");
+                    }
+                    case "NEXT" -> out.println(next(worker));
+                    case "RESULT" -> {
+                        String[] result = argument.split(" ", 3);
+                        out.println(result(worker, result[0], Long.parseLong(result[1]), result[2]) ? "RETRY" : "OK");
+                    }
+                    default -> out.println("ERROR unknown command: " + parts[0]);
+                }
+            }
+        } catch (IOException | RuntimeException cause) {
+            Log.warn("Connection of the worker " + worker + " is lost: " + cause);
+        } finally {
+            disconnect(worker);
+        }
+    }
+
+    private synchronized void seed(List<String> ids) {
+        if (seeded)
+            return;
+
+        queue.addAll(ids);
+        seeded = true;
+        Log.info(String.format("Queue is seeded by %d scenarios", ids.size()));
+    }
+
+    private synchronized String next(String worker) {
+        // runner is accounted from its first request, so seeding connections aren't reported
+        workers.putIfAbsent(worker, new WorkerStats());
+        String id = queue.pollFirst();
+
+        if (id != null) {
+            inFlight.put(id, worker);
+            return "RUN " + id;
+        }
+
+        return !seeded || !inFlight.isEmpty() ? "WAIT" : "DONE";
+    }
+
+    /**
+     * @return TRUE if failed scenario is put back into the queue
+     */
+    private synchronized boolean result(String worker, String status, long durationMs, String id) {
+        inFlight.remove(id);
+
+        WorkerStats stats = workers.computeIfAbsent(worker, ignored -> new WorkerStats());
+        stats.busyMs += durationMs;
+        stats.scenarios++;
+
+        if (!status.equals("FAILED"))
+            return false;
+
+        int attempt = attempts.merge(id, 1, Integer::sum);
+        if (attempt < tries) {
+            // retry is started as soon as possible, so it doesn't become the last straggler
+            queue.addFirst(id);
+            retried++;
+            Log.info(String.format("Scenario %s failed on %s, it's put back into the queue, attempt %d of %d", id, worker, attempt, tries));
+            return true;
+        }
+
+        stats.failed++;
+        return false;
+    }
+
+    private synchronized void disconnect(String worker) {
+        connections--;
+
+        WorkerStats stats = workers.get(worker);
+        if (stats != null)
+            stats.disconnected = System.nanoTime();
+
+        List<String> lost = inFlight.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(worker))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        lost.forEach(id -> {
+            inFlight.remove(id);
+            queue.addFirst(id);
+        });
+
+        if (!lost.isEmpty())
+            Log.warn(String.format("Worker %s is disconnected, scenarios are put back into the queue: %s", worker, lost));
+    }
+
+    private synchronized void writeRunSummary() {
+        long wallMs = (System.nanoTime() - started) / 1_000_000;
+
+        List<Map<String, Object>> utilization = new ArrayList<>();
+        workers.forEach((worker, stats) -> {
+            long connectedMs = Math.max((stats.disconnected - stats.connected) / 1_000_000, 1);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("worker", worker);
+            row.put("scenarios", stats.scenarios);
+            row.put("failed", stats.failed);
+            row.put("busyMs", stats.busyMs);
+            row.put("connectedMs", connectedMs);
+            row.put("utilization", Math.round(1000.0 * stats.busyMs / connectedMs) / 1000.0);
+            utilization.add(row);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("wallMs", wallMs);
+        report.put("workers", workers.size());
+        report.put("retried", retried);
+        report.put("meanUtilization", utilization.stream()
+                .mapToDouble(row -> (Double) row.get("utilization"))
+                .average()
+                .orElse(0));
+        report.put("utilization", utilization);
+
+        Log.info("Coordinated run is finished:\n" + utilization.stream()
+                .map(row -> String.format("%-40s %4d scenarios %6.1f%% busy",
+                        row.get("worker"), (Integer) row.get("scenarios"), 100 * (Double) row.get("utilization")))
+                .collect(Collectors.joining("\n")));
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write coordinator report: " + cause);
+        }
+    }
+}
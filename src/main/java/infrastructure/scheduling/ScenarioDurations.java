@@ -0,0 +1,150 @@
+package infrastructure.scheduling;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Duration of scenarios from previous runs. <br><br>
+ *
+ * Duration is kept per stable scenario identity "name (line N)", the same as retries use.
+ * Kept value is smoothed over runs, so a single slow run doesn't reorder the whole suite.
+ * History is loaded from the <b>scenarios.durations</b> file on the first use and saved back at the run end. <br><br>
+ *
+ * Durations are recorded, if scenarios are ordered or sharded. Sharded runs don't save the history,
+ * as every shard has to read the same one to compute the same bins, see {@link ScenarioShards}.
+ * Each shard writes durations of its scenarios into the <b>reports/scenario-durations.json</b> instead,
+ * and they are saved into the history by {@link ShardReportMerger} for the whole run.
+ */
+public class ScenarioDurations {
+
+    /**
+     * Weight of the current run in the smoothed duration
+     */
+    private static final double SMOOTHING = 0.5;
+    private static final Duration UNKNOWN_DURATION = Duration.ofSeconds(60);
+    static final String SHARD_DURATIONS = "scenario-durations.json";
+    private static final String SHARD_DURATIONS_REPORT = "reports/" + SHARD_DURATIONS;
+
+    private static final Map<String, Long> history = load();
+    private static final Map<String, Long> run = new ConcurrentHashMap<>();
+
+    private ScenarioDurations() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return TRUE if durations of the run should be recorded and saved
+     */
+    public static boolean isUsed() {
+        return WebEnvParams.getScenarioOrderingParam() || ScenarioShards.isSharded();
+    }
+
+    /**
+     * @return stable identity of the scenario, the row line is used for Scenario Outline
+     */
+    public static String key(String name, int line) {
+        return String.format("%s (line %d)", name, line);
+    }
+
+    /**
+     * Record duration of the scenario attempt. Durations of retries are summed,
+     * as they take the thread time as well
+     */
+    public static void record(String key, Duration duration) {
+        run.merge(key, duration.toMillis(), Long::sum);
+    }
+
+    /**
+     * @return expected duration of the scenario. Scenarios without history are expected
+     *         to take the median duration of known ones
+     */
+    public static Duration predict(String key) {
+        Long known = history.get(key);
+        return known != null ? Duration.ofMillis(known) : median();
+    }
+
+    public static boolean isKnown(String key) {
+        return history.containsKey(key);
+    }
+
+    /**
+     * @return durations of the current run by scenario
+     */
+    public static Map<String, Long> getRunDurations() {
+        return new TreeMap<>(run);
+    }
+
+    private static Duration median() {
+        long[] sorted = history.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        return sorted.length == 0 ? UNKNOWN_DURATION : Duration.ofMillis(sorted[sorted.length / 2]);
+    }
+
+    /**
+     * Save durations of the run: into the history, or into the shard report for the sharded run
+     */
+    public static void save() {
+        if (ScenarioShards.isSharded())
+            saveShardDurations();
+        else
+            saveHistory();
+    }
+
+    /**
+     * Smooth durations of the run into the history file
+     */
+    public static void saveHistory() {
+        File file = new File(WebEnvParams.getScenarioDurationsParam());
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+
+        Map<String, Long> snapshot = new TreeMap<>(history);
+        run.forEach((key, duration) -> snapshot.merge(key, duration,
+                (previous, current) -> Math.round(previous * (1 - SMOOTHING) + current * SMOOTHING)));
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(snapshot, writer);
+            Log.info(String.format("Durations of %d scenarios are saved into %s", snapshot.size(), file));
+        } catch (IOException cause) {
+            Log.error("Couldn't save scenario durations: " + cause);
+        }
+    }
+
+    private static void saveShardDurations() {
+        File file = new File(SHARD_DURATIONS_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(getRunDurations(), writer);
+            Log.info(String.format("Durations of %d scenarios of the shard are saved into %s", run.size(), file));
+        } catch (IOException cause) {
+            Log.error("Couldn't save scenario durations of the shard: " + cause);
+        }
+    }
+
+    private static Map<String, Long> load() {
+        Map<String, Long> loaded = new ConcurrentHashMap<>();
+        File file = new File(WebEnvParams.getScenarioDurationsParam());
+
+        if (!file.exists())
+            return loaded;
+
+        try (Reader reader = new FileReader(file)) {
+            Map<String, Long> durations = new Gson().fromJson(reader, new TypeToken<Map<String, Long>>() {}.getType());
+            if (durations != null)
+                loaded.putAll(durations);
+        } catch (Exception cause) {
+            Log.warn("Couldn't load scenario durations, scenarios are run in feature order: " + cause);
+        }
+
+        return loaded;
+    }
+}
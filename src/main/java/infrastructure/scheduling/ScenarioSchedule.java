@@ -0,0 +1,141 @@
+package infrastructure.scheduling;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.logger.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Longest-processing-time-first order of scenarios. <br><br>
+ *
+ * Parallel threads take scenarios from the data provider in the provided order, so the longest scenarios
+ * are started first and short ones fill the gaps at the end of the run. Otherwise one slow scenario
+ * at the end of the feature files keeps the run going while other threads are idle. <br>
+ * Makespan of the order is predicted by the same greedy assignment to threads and compared
+ * with the actual run time in the <b>reports/scenario-schedule.json</b> report.
+ */
+public class ScenarioSchedule {
+
+    private static final String RUN_REPORT = "reports/scenario-schedule.json";
+    private static final int MISPREDICTIONS_LIMIT = 20;
+
+    private static volatile Plan plan;
+
+    private ScenarioSchedule() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    private static class Plan {
+        private final int threads;
+        private final int items;
+        private final long predictedMakespanMs;
+        private final long predictedTotalMs;
+        private final int unknown;
+
+        private Plan(int threads, int items, long predictedMakespanMs, long predictedTotalMs, int unknown) {
+            this.threads = threads;
+            this.items = items;
+            this.predictedMakespanMs = predictedMakespanMs;
+            this.predictedTotalMs = predictedTotalMs;
+            this.unknown = unknown;
+        }
+    }
+
+    /**
+     * Order items by predicted duration, the longest first
+     *
+     * @param items   scenarios or groups of scenarios
+     * @param keys    scenario keys of the item, see {@link ScenarioDurations#key(String, int)}
+     * @param threads number of parallel threads of the data provider
+     * @return reordered items
+     */
+    public static <T> List<T> longestFirst(List<T> items, Function<T, List<String>> keys, int threads) {
+        Map<T, Long> predicted = new IdentityHashMap<>();
+        int unknown = 0;
+
+        for (T item : items) {
+            long duration = 0;
+            for (String key : keys.apply(item)) {
+                duration += ScenarioDurations.predict(key).toMillis();
+                if (!ScenarioDurations.isKnown(key))
+                    unknown++;
+            }
+            predicted.put(item, duration);
+        }
+
+        List<T> ordered = new ArrayList<>(items);
+        ordered.sort(Comparator.comparing(predicted::get, Comparator.reverseOrder()));
+
+        // each item is taken by the thread, which becomes free first
+        PriorityQueue<Long> threadLoads = new PriorityQueue<>();
+        for (int i = 0; i < Math.max(threads, 1); i++)
+            threadLoads.add(0L);
+
+        for (T item : ordered)
+            threadLoads.add(threadLoads.poll() + predicted.get(item));
+
+        long makespan = threadLoads.stream().mapToLong(Long::longValue).max().orElse(0);
+        long total = predicted.values().stream().mapToLong(Long::longValue).sum();
+        plan = new Plan(threads, items.size(), makespan, total, unknown);
+
+        Log.info(String.format("%d items are ordered longest first for %d threads, predicted run time: %d s, without history: %d",
+                items.size(), threads, Duration.ofMillis(makespan).toSeconds(), unknown));
+
+        return ordered;
+    }
+
+    /**
+     * Write predicted and actual run time into the run report
+     *
+     * @param actualMakespan time from the run start till the run end
+     */
+    public static void writeRunSummary(Duration actualMakespan) {
+        Plan current = plan;
+        if (current == null)
+            return;
+
+        Map<String, Long> actual = ScenarioDurations.getRunDurations();
+        long actualTotal = actual.values().stream().mapToLong(Long::longValue).sum();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("threads", current.threads);
+        report.put("items", current.items);
+        report.put("scenariosWithoutHistory", current.unknown);
+        report.put("predictedMakespanMs", current.predictedMakespanMs);
+        report.put("actualMakespanMs", actualMakespan.toMillis());
+        report.put("predictedTotalMs", current.predictedTotalMs);
+        report.put("actualTotalMs", actualTotal);
+        report.put("largestMispredictions", actual.entrySet().stream()
+                .map(entry -> {
+                    long predicted = ScenarioDurations.predict(entry.getKey()).toMillis();
+                    Map<String, Object> scenario = new LinkedHashMap<>();
+                    scenario.put("scenario", entry.getKey());
+                    scenario.put("predictedMs", predicted);
+                    scenario.put("actualMs", entry.getValue());
+                    scenario.put("errorMs", entry.getValue() - predicted);
+                    return scenario;
+                })
+                .sorted(Comparator.comparing(scenario -> -Math.abs((Long) scenario.get("errorMs"))))
+                .limit(MISPREDICTIONS_LIMIT)
+                .collect(Collectors.toList()));
+
+        Log.info(String.format("Run time predicted: %d s, actual: %d s",
+                Duration.ofMillis(current.predictedMakespanMs).toSeconds(), actualMakespan.toSeconds()));
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write scenario schedule report: " + cause);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package infrastructure.scheduling;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Partition of scenarios between several runs, e.g. runner containers, which use the same Selenoid hub. <br><br>
+ *
+ * Each run gets <b>shard.index</b> and <b>shard.total</b> and selects its own bin from the same list of scenarios.
+ * Bins are balanced by {@link ScenarioDurations}: items are taken the longest first and put into the
+ * least loaded bin. Ties are broken by scenario key and bin index, so every shard computes the same bins,
+ * if it has the same scenarios and the same durations history. <br>
+ * So all shards read the same <b>scenarios.durations</b> history of the previous run and don't change it:
+ * durations of the shards are combined into the history by {@link ShardReportMerger} after the run. <br>
+ * Selected bin is written into the <b>reports/shard.json</b> report.
+ * Reports of all shards are combined by {@link ShardReportMerger}.
+ */
+public class ScenarioShards {
+
+    private static final String SHARD_REPORT = "reports/shard.json";
+
+    private ScenarioShards() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return TRUE if the run executes only its part of the scenarios
+     */
+    public static boolean isSharded() {
+        return WebEnvParams.getShardTotalParam() > 1;
+    }
+
+    /**
+     * Select items of the current shard
+     *
+     * @param items scenarios or groups of scenarios, selected by the Cucumber options
+     * @param keys  scenario keys of the item, see {@link ScenarioDurations#key(String, int)}
+     * @return items of the current shard in the provided order
+     */
+    public static <T> List<T> select(List<T> items, Function<T, List<String>> keys) {
+        int total = WebEnvParams.getShardTotalParam();
+        int index = WebEnvParams.getShardIndexParam();
+
+        if (index < 0 || index >= total)
+            throw new IllegalArgumentException(String.format("Shard index %d is out of shards total %d", index, total));
+
+        Map<T, Long> predicted = new IdentityHashMap<>();
+        Map<T, String> names = new IdentityHashMap<>();
+        for (T item : items) {
+            List<String> itemKeys = keys.apply(item);
+            predicted.put(item, itemKeys.stream().mapToLong(key -> ScenarioDurations.predict(key).toMillis()).sum());
+            names.put(item, String.join(", ", itemKeys));
+        }
+
+        List<T> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.<T, Long>comparing(predicted::get).reversed().thenComparing(names::get));
+
+        long[] loads = new long[total];
+        Set<T> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<String> selectedNames = new ArrayList<>();
+
+        for (T item : sorted) {
+            int bin = 0;
+            for (int i = 1; i < total; i++)
+                if (loads[i] < loads[bin])
+                    bin = i;
+
+            loads[bin] += predicted.get(item);
+            if (bin == index) {
+                selected.add(item);
+                selectedNames.add(names.get(item));
+            }
+        }
+
+        Log.info(String.format("Shard %d of %d runs %d of %d items, predicted loads of shards: %s ms",
+                index, total, selected.size(), items.size(), Arrays.toString(loads)));
+        writeShardReport(index, total, loads, selectedNames);
+
+        List<T> result = new ArrayList<>(items);
+        result.removeIf(item -> !selected.contains(item));
+        return result;
+    }
+
+    private static void writeShardReport(int index, int total, long[] loads, List<String> selected) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("shard", index);
+        report.put("shards", total);
+        report.put("predictedMs", loads[index]);
+        report.put("predictedShardsMs", loads);
+        report.put("items", selected);
+
+        File file = new File(SHARD_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write shard report: " + cause);
+        }
+    }
+}
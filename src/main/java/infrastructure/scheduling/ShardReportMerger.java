@@ -0,0 +1,130 @@
+package infrastructure.scheduling;
+
+import com.google.gson.*;
+import infrastructure.logger.Log;
+import org.apache.commons.io.FileUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Combines reports of the shards, which were run by {@link ScenarioShards}. <br><br>
+ *
+ * Each shard writes its reports into own directories, e.g. <b>allure-results/shard-0</b> and <b>reports/shard-0</b>:
+ * <ul>
+ *     <li>Allure results are copied into the <b>allure-results</b>, as result files have unique names</li>
+ *     <li>Cucumber JSON reports are combined into <b>reports/Cucumber.json</b>,
+ *     scenarios of the same feature file are put into one feature</li>
+ *     <li>Scenario durations of the shards are saved into the <b>scenarios.durations</b> history,
+ *     which is read by all shards of the next run, see {@link ScenarioDurations}</li>
+ * </ul>
+ * Run as: <i>mvn compile exec:java -Dexec.mainClass=infrastructure.scheduling.ShardReportMerger</i>
+ */
+public class ShardReportMerger {
+
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String CUCUMBER_REPORT = "Cucumber.json";
+
+    private ShardReportMerger() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @param args optional Allure results and reports directories, "allure-results" and "reports" by default
+     */
+    public static void main(String[] args) throws IOException {
+        File allureResults = new File(args.length > 0 ? args[0] : "allure-results");
+        File reports = new File(args.length > 1 ? args[1] : "reports");
+
+        mergeAllureResults(allureResults);
+        mergeCucumberReports(reports);
+        mergeScenarioDurations(reports);
+    }
+
+    public static void mergeAllureResults(File allureResults) throws IOException {
+        int copied = 0;
+
+        for (File shard : listShards(allureResults)) {
+            File[] results = shard.listFiles(File::isFile);
+            if (results == null)
+                continue;
+
+            for (File result : results) {
+                File target = new File(allureResults, result.getName());
+                if (!target.exists()) {
+                    FileUtils.copyFile(result, target);
+                    copied++;
+                }
+            }
+        }
+
+        Log.info(String.format("%d Allure results of shards are copied into %s", copied, allureResults));
+    }
+
+    public static void mergeCucumberReports(File reports) throws IOException {
+        Map<String, JsonObject> features = new LinkedHashMap<>();
+
+        for (File shard : listShards(reports)) {
+            File report = new File(shard, CUCUMBER_REPORT);
+            if (!report.exists())
+                continue;
+
+            try (Reader reader = new InputStreamReader(new FileInputStream(report), StandardCharsets.UTF_8)) {
+                JsonArray shardFeatures = JsonParser.parseReader(reader).getAsJsonArray();
+
+                for (JsonElement element : shardFeatures) {
+                    JsonObject feature = element.getAsJsonObject();
+                    String uri = feature.has("uri") ? feature.get("uri").getAsString() : feature.get("id").getAsString();
+                    JsonObject merged = features.putIfAbsent(uri, feature);
+
+                    if (merged != null && feature.has("elements"))
+                        merged.getAsJsonArray("elements").addAll(feature.getAsJsonArray("elements"));
+                }
+            } catch (JsonParseException | IllegalStateException cause) {
+                Log.error("Couldn't read Cucumber report of the " + shard.getName() + ": " + cause);
+            }
+        }
+
+        JsonArray merged = new JsonArray();
+        features.values().forEach(merged::add);
+
+        File target = new File(reports, CUCUMBER_REPORT);
+        target.getParentFile().mkdirs();
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(target), StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(merged, writer);
+        }
+
+        Log.info(String.format("Cucumber reports of shards are combined into %s, features: %d", target, features.size()));
+    }
+
+    public static void mergeScenarioDurations(File reports) {
+        int shards = 0;
+
+        for (File shard : listShards(reports)) {
+            File report = new File(shard, ScenarioDurations.SHARD_DURATIONS);
+            if (!report.exists())
+                continue;
+
+            try (Reader reader = new InputStreamReader(new FileInputStream(report), StandardCharsets.UTF_8)) {
+                JsonObject durations = JsonParser.parseReader(reader).getAsJsonObject();
+                durations.entrySet().forEach(duration ->
+                        ScenarioDurations.record(duration.getKey(), Duration.ofMillis(duration.getValue().getAsLong())));
+                shards++;
+            } catch (IOException | JsonParseException | IllegalStateException cause) {
+                Log.error("Couldn't read scenario durations of the " + shard.getName() + ": " + cause);
+            }
+        }
+
+        if (shards > 0)
+            ScenarioDurations.saveHistory();
+    }
+
+    private static File[] listShards(File directory) {
+        File[] shards = directory.listFiles(file -> file.isDirectory() && file.getName().startsWith(SHARD_PREFIX));
+        return shards == null ? new File[0] : shards;
+    }
+}
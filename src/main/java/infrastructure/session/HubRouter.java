@@ -0,0 +1,297 @@
+package infrastructure.session;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.NoRouteToHostException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Routes new remote sessions between Selenoid hubs from the <b>hubs</b> list. <br><br>
+ *
+ * If there are several hubs, their <b>/status</b> (total, used, queued and pending sessions) is polled
+ * in background every <b>hubs.poll.seconds</b>. Session is created on the least loaded hub:
+ * <ul>
+ *     <li>load is the share of the hub capacity, which is used, queued or being created by this run</li>
+ *     <li>hubs with unknown status go after the hubs with known one, they are ordered by sessions,
+ *     which are being created on them by this run</li>
+ *     <li>hubs with equal load are ordered by their session creation latency</li>
+ *     <li>hub, which isn't reachable, is skipped until its status is read again</li>
+ * </ul>
+ * Hub is selected and its session creation is counted at once, so parallel sessions are spread between hubs.
+ * If the hub can't be connected, session is created on the next hub. Other errors, e.g. timeouts of the
+ * connected hub, aren't failed over, as the session may be already created there. Sessions, failures and creation latency
+ * of each hub are written into the <b>reports/hubs.json</b> report.
+ */
+public class HubRouter {
+
+    private static final String RUN_REPORT = "reports/hubs.json";
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    private static volatile HubRouter instance;
+
+    private final List<Hub> hubs;
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .readTimeout(Duration.ofSeconds(2))
+            .build();
+
+    /**
+     * Status of the Selenoid hub, as it's returned by /status
+     */
+    private static class HubStatus {
+        private int total;
+        private int used;
+        private int queued;
+        private int pending;
+    }
+
+    private static class Hub {
+        private final URL url;
+        private final String statusUrl;
+        private HubStatus status;
+        private boolean down;
+        private int creating;
+        private double latencyMs;
+        private int sessions;
+        private int failures;
+
+        private Hub(URL url) {
+            this.url = url;
+            this.statusUrl = url.toString().replaceFirst("/wd/hub/?$", "") + "/status";
+        }
+
+        private boolean isStatusKnown() {
+            return status != null && status.total > 0;
+        }
+
+        /**
+         * @return share of the hub capacity, which is taken, or number of sessions being created,
+         *         if the hub capacity is unknown
+         */
+        private double load() {
+            if (!isStatusKnown())
+                return creating;
+
+            return (double) (status.used + status.queued + status.pending + creating) / status.total;
+        }
+    }
+
+    HubRouter(List<String> urls) {
+        this.hubs = urls.stream()
+                .map(url -> {
+                    try {
+                        return new Hub(new URL(url));
+                    } catch (MalformedURLException cause) {
+                        throw new InvestingException("Hub URL is malformed: " + url, cause);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private void startPolling(Duration pollInterval) {
+        if (hubs.size() < 2)
+            return;
+
+        ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hub-status-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollStatuses, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static HubRouter getInstance() {
+        if (instance == null)
+            synchronized (HubRouter.class) {
+                if (instance == null) {
+                    HubRouter router = new HubRouter(WebEnvParams.getHubsParam());
+                    router.startPolling(WebEnvParams.getHubsPollIntervalParam());
+                    instance = router;
+                }
+            }
+
+        return instance;
+    }
+
+    /**
+     * @return TRUE if any session was routed in the run
+     */
+    public static boolean isUsed() {
+        return instance != null;
+    }
+
+    /**
+     * Create remote session on the least loaded hub, fail over to other hubs, if the hub can't be connected
+     *
+     * @param options capabilities for the session
+     * @return new remote WebDriver instance
+     */
+    public WebDriver create(MutableCapabilities options) {
+        InvestingException failure = null;
+        Set<Hub> tried = new HashSet<>();
+
+        for (Hub hub = reserve(tried); hub != null; hub = reserve(tried)) {
+            long started = System.nanoTime();
+            try {
+                WebDriver driver = new RemoteWebDriver(hub.url, options);
+                onCreated(hub, Duration.ofNanos(System.nanoTime() - started));
+                return driver;
+            } catch (Exception cause) {
+                boolean unreachable = isConnectError(cause);
+                onFailed(hub, unreachable);
+
+                failure = new InvestingException("Couldn't init remote driver on the " + hub.url + " hub!", cause);
+                if (!unreachable)
+                    throw failure;
+
+                Log.warn("Hub " + hub.url + " isn't reachable, session is created on the next one: " + cause);
+            }
+        }
+
+        throw failure != null
+                ? failure
+                : new InvestingException("There are no hubs to create remote session");
+    }
+
+    /**
+     * Select the next hub and count the session, which is being created on it
+     *
+     * @param tried hubs, which were already tried for the session, selected hub is added into them
+     * @return hub to create the session, or NULL if all hubs were tried
+     */
+    private synchronized Hub reserve(Set<Hub> tried) {
+        Hub hub = candidates().stream()
+                .filter(candidate -> !tried.contains(candidate))
+                .findFirst()
+                .orElse(null);
+
+        if (hub != null) {
+            tried.add(hub);
+            hub.creating++;
+        }
+
+        return hub;
+    }
+
+    /**
+     * @return reachable hubs ordered by load and latency, hubs with unknown status go after them
+     *         and unreachable ones go last
+     */
+    private List<Hub> candidates() {
+        return hubs.stream()
+                .sorted(Comparator.<Hub, Boolean>comparing(hub -> hub.down)
+                        .thenComparing(hub -> !hub.isStatusKnown())
+                        .thenComparingDouble(Hub::load)
+                        .thenComparingDouble(hub -> hub.latencyMs))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return hub URLs in the order they are selected for the next session
+     */
+    synchronized List<URL> getCandidates() {
+        return candidates().stream().map(hub -> hub.url).collect(Collectors.toList());
+    }
+
+    private synchronized void onCreated(Hub hub, Duration latency) {
+        hub.creating--;
+        hub.down = false;
+        hub.sessions++;
+        hub.latencyMs = hub.sessions == 1
+                ? latency.toMillis()
+                : hub.latencyMs + LATENCY_WEIGHT * (latency.toMillis() - hub.latencyMs);
+    }
+
+    private synchronized void onFailed(Hub hub, boolean unreachable) {
+        hub.creating--;
+        hub.failures++;
+        if (unreachable)
+            hub.down = true;
+    }
+
+    /**
+     * @return TRUE if the hub couldn't be connected, so the session wasn't requested from it
+     */
+    private static boolean isConnectError(Throwable cause) {
+        for (Throwable current = cause; current != null; current = current.getCause())
+            if (current instanceof ConnectException
+                    || current instanceof NoRouteToHostException
+                    || current instanceof UnknownHostException
+                    || current instanceof HttpConnectTimeoutException)
+                return true;
+
+        return false;
+    }
+
+    void pollStatuses() {
+        for (Hub hub : hubs) {
+            HubStatus status = null;
+
+            try (Response response = client.newCall(new Request.Builder().url(hub.statusUrl).build()).execute()) {
+                ResponseBody body = response.body();
+                if (response.isSuccessful() && body != null)
+                    status = new Gson().fromJson(body.string(), HubStatus.class);
+            } catch (Exception cause) {
+                Log.debug("Couldn't read status of the " + hub.url + " hub: " + cause);
+            }
+
+            synchronized (this) {
+                hub.status = status;
+                hub.down = status == null;
+            }
+        }
+    }
+
+    /**
+     * Write sessions, failures and creation latency of each hub into the run report
+     */
+    public synchronized void writeRunSummary() {
+        List<Map<String, Object>> report = hubs.stream()
+                .map(hub -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("hub", hub.url.toString());
+                    row.put("sessions", hub.sessions);
+                    row.put("failures", hub.failures);
+                    row.put("creationLatencyMs", Math.round(hub.latencyMs));
+                    row.put("lastLoad", hub.status == null ? null : Math.round(hub.load() * 100) / 100.0);
+                    return row;
+                })
+                .collect(Collectors.toList());
+
+        Log.info("Sessions by hub: " + report);
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().serializeNulls().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write hubs report: " + cause);
+        }
+    }
+}
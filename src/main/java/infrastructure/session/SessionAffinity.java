@@ -0,0 +1,94 @@
+package infrastructure.session;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Keeps the session of the finished scenario for the next scenario of the same thread. <br><br>
+ *
+ * Used when scenarios are run by groups (<b>scenarios.batching</b>): scenarios of one group need the same
+ * {@link SessionKey} and the same edition, so the session keeps its cookies and consent between them.
+ * Only extra windows are closed, scenario-level state is reset by the Hooks. <br>
+ * Parked session is returned to the {@link SessionPool} or quit by {@link #end()} once the group is finished.
+ */
+public class SessionAffinity {
+
+    private static final ThreadLocal<Parked> parked = new ThreadLocal<>();
+
+    private SessionAffinity() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Session, which waits for the next scenario of the thread
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class Parked {
+        private final SessionKey key;
+        private final WebDriver driver;
+        private final boolean popupGuardOnNewDocument;
+    }
+
+    /**
+     * Keep session of the finished scenario for the next one
+     *
+     * @param popupGuardOnNewDocument TRUE if popup guard is already installed for each new document
+     */
+    public static void park(SessionKey key, WebDriver driver, boolean popupGuardOnNewDocument) {
+        end();
+
+        if (!SessionPool.closeExtraWindows(driver)) {
+            close(driver, popupGuardOnNewDocument);
+            return;
+        }
+
+        parked.set(new Parked(key, driver, popupGuardOnNewDocument));
+    }
+
+    /**
+     * @param key kind of needed session
+     * @return parked session of the current thread, or NULL if there is no session for the key.
+     *         Session for another key is closed, as the thread doesn't need it anymore
+     */
+    public static Parked take(SessionKey key) {
+        Parked session = parked.get();
+        parked.remove();
+
+        if (session == null)
+            return null;
+
+        if (session.key.equals(key)) {
+            Log.info("Reusing session of the previous scenario in the group for " + key);
+            return session;
+        }
+
+        close(session.driver, session.popupGuardOnNewDocument);
+        return null;
+    }
+
+    /**
+     * Close parked session of the current thread, if any
+     */
+    public static void end() {
+        Parked session = parked.get();
+        parked.remove();
+
+        if (session != null)
+            close(session.driver, session.popupGuardOnNewDocument);
+    }
+
+    private static void close(WebDriver driver, boolean popupGuardOnNewDocument) {
+        if (WebEnvParams.getSessionPoolParam())
+            SessionPool.getInstance().release(driver, popupGuardOnNewDocument);
+        else
+            try {
+                driver.quit();
+            } catch (Exception cause) {
+                Log.warn("Couldn't quit browser session: " + cause);
+            }
+    }
+}
@@ -0,0 +1,95 @@
+package infrastructure.session;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.safari.SafariDriver;
+import org.openqa.selenium.safari.SafariOptions;
+
+import static infrastructure.CapabilitiesProvider.getCapability;
+
+/**
+ * Creates new browser sessions. <br>
+ * This is the only place, where WebDriver instances are created,
+ * so the session pool and {@link infrastructure.Investing} share the same creation logic
+ */
+public class SessionFactory {
+
+    private SessionFactory() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Get new session for provided key.
+     * It's taken from {@link SessionPrefetcher} if session prefetching is enabled
+     *
+     * @param key kind of needed session
+     * @return new WebDriver instance with the window already sized
+     */
+    public static WebDriver obtain(SessionKey key) {
+        return WebEnvParams.getSessionPrefetchParam()
+                ? SessionPrefetcher.getInstance().claim(key)
+                : create(key);
+    }
+
+    /**
+     * Create new session with capabilities from {@link infrastructure.CapabilitiesProvider}
+     *
+     * @param key kind of session to create
+     * @return new WebDriver instance with the window already sized
+     */
+    public static WebDriver create(SessionKey key) {
+        return create(key, getCapability(key.getBrowser(), key.getVersion(), key.getRun()));
+    }
+
+    /**
+     * Create new session with provided capabilities
+     *
+     * @param key     kind of session to create
+     * @param options capabilities for the session
+     * @return new WebDriver instance with the window already sized
+     */
+    public static WebDriver create(SessionKey key, MutableCapabilities options) {
+        WebDriver driver;
+
+        if (key.isRemote()) {
+            Log.info("Provided browser options are: " + options.toJson().toString());
+            driver = HubRouter.getInstance().create(options);
+        } else driver = switch (key.getBrowser()) {
+            case "chrome", "chromemobile" -> {
+                WebDriverManager.chromedriver().setup();
+                yield new ChromeDriver((ChromeOptions) options);
+            }
+            case "firefox" -> {
+                WebDriverManager.firefoxdriver().setup();
+                yield new FirefoxDriver((FirefoxOptions) options);
+            }
+            case "safari" -> {
+                WebDriverManager.safaridriver().setup();
+                yield new SafariDriver((SafariOptions) options);
+            }
+            case "edge" -> {
+                WebDriverManager.edgedriver().setup();
+                yield new EdgeDriver((EdgeOptions) options);
+            }
+            default -> throw new InvestingException("Unexpected browser for the local run: " + key.getBrowser());
+        };
+
+        if (key.isMobile())
+            driver.manage().window().setSize(new Dimension(600, 1000));
+        else
+            driver.manage().window().maximize();
+
+        return driver;
+    }
+}
@@ -0,0 +1,183 @@
+package infrastructure.session;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.Investing;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import infrastructure.threadlocals.ThreadLocalScenario;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static infrastructure.allure.AllureAttachments.allureAttachText;
+
+/**
+ * Heartbeat of browser sessions. <br><br>
+ *
+ * Sessions of all {@link Investing} instances are checked in background every <b>session.heartbeat.seconds</b>
+ * by a cheap command on the not decorated driver. Session, which is deleted by the hub (e.g. by Selenoid
+ * "-timeout") or whose browser isn't reachable, is marked unhealthy and respawned by the Hooks before the next step. <br>
+ * Health events are recorded separately from test failures: they are attached to the scenario and written into
+ * the <b>reports/session-health.json</b> report. Scenario, which failed on a dead session, gets one retry,
+ * which isn't counted by {@link infrastructure.listeners.retry.common.CucumberRetryListener}.
+ */
+public class SessionHealth {
+
+    private static final String RUN_REPORT = "reports/session-health.json";
+
+    private static final Set<Investing> watched = ConcurrentHashMap.newKeySet();
+    private static final List<Map<String, Object>> events = Collections.synchronizedList(new ArrayList<>());
+    private static final Set<String> infrastructureFailures = ConcurrentHashMap.newKeySet();
+    private static final Set<String> freeRetriesUsed = ConcurrentHashMap.newKeySet();
+
+    private static volatile boolean started;
+
+    private SessionHealth() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public enum Event {
+        /** heartbeat found the session dead */
+        DEAD_DETECTED,
+        /** dead session was replaced by the new one */
+        RESPAWNED,
+        /** new session couldn't be created */
+        RESPAWN_FAILED,
+        /** scenario failed, while its session was dead */
+        SCENARIO_FAILED_ON_DEAD_SESSION,
+        /** idle pooled session was dead, so it wasn't leased */
+        POOLED_SESSION_DISCARDED
+    }
+
+    /**
+     * Start watching the session of the driver
+     */
+    public static void watch(Investing driver) {
+        watched.add(driver);
+        startHeartbeat();
+    }
+
+    public static void unwatch(Investing driver) {
+        watched.remove(driver);
+    }
+
+    private static synchronized void startHeartbeat() {
+        if (started)
+            return;
+
+        long period = WebEnvParams.getSessionHeartbeatParam().toMillis();
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        }).scheduleWithFixedDelay(SessionHealth::beat, period, period, TimeUnit.MILLISECONDS);
+
+        started = true;
+    }
+
+    private static void beat() {
+        for (Investing driver : watched) {
+            WebDriver delegate = driver.delegate;
+
+            // session could be replaced or disposed while it's checked
+            if (delegate != null && driver.isHealthy() && !isAlive(delegate) && delegate == driver.delegate) {
+                driver.markUnhealthy();
+                record(Event.DEAD_DETECTED, driver.getRemoteSessionId(), "heartbeat failed", false);
+            }
+        }
+    }
+
+    /**
+     * @param driver not decorated driver
+     * @return FALSE if session is deleted or browser isn't reachable
+     */
+    public static boolean isAlive(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (NoSuchSessionException | UnreachableBrowserException dead) {
+            return false;
+        } catch (RuntimeException cause) {
+            // other errors (e.g. unexpected alert) mean that the browser responds
+            for (Throwable current = cause; current != null; current = current.getCause())
+                if (current instanceof ConnectException)
+                    return false;
+
+            return true;
+        }
+    }
+
+    /**
+     * Record health event
+     *
+     * @param attach TRUE if event should be attached to the current scenario, i.e. it's recorded by the scenario thread
+     */
+    public static void record(Event event, String sessionId, String details, boolean attach) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("time", Instant.now().toString());
+        row.put("event", event);
+        row.put("session", sessionId);
+        row.put("details", details);
+        events.add(row);
+
+        Log.warn(String.format("Session health: %s, session: %s, %s", event, sessionId, details));
+
+        if (attach)
+            allureAttachText("Session health", event + ": " + details);
+    }
+
+    /**
+     * Remember that the current scenario failed because of its dead session
+     */
+    public static void onScenarioFailedOnDeadSession(String sessionId) {
+        String scenario = scenarioKey();
+        infrastructureFailures.add(scenario);
+        record(Event.SCENARIO_FAILED_ON_DEAD_SESSION, sessionId, scenario, true);
+    }
+
+    /**
+     * @return TRUE once per scenario, if it failed because of its dead session,
+     *         so its retry shouldn't be counted as a test failure retry
+     */
+    public static boolean takeFreeRetry() {
+        String scenario = scenarioKey();
+        return infrastructureFailures.remove(scenario) && freeRetriesUsed.add(scenario);
+    }
+
+    private static String scenarioKey() {
+        return String.format("%s (line %d)", ThreadLocalScenario.getName(), ThreadLocalScenario.getLine());
+    }
+
+    /**
+     * Write health events of the run into the report
+     */
+    public static void writeRunSummary() {
+        List<Map<String, Object>> snapshot;
+        synchronized (events) {
+            snapshot = new ArrayList<>(events);
+        }
+
+        if (snapshot.isEmpty())
+            return;
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(snapshot, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write session health report: " + cause);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package infrastructure.session;
+
+import infrastructure.Investing;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.threadlocals.ThreadLocalScenario;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Identifies the kind of browser session a scenario needs. <br>
+ * Sessions with equal keys are interchangeable, so they could be reused or prepared in advance.
+ * <ul>
+ *     <li>run: run mode, "local" or "cloud"</li>
+ *     <li>selenoid: TRUE if local run uses local Selenoid hub</li>
+ *     <li>browser: browser name, "chromemobile" for scenarios tagged with <b>@MobileSite</b></li>
+ *     <li>version: browser version, "profile" for scenarios tagged with <b>@Profile</b></li>
+ * </ul>
+ */
+@Value
+public class SessionKey {
+
+    /**
+     * Scenario tags, which define the kind of the session
+     */
+    public static final List<String> SESSION_TAGS = List.of("@MobileSite", "@Profile", Investing.NO_BROWSER_TAG);
+
+    String run;
+    boolean selenoid;
+    String browser;
+    String version;
+
+    /**
+     * @return key of the session, which is required by the current Cucumber Scenario
+     */
+    public static SessionKey forCurrentScenario() {
+        String browser = ThreadLocalScenario.containsTag("@MobileSite")
+                ? "chromemobile"
+                : WebEnvParams.getBrowserParam();
+
+        String version = ThreadLocalScenario.containsTag("@Profile")
+                ? "profile"
+                : WebEnvParams.getTagParam();
+
+        return new SessionKey(WebEnvParams.getRunParam(), WebEnvParams.getSelenoidLocalParam(), browser, version);
+    }
+
+    /**
+     * @return TRUE if session is created on the Selenoid hub
+     */
+    public boolean isRemote() {
+        return run.equals("cloud") || selenoid;
+    }
+
+    public boolean isMobile() {
+        return browser.equals("chromemobile");
+    }
+}
@@ -0,0 +1,457 @@
+package infrastructure.session;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import infrastructure.utilities.DevToolsUtilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * JVM-wide pool of live browser sessions. <br><br>
+ *
+ * Instead of starting a new Selenoid container for each scenario,
+ * {@link infrastructure.Investing} leases a session for the required {@link SessionKey}
+ * and returns it back after the scenario. Returned session is scrubbed before the next lease:
+ * extra windows are closed, cookies of all domains and storages of all origins, which were opened
+ * in the session, are cleared. Popup guard, which is installed for each new document, is kept with the session,
+ * so it isn't installed again on the next lease. <br><br>
+ *
+ * Pool is configured by the following params:
+ * <ul>
+ *     <li><b>session.pool.min</b>: idle sessions per key, which are never evicted</li>
+ *     <li><b>session.pool.max</b>: maximum number of live sessions</li>
+ *     <li><b>session.pool.idle.seconds</b>: idle time after which session is quit</li>
+ *     <li><b>session.pool.max.reuse</b>: number of scenarios per session</li>
+ * </ul>
+ */
+public class SessionPool {
+
+    private static final Duration LEASE_TIMEOUT = Duration.ofMinutes(10);
+    private static final String CLEAR_STORAGES_SCRIPT =
+            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+
+    private static volatile SessionPool instance;
+
+    private final int minIdle;
+    private final int maxTotal;
+    private final Duration idleTimeout;
+    private final int maxReuse;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition sessionReleased = lock.newCondition();
+    private final Map<SessionKey, Deque<PooledSession>> idle = new HashMap<>();
+    private final Map<WebDriver, PooledSession> leased = new IdentityHashMap<>();
+    private int total = 0;
+
+    private SessionPool(int minIdle, int maxTotal, Duration idleTimeout, int maxReuse) {
+        this.minIdle = minIdle;
+        this.maxTotal = maxTotal;
+        this.idleTimeout = idleTimeout;
+        this.maxReuse = maxReuse;
+
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toSeconds() / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "session-pool-shutdown"));
+    }
+
+    public static SessionPool getInstance() {
+        if (instance == null)
+            synchronized (SessionPool.class) {
+                if (instance == null)
+                    instance = new SessionPool(
+                            WebEnvParams.getSessionPoolMinParam(),
+                            WebEnvParams.getSessionPoolMaxParam(),
+                            WebEnvParams.getSessionPoolIdleTimeoutParam(),
+                            WebEnvParams.getSessionPoolMaxReuseParam()
+                    );
+            }
+
+        return instance;
+    }
+
+    /**
+     * Lease idle session for provided key or create new one.
+     * If maximum number of sessions is reached, waits for any session to be released
+     *
+     * @param key kind of needed session
+     * @return live session, which is owned by the caller until {@link #release(WebDriver, boolean)}
+     */
+    public WebDriver lease(SessionKey key) {
+        long deadline = System.nanoTime() + LEASE_TIMEOUT.toNanos();
+
+        while (true) {
+            PooledSession session = null;
+            boolean create = false;
+            PooledSession evicted = null;
+
+            lock.lock();
+            try {
+                Deque<PooledSession> sessions = idle.get(key);
+                if (sessions != null && !sessions.isEmpty()) {
+                    session = sessions.pollFirst();
+                    leased.put(session.driver, session);
+                } else if (total < maxTotal) {
+                    total++;
+                    create = true;
+                } else if ((evicted = pollOldestIdle()) != null) {
+                    // another kind of session is idle, so it is replaced with the needed one
+                    create = true;
+                } else {
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0)
+                        throw new InvestingException("Couldn't lease browser session for " + key + " within " + LEASE_TIMEOUT);
+                    sessionReleased.awaitNanos(left);
+                    continue;
+                }
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                throw new InvestingException("Interrupted while waiting for browser session " + key, cause);
+            } finally {
+                lock.unlock();
+            }
+
+            if (evicted != null)
+                quitQuietly(evicted.driver);
+
+            if (create)
+                return createLeased(key);
+
+            // idle session could be deleted by the hub timeout
+            if (WebEnvParams.getSessionHealthParam() && !SessionHealth.isAlive(session.driver)) {
+                SessionHealth.record(SessionHealth.Event.POOLED_SESSION_DISCARDED, null, "idle session for " + key, false);
+                invalidate(session.driver);
+                quitQuietly(session.driver);
+                continue;
+            }
+
+            session.uses++;
+            Log.info(String.format("Reusing pooled session for %s, use %d of %d", key, session.uses, maxReuse));
+            return session.driver;
+        }
+    }
+
+    /**
+     * Return leased session to the pool. Session is quit instead,
+     * if it was used the maximum number of times or couldn't be scrubbed
+     *
+     * @param popupGuardOnNewDocument TRUE if popup guard is already installed for each new document
+     */
+    public void release(WebDriver driver, boolean popupGuardOnNewDocument) {
+        PooledSession session;
+
+        lock.lock();
+        try {
+            session = leased.remove(driver);
+        } finally {
+            lock.unlock();
+        }
+
+        if (session == null) {
+            quitQuietly(driver);
+            return;
+        }
+
+        if (session.uses >= maxReuse || !scrub(driver, session.origins)) {
+            discard(session);
+            return;
+        }
+
+        lock.lock();
+        try {
+            session.popupGuardOnNewDocument |= popupGuardOnNewDocument;
+            session.origins.clear();
+            session.lastReleased = System.nanoTime();
+            idle.computeIfAbsent(session.key, k -> new ArrayDeque<>()).addFirst(session);
+            sessionReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param reserved number of sessions, which are created outside the pool (e.g. prefetched) and not counted yet
+     * @return TRUE if one more session could be created within <b>session.pool.max</b>
+     */
+    public boolean hasCapacity(int reserved) {
+        lock.lock();
+        try {
+            return total + reserved < maxTotal;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return TRUE if popup guard was installed for each new document by the previous lease of the session
+     */
+    public boolean isPopupGuardOnNewDocument(WebDriver driver) {
+        lock.lock();
+        try {
+            PooledSession session = leased.get(driver);
+            return session != null && session.popupGuardOnNewDocument;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remember origin of the page, which is opened in the leased session, so its storages are cleared on release
+     */
+    public void recordOrigin(WebDriver driver, String url) {
+        String origin = origin(url);
+        if (origin == null)
+            return;
+
+        lock.lock();
+        try {
+            PooledSession session = leased.get(driver);
+            if (session != null)
+                session.origins.add(origin);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return origin of the http(s) URL, or NULL for other pages, e.g. about:blank
+     */
+    private static String origin(String url) {
+        try {
+            URI uri = URI.create(url);
+            if (uri.getHost() == null || !(uri.getScheme().equals("http") || uri.getScheme().equals("https")))
+                return null;
+
+            return uri.getScheme() + "://" + uri.getHost() + (uri.getPort() == -1 ? "" : ":" + uri.getPort());
+        } catch (IllegalArgumentException cause) {
+            return null;
+        }
+    }
+
+    /**
+     * Forget leased session, which was quit by its owner
+     */
+    public void invalidate(WebDriver driver) {
+        lock.lock();
+        try {
+            if (leased.remove(driver) != null) {
+                total--;
+                sessionReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private WebDriver createLeased(SessionKey key) {
+        WebDriver driver;
+        try {
+            driver = SessionFactory.obtain(key);
+        } catch (RuntimeException cause) {
+            lock.lock();
+            try {
+                total--;
+                sessionReleased.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw cause;
+        }
+
+        lock.lock();
+        try {
+            leased.put(driver, new PooledSession(key, driver));
+        } finally {
+            lock.unlock();
+        }
+
+        Log.info("New pooled session is created for " + key);
+        return driver;
+    }
+
+    private void discard(PooledSession session) {
+        lock.lock();
+        try {
+            total--;
+            sessionReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        quitQuietly(session.driver);
+    }
+
+    /**
+     * Should be called under the lock. Removed session is still counted in total
+     */
+    private PooledSession pollOldestIdle() {
+        PooledSession oldest = null;
+
+        for (Deque<PooledSession> sessions : idle.values()) {
+            PooledSession candidate = sessions.peekLast();
+            if (candidate != null && (oldest == null || candidate.lastReleased < oldest.lastReleased))
+                oldest = candidate;
+        }
+
+        if (oldest != null)
+            idle.get(oldest.key).pollLast();
+
+        return oldest;
+    }
+
+    private void evictIdle() {
+        List<PooledSession> expired = new ArrayList<>();
+        long now = System.nanoTime();
+
+        lock.lock();
+        try {
+            for (Deque<PooledSession> sessions : idle.values())
+                while (sessions.size() > minIdle
+                        && now - sessions.peekLast().lastReleased > idleTimeout.toNanos()) {
+                    expired.add(sessions.pollLast());
+                    total--;
+                }
+
+            if (!expired.isEmpty())
+                sessionReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        expired.forEach(session -> {
+            Log.info("Evicting idle pooled session for " + session.key);
+            quitQuietly(session.driver);
+        });
+    }
+
+    private void shutdown() {
+        List<PooledSession> sessions = new ArrayList<>();
+
+        lock.lock();
+        try {
+            idle.values().forEach(sessions::addAll);
+            idle.clear();
+            sessions.addAll(leased.values());
+            leased.clear();
+            total = 0;
+        } finally {
+            lock.unlock();
+        }
+
+        sessions.forEach(session -> quitQuietly(session.driver));
+    }
+
+    /**
+     * Bring session to the state of a new one: close extra windows, clear cookies of all domains
+     * and storages of all opened origins, and open blank page. <br>
+     * Cookies and storages are cleared by CDP <b>Network.clearBrowserCookies</b> and <b>Storage.clearDataForOrigin</b>.
+     * If CDP isn't supported, each origin is opened to clear its cookies and storages by WebDriver
+     *
+     * @param origins origins of the pages, which were opened in the session
+     * @return FALSE if session couldn't be scrubbed and shouldn't be reused
+     */
+    static boolean scrub(WebDriver driver, Set<String> origins) {
+        if (!closeExtraWindows(driver))
+            return false;
+
+        try {
+            Set<String> opened = new LinkedHashSet<>(origins);
+            String current = origin(driver.getCurrentUrl());
+            if (current != null)
+                opened.add(current);
+
+            // session storage isn't cleared by CDP, it's kept by the window for the current origin
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGES_SCRIPT);
+
+            if (!clearByCdp(driver, opened))
+                for (String origin : opened) {
+                    driver.get(origin + "/robots.txt");
+                    ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGES_SCRIPT);
+                    driver.manage().deleteAllCookies();
+                }
+
+            driver.get("about:blank");
+
+            return true;
+        } catch (Exception cause) {
+            Log.warn("Couldn't scrub pooled session, it will be quit: " + cause);
+            return false;
+        }
+    }
+
+    /**
+     * @return FALSE if CDP isn't supported or any command failed
+     */
+    private static boolean clearByCdp(WebDriver driver, Set<String> origins) {
+        if (!DevToolsUtilities.isCdpSupported(driver)
+                || DevToolsUtilities.executeCdpCommand(driver, "Network.clearBrowserCookies", Map.of()).isEmpty())
+            return false;
+
+        return origins.stream().allMatch(origin -> DevToolsUtilities
+                .executeCdpCommand(driver, "Storage.clearDataForOrigin", Map.of("origin", origin, "storageTypes", "all"))
+                .isPresent());
+    }
+
+    /**
+     * Close all windows except the first one and switch to it
+     *
+     * @return FALSE if windows couldn't be closed and session shouldn't be reused
+     */
+    static boolean closeExtraWindows(WebDriver driver) {
+        try {
+            Set<String> handles = driver.getWindowHandles();
+            if (handles.size() > 1) {
+                Iterator<String> iterator = handles.iterator();
+                String main = iterator.next();
+                while (iterator.hasNext()) {
+                    driver.switchTo().window(iterator.next());
+                    driver.close();
+                }
+                driver.switchTo().window(main);
+            }
+
+            return true;
+        } catch (Exception cause) {
+            Log.warn("Couldn't close extra windows of the session, it will be quit: " + cause);
+            return false;
+        }
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception cause) {
+            Log.warn("Couldn't quit browser session: " + cause);
+        }
+    }
+
+    private static class PooledSession {
+        private final SessionKey key;
+        private final WebDriver driver;
+        private int uses = 1;
+        private long lastReleased = System.nanoTime();
+        private boolean popupGuardOnNewDocument;
+        private final Set<String> origins = ConcurrentHashMap.newKeySet();
+
+        private PooledSession(SessionKey key, WebDriver driver) {
+            this.key = key;
+            this.driver = driver;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package infrastructure.session;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static infrastructure.CapabilitiesProvider.getCapability;
+
+/**
+ * Creates browser sessions in background, so the next scenario gets already started browser. <br><br>
+ *
+ * Each {@link #claim(SessionKey)} takes the oldest prefetched session for the key
+ * and starts creation of a new one, so up to <b>session.prefetch.depth</b> sessions
+ * are always prepared or in progress for each used key. <br><br>
+ *
+ * Capabilities are built on the claiming scenario thread with {@link infrastructure.CapabilitiesProvider},
+ * because they depend on the current Cucumber Scenario. Selenoid name of a prefetched session is replaced,
+ * as it isn't known yet which scenario will claim it. <br>
+ * Prefetched session, which isn't claimed within <b>session.prefetch.ttl.seconds</b>, is closed. <br>
+ * If the session pool is used, prefetched sessions are counted against <b>session.pool.max</b>.
+ */
+public class SessionPrefetcher {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String PREFETCHED_SESSION_NAME = "Prefetched session";
+
+    private static volatile SessionPrefetcher instance;
+
+    private final int depth;
+    private final Duration ttl;
+    private final ExecutorService creator;
+    private final Map<SessionKey, Deque<Prefetched>> prefetched = new HashMap<>();
+
+    private SessionPrefetcher(int depth, Duration ttl) {
+        this.depth = depth;
+        this.ttl = ttl;
+
+        this.creator = Executors.newFixedThreadPool(Math.max(1, depth), daemon("session-prefetch"));
+
+        ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(daemon("session-prefetch-reaper"));
+        long period = Math.max(1, ttl.toSeconds() / 2);
+        reaper.scheduleAtFixedRate(this::closeExpired, period, period, TimeUnit.SECONDS);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "session-prefetch-shutdown"));
+    }
+
+    public static SessionPrefetcher getInstance() {
+        if (instance == null)
+            synchronized (SessionPrefetcher.class) {
+                if (instance == null)
+                    instance = new SessionPrefetcher(
+                            WebEnvParams.getSessionPrefetchDepthParam(),
+                            WebEnvParams.getSessionPrefetchTtlParam()
+                    );
+            }
+
+        return instance;
+    }
+
+    /**
+     * Take prefetched session for provided key and schedule preparation of the next one.
+     * If nothing was prefetched yet, or prefetching failed, session is created synchronously
+     *
+     * @param key kind of needed session
+     * @return live session, which is owned by the caller
+     */
+    public WebDriver claim(SessionKey key) {
+        MutableCapabilities options = getCapability(key.getBrowser(), key.getVersion(), key.getRun());
+
+        Prefetched candidate;
+        synchronized (prefetched) {
+            candidate = prefetched.computeIfAbsent(key, k -> new ArrayDeque<>()).pollFirst();
+
+            // another kind of prefetched session gives its place to the session, which is created now
+            if (candidate == null && !hasCapacity())
+                closeOldest();
+
+            scheduleUpTo(key);
+        }
+
+        if (candidate != null)
+            try {
+                WebDriver driver = candidate.session.get();
+                Log.info("Prefetched session is claimed for " + key);
+                return driver;
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException cause) {
+                Log.warn("Prefetched session for " + key + " wasn't created, creating new one: " + cause);
+            }
+
+        return SessionFactory.create(key, options);
+    }
+
+    /**
+     * Should be called under the lock of prefetched sessions map
+     */
+    private void scheduleUpTo(SessionKey key) {
+        Deque<Prefetched> sessions = prefetched.get(key);
+
+        while (sessions.size() < depth && hasCapacity())
+            sessions.addLast(Prefetched.start(key, prefetchOptions(key), creator));
+    }
+
+    /**
+     * Should be called under the lock of prefetched sessions map
+     *
+     * @return TRUE if one more session could be prefetched within the session pool limit
+     */
+    private boolean hasCapacity() {
+        if (!WebEnvParams.getSessionPoolParam())
+            return true;
+
+        int count = prefetched.values().stream().mapToInt(Deque::size).sum();
+        return SessionPool.getInstance().hasCapacity(count);
+    }
+
+    /**
+     * Should be called under the lock of prefetched sessions map
+     */
+    private void closeOldest() {
+        prefetched.values().stream()
+                .filter(sessions -> !sessions.isEmpty())
+                .min(Comparator.comparingLong(sessions -> sessions.peekFirst().createdAt))
+                .map(Deque::pollFirst)
+                .ifPresent(SessionPrefetcher::close);
+    }
+
+    /**
+     * @return capabilities of the scenario, which claims the session, with the common Selenoid name
+     */
+    @SuppressWarnings("unchecked")
+    private static MutableCapabilities prefetchOptions(SessionKey key) {
+        MutableCapabilities options = getCapability(key.getBrowser(), key.getVersion(), key.getRun());
+
+        Object selenoidOptions = options.getCapability("selenoid:options");
+        if (selenoidOptions instanceof Map) {
+            Map<String, Object> renamed = new HashMap<>((Map<String, Object>) selenoidOptions);
+            renamed.put("name", PREFETCHED_SESSION_NAME);
+            options.setCapability("selenoid:options", renamed);
+        }
+
+        return options;
+    }
+
+    private void closeExpired() {
+        List<Prefetched> expired = new ArrayList<>();
+        long now = System.nanoTime();
+
+        synchronized (prefetched) {
+            for (Deque<Prefetched> sessions : prefetched.values())
+                sessions.removeIf(session -> {
+                    boolean isExpired = now - session.createdAt > ttl.toNanos();
+                    if (isExpired)
+                        expired.add(session);
+                    return isExpired;
+                });
+        }
+
+        expired.forEach(session -> {
+            Log.info("Closing unclaimed prefetched session");
+            close(session);
+        });
+    }
+
+    private void shutdown() {
+        List<Prefetched> sessions = new ArrayList<>();
+
+        synchronized (prefetched) {
+            prefetched.values().forEach(sessions::addAll);
+            prefetched.clear();
+        }
+
+        sessions.forEach(SessionPrefetcher::close);
+        creator.shutdown();
+
+        // sessions, which are still created, are quit by their creation tasks
+        try {
+            if (!creator.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS))
+                Log.warn("Prefetched sessions weren't created within " + SHUTDOWN_TIMEOUT + ", they could be left on the hub");
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Quit session if it was created, or make it be quit right after creation
+     */
+    private static void close(Prefetched prefetched) {
+        WebDriver driver = prefetched.close();
+        prefetched.session.cancel(true);
+
+        if (driver != null)
+            quitQuietly(driver);
+    }
+
+    private static void quitQuietly(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (Exception cause) {
+            Log.warn("Couldn't close prefetched session: " + cause);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Prefetched {
+        private CompletableFuture<WebDriver> session;
+        private final long createdAt = System.nanoTime();
+
+        private WebDriver driver;
+        private boolean closed;
+
+        private static Prefetched start(SessionKey key, MutableCapabilities options, ExecutorService creator) {
+            Prefetched prefetched = new Prefetched();
+            prefetched.session = CompletableFuture.supplyAsync(() -> prefetched.create(key, options), creator);
+            return prefetched;
+        }
+
+        private WebDriver create(SessionKey key, MutableCapabilities options) {
+            WebDriver created = SessionFactory.create(key, options);
+
+            if (!offer(created)) {
+                quitQuietly(created);
+                throw new CancellationException("Prefetched session was closed while it was created");
+            }
+
+            return created;
+        }
+
+        /**
+         * @return FALSE if session was closed while it was created, so it should be quit
+         */
+        private synchronized boolean offer(WebDriver created) {
+            if (closed)
+                return false;
+
+            driver = created;
+            return true;
+        }
+
+        /**
+         * @return created session, or NULL if it isn't created yet and will be quit by its creation task
+         */
+        private synchronized WebDriver close() {
+            closed = true;
+            return driver;
+        }
+    }
+}
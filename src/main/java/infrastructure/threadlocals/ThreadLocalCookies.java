@@ -21,11 +21,11 @@ public class ThreadLocalCookies {
      * Set flag for InvestingPro Promo popup displaying cookie as TRUE.
      * Means that cookie had been already modified with the needed value
      */
-    public static synchronized void putInvProPromoteVariantCookieModifiedFlag() {
+    public static void putInvProPromoteVariantCookieModifiedFlag() {
         invProPromoteVariantCookie.put(true);
     }
 
-    public static synchronized boolean getInvProPromoteVariantCookieModifiedFlag() {
+    public static boolean getInvProPromoteVariantCookieModifiedFlag() {
         return invProPromoteVariantCookie.get();
     }
 
@@ -40,11 +40,11 @@ public class ThreadLocalCookies {
      * Set flag for Pro Sale Promo popup displaying cookies as TRUE.
      * Means that cookies had been already modified with the needed value
      */
-    public static synchronized void putEventPopupCookiesModifiedFlag() {
+    public static void putEventPopupCookiesModifiedFlag() {
         eventPopupCookies.put(true);
     }
 
-    public static synchronized boolean getEventPopupCookiesModifiedFlag() {
+    public static boolean getEventPopupCookiesModifiedFlag() {
         return eventPopupCookies.get();
     }
 
@@ -59,11 +59,11 @@ public class ThreadLocalCookies {
      * Set flag for ProPicks Promo popup displaying cookies as TRUE.
      * Means that cookies had been already modified with the needed value
      */
-    public static synchronized void putProPicksPopupCookiesModifiedFlag() {
+    public static void putProPicksPopupCookiesModifiedFlag() {
         proPicksPopupCookies.put(true);
     }
 
-    public static synchronized boolean getProPicksPopupCookiesModifiedFlag() {
+    public static boolean getProPicksPopupCookiesModifiedFlag() {
         return proPicksPopupCookies.get();
     }
 
@@ -78,11 +78,11 @@ public class ThreadLocalCookies {
      * Set flag for promo_banner_auto cookie adding as TRUE.
      * Means that cookie had been already added
      */
-    public static synchronized void putPromoBannerAutoCookieAddedFlag() {
+    public static void putPromoBannerAutoCookieAddedFlag() {
         promoBannerAutoCookieAddedFlag.put(true);
     }
 
-    public static synchronized boolean getPromoBannerAutoCookieAddedFlag() {
+    public static boolean getPromoBannerAutoCookieAddedFlag() {
         return promoBannerAutoCookieAddedFlag.get();
     }
 
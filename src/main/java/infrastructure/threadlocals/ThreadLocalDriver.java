@@ -8,11 +8,11 @@ import java.time.Duration;
 public class ThreadLocalDriver {
     private static final ThreadLocalAbstract<Investing> driver = new ThreadLocalAbstract<>("Driver instance") {};
 
-    public static synchronized void put(Investing driver) {
+    public static void put(Investing driver) {
         ThreadLocalDriver.driver.put(driver);
     }
 
-    public static synchronized Investing get() {
+    public static Investing get() {
         return driver.get();
     }
 
@@ -20,11 +20,11 @@ public class ThreadLocalPopups {
      * Set flag for Privacy or CCPA popup as TRUE.
      * Means that Privacy or CCPA popup have been already closed
      */
-    public static synchronized void putPrivacyCcpaPopupClosedFlag() {
+    public static void putPrivacyCcpaPopupClosedFlag() {
         privacyCcpaPopup.put(true);
     }
 
-    public static synchronized boolean getPrivacyCcpaPopupShownFlag() {
+    public static boolean getPrivacyCcpaPopupShownFlag() {
         return privacyCcpaPopup.get();
     }
 
@@ -39,11 +39,11 @@ public class ThreadLocalPopups {
      * Set flag for ProPicks Promo popup as TRUE.
      * Means that ProPicks Promo popup had been already shown
      */
-    public static synchronized void putProPicksPromoPopupShownFlag() {
+    public static void putProPicksPromoPopupShownFlag() {
         proPicksPromoPopup.put(true);
     }
 
-    public static synchronized boolean getProPicksPromoPopupShownFlag() {
+    public static boolean getProPicksPromoPopupShownFlag() {
         return proPicksPromoPopup.get();
     }
 
@@ -0,0 +1,132 @@
+package infrastructure.throttling;
+
+import com.google.gson.GsonBuilder;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
+import infrastructure.utilities.Utilities;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Limits navigation rate per host for all threads of the JVM. <br><br>
+ *
+ * Each edition host, e.g. "uk.investing.com", has its own {@link TokenBucket} with
+ * <b>navigation.rate</b> requests per second and <b>navigation.burst</b> requests at once.
+ * {@link infrastructure.Investing#get(String)} waits for a token, so high thread counts don't hit the CDN
+ * at the same moment. <br>
+ * Responses are checked for throttling: 429 and 503 statuses or challenge pages.
+ * Throttled host gets lower rate and a pause, rate recovers after successful responses. <br>
+ * Waiting time is counted as {@link Phase#THROTTLE} and written into the <b>reports/navigation-rate.json</b> report.
+ */
+public class HostRateLimiter {
+
+    private static final String RUN_REPORT = "reports/navigation-rate.json";
+    private static final Set<Integer> THROTTLING_STATUSES = Set.of(429, 503);
+    private static final List<String> CHALLENGE_TITLES = List.of(
+            "just a moment", "attention required", "access denied", "captcha", "are you a robot", "pardon our interruption");
+
+    private static final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private HostRateLimiter() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Wait until navigation to the url is allowed by the rate of its host
+     */
+    public static void acquire(String url) {
+        String host = host(url);
+        long wait = bucket(host).reserve();
+
+        if (wait <= 0)
+            return;
+
+        Log.info(String.format("Navigation to %s is delayed by %d ms", host, Duration.ofNanos(wait).toMillis()));
+        TimeBudget.measure(Phase.THROTTLE, () -> Utilities.sleepQuietly(Duration.ofNanos(wait)));
+    }
+
+    /**
+     * Check the navigation response for throttling and adjust the rate of the host
+     *
+     * @param url    opened url
+     * @param status response status, 0 if unknown
+     * @param title  title of the opened page
+     * @return TRUE if host throttled the request
+     */
+    public static boolean onResponse(String url, int status, String title) {
+        String host = host(url);
+        boolean throttled = isThrottled(status, title);
+
+        if (throttled) {
+            bucket(host).onThrottled();
+            Log.warn(String.format("Host %s throttled navigation (status: %d, title: \"%s\"), its rate is lowered to %.2f per second",
+                    host, status, title, bucket(host).getRate()));
+        } else
+            bucket(host).onSuccess();
+
+        return throttled;
+    }
+
+    static boolean isThrottled(int status, String title) {
+        if (THROTTLING_STATUSES.contains(status))
+            return true;
+
+        String lowerCased = title == null ? "" : title.toLowerCase(Locale.ROOT);
+        return CHALLENGE_TITLES.stream().anyMatch(lowerCased::contains);
+    }
+
+    private static TokenBucket bucket(String host) {
+        return buckets.computeIfAbsent(host, ignored -> new TokenBucket(
+                WebEnvParams.getNavigationRateParam(),
+                WebEnvParams.getNavigationBurstParam()));
+    }
+
+    private static String host(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? url : host;
+        } catch (IllegalArgumentException cause) {
+            return url;
+        }
+    }
+
+    /**
+     * Write waiting and throttling metrics per host into the run report
+     */
+    public static void writeRunSummary() {
+        if (buckets.isEmpty())
+            return;
+
+        Map<String, Object> report = new TreeMap<>();
+        buckets.forEach((host, bucket) -> {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("requests", bucket.getRequests());
+            metrics.put("delayed", bucket.getDelayed());
+            metrics.put("waitedMs", Duration.ofNanos(bucket.getWaitedNanos()).toMillis());
+            metrics.put("maxWaitMs", Duration.ofNanos(bucket.getMaxWaitNanos()).toMillis());
+            metrics.put("throttled", bucket.getThrottled());
+            metrics.put("finalRate", Math.round(bucket.getRate() * 100) / 100.0);
+            report.put(host, metrics);
+        });
+
+        Log.info("Navigation rate by host: " + report);
+
+        File file = new File(RUN_REPORT);
+        file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        } catch (IOException cause) {
+            Log.error("Couldn't write navigation rate report: " + cause);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package infrastructure.throttling;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket of the single host. <br>
+ * Tokens are reserved in advance, so the bucket could go below zero: each request waits for its own token
+ * and parallel threads are served in the order of their requests.
+ * Rate is lowered when the host throttles requests and recovers step by step after successful responses. <br>
+ * Refill is started from the end of the throttling pause, so requests, which are queued during the pause,
+ * are spread by the lowered rate after it instead of being released at once.
+ */
+class TokenBucket {
+
+    private static final double BACKOFF = 0.5;
+    private static final double RECOVERY_SHARE = 0.1;
+    private static final double MIN_RATE_SHARE = 0.05;
+    private static final long PAUSE_NANOS = 5_000_000_000L;
+    private static final long MAX_PAUSE_NANOS = 60_000_000_000L;
+
+    private final double baseRate;
+    private final double burst;
+    private final LongSupplier clock;
+
+    private double rate;
+    private double tokens;
+
+    /**
+     * Time, tokens are refilled from. It's in the future during the throttling pause
+     */
+    private long refilled;
+    private int throttledInRow;
+
+    // metrics
+    private long requests;
+    private long delayed;
+    private long waitedNanos;
+    private long maxWaitNanos;
+    private long throttled;
+
+    /**
+     * @param rate  allowed requests per second
+     * @param burst requests, which could be done at once after idle time
+     */
+    TokenBucket(double rate, int burst) {
+        this(rate, burst, System::nanoTime);
+    }
+
+    /**
+     * @param clock source of nanoseconds time
+     */
+    TokenBucket(double rate, int burst, LongSupplier clock) {
+        this.baseRate = rate;
+        this.rate = rate;
+        this.burst = Math.max(burst, 1);
+        this.tokens = this.burst;
+        this.clock = clock;
+        this.refilled = clock.getAsLong();
+    }
+
+    /**
+     * Take a token
+     *
+     * @return nanoseconds to wait before the request
+     */
+    synchronized long reserve() {
+        long now = clock.getAsLong();
+        refill(now);
+        tokens--;
+
+        // debt of tokens is counted from the end of the pause, if the bucket is paused
+        long wait = (refilled - now) + (tokens >= 0 ? 0 : (long) (-tokens / rate * 1e9));
+
+        requests++;
+        if (wait > 0) {
+            delayed++;
+            waitedNanos += wait;
+            maxWaitNanos = Math.max(maxWaitNanos, wait);
+        }
+
+        return wait;
+    }
+
+    /**
+     * Add tokens for the time since the last refill. Tokens aren't added until the pause ends
+     */
+    private void refill(long now) {
+        if (now <= refilled)
+            return;
+
+        tokens = Math.min(burst, tokens + (now - refilled) / 1e9 * rate);
+        refilled = now;
+    }
+
+    /**
+     * Host throttled the request: halve the rate, drop saved tokens and pause requests for a while
+     */
+    synchronized void onThrottled() {
+        long now = clock.getAsLong();
+        refill(now);
+
+        throttled++;
+        throttledInRow++;
+        rate = Math.max(baseRate * MIN_RATE_SHARE, rate * BACKOFF);
+        tokens = Math.min(tokens, 0);
+
+        long pause = Math.min(MAX_PAUSE_NANOS, PAUSE_NANOS * throttledInRow);
+        refilled = Math.max(refilled, now + pause);
+    }
+
+    /**
+     * Host responded normally: rate recovers to the configured one by steps
+     */
+    synchronized void onSuccess() {
+        throttledInRow = 0;
+        rate = Math.min(baseRate, rate + baseRate * RECOVERY_SHARE);
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    synchronized long getRequests() {
+        return requests;
+    }
+
+    synchronized long getDelayed() {
+        return delayed;
+    }
+
+    synchronized long getWaitedNanos() {
+        return waitedNanos;
+    }
+
+    synchronized long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    synchronized long getThrottled() {
+        return throttled;
+    }
+}
@@ -0,0 +1,174 @@
+package infrastructure.timeouts;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import infrastructure.session.SessionKey;
+import infrastructure.threadlocals.ThreadLocalEdition;
+import org.apache.commons.lang3.EnumUtils;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Timeouts derived from the real latencies of the environment. <br><br>
+ *
+ * Latencies are kept per profile: environment, run mode, browser and edition,
+ * e.g. "canary/cloud/chrome/www". <br>
+ * <ul>
+ *     <li>
+ *         <b>timeouts.calibrate</b>: latencies of successful navigations, popups and waits are recorded
+ *         and saved into the <b>timeouts.profile</b> file at the run end
+ *     </li>
+ *     <li>
+ *         <b>timeouts.calibrated</b>: timeout is the <b>timeouts.percentile</b> of the profile latencies
+ *         multiplied by <b>timeouts.margin</b>. It's limited by twice the default timeout,
+ *         and by the default timeout from below for kinds, which aren't {@link TimeoutKind#isShortenable()}
+ *     </li>
+ * </ul>
+ * Default timeout of {@link TimeoutKind} is used, if the profile has less than {@value #MIN_SAMPLES} samples.
+ */
+public class TimeoutCalibration {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final int SAMPLES_LIMIT = 500;
+    private static final Duration MIN_TIMEOUT = Duration.ofMillis(500);
+
+    /**
+     * Samples in milliseconds by profile and kind
+     */
+    private static final Map<String, Map<TimeoutKind, List<Long>>> profile = load();
+    private static final Map<String, Map<TimeoutKind, List<Long>>> recorded = new ConcurrentHashMap<>();
+    private static final Map<String, Duration> calibrated = new ConcurrentHashMap<>();
+
+    private TimeoutCalibration() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * @return calibrated timeout for the current environment, or default one
+     */
+    public static Duration timeout(TimeoutKind kind) {
+        if (!WebEnvParams.getTimeoutsCalibratedParam())
+            return kind.getDefaultTimeout();
+
+        String profileKey = currentProfile();
+        return calibrated.computeIfAbsent(profileKey + "/" + kind, ignored -> calibrate(profileKey, kind));
+    }
+
+    /**
+     * Record real latency in calibration mode
+     */
+    public static void record(TimeoutKind kind, Duration latency) {
+        if (!WebEnvParams.getTimeoutsCalibrateParam())
+            return;
+
+        List<Long> samples = recorded
+                .computeIfAbsent(currentProfile(), ignored -> new ConcurrentHashMap<>())
+                .computeIfAbsent(kind, ignored -> Collections.synchronizedList(new ArrayList<>()));
+
+        samples.add(latency.toMillis());
+    }
+
+    /**
+     * Merge recorded latencies into the profile file. Only the latest samples are kept
+     */
+    public static void save() {
+        Map<String, Map<TimeoutKind, List<Long>>> merged = new TreeMap<>();
+        profile.forEach((key, kinds) -> kinds.forEach((kind, samples) ->
+                merged.computeIfAbsent(key, ignored -> new EnumMap<>(TimeoutKind.class)).put(kind, new ArrayList<>(samples))));
+
+        recorded.forEach((key, kinds) -> kinds.forEach((kind, samples) -> {
+            List<Long> all = merged.computeIfAbsent(key, ignored -> new EnumMap<>(TimeoutKind.class))
+                    .computeIfAbsent(kind, ignored -> new ArrayList<>());
+            synchronized (samples) {
+                all.addAll(samples);
+            }
+            if (all.size() > SAMPLES_LIMIT)
+                all.subList(0, all.size() - SAMPLES_LIMIT).clear();
+        }));
+
+        File file = new File(WebEnvParams.getTimeoutsProfileParam());
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(merged, writer);
+            Log.info("Timeouts calibration profile is saved into " + file);
+        } catch (IOException cause) {
+            Log.error("Couldn't save timeouts calibration profile: " + cause);
+        }
+    }
+
+    private static Duration calibrate(String profileKey, TimeoutKind kind) {
+        List<Long> samples = profile.getOrDefault(profileKey, Map.of()).getOrDefault(kind, List.of());
+
+        if (samples.size() < MIN_SAMPLES) {
+            Log.info(String.format("Not enough samples to calibrate %s timeout for %s, default is used", kind, profileKey));
+            return kind.getDefaultTimeout();
+        }
+
+        Duration timeout = calibrate(kind, samples);
+        Log.info(String.format("%s timeout for %s is calibrated to %d ms (default %d ms)",
+                kind, profileKey, timeout.toMillis(), kind.getDefaultTimeout().toMillis()));
+        return timeout;
+    }
+
+    /**
+     * @return percentile of the samples with margin, limited for the kind
+     */
+    static Duration calibrate(TimeoutKind kind, List<Long> samples) {
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        int index = (int) Math.ceil(WebEnvParams.getTimeoutsPercentileParam() / 100.0 * sorted.length) - 1;
+        long millis = (long) (sorted[Math.max(0, Math.min(index, sorted.length - 1))] * WebEnvParams.getTimeoutsMarginParam());
+
+        Duration timeout = Duration.ofMillis(millis);
+        Duration min = kind.isShortenable() ? MIN_TIMEOUT : kind.getDefaultTimeout();
+        if (timeout.compareTo(min) < 0)
+            timeout = min;
+        if (timeout.compareTo(kind.getDefaultTimeout().multipliedBy(2)) > 0)
+            timeout = kind.getDefaultTimeout().multipliedBy(2);
+
+        return timeout;
+    }
+
+    private static String currentProfile() {
+        SessionKey session = SessionKey.forCurrentScenario();
+
+        return String.join("/",
+                WebEnvParams.isOnCanary() ? "canary" : "production",
+                session.isRemote() && !session.getRun().equals("cloud") ? "selenoid" : session.getRun(),
+                session.getBrowser(),
+                ThreadLocalEdition.get().toStringLowerCased());
+    }
+
+    private static Map<String, Map<TimeoutKind, List<Long>>> load() {
+        File file = new File(WebEnvParams.getTimeoutsProfileParam());
+
+        if (!file.exists())
+            return Map.of();
+
+        try (Reader reader = new FileReader(file)) {
+            Map<String, Map<String, List<Long>>> stored = new Gson().fromJson(reader,
+                    new TypeToken<Map<String, Map<String, List<Long>>>>() {}.getType());
+
+            Map<String, Map<TimeoutKind, List<Long>>> loaded = new HashMap<>();
+            if (stored != null)
+                stored.forEach((key, kinds) -> kinds.forEach((kind, samples) -> {
+                    // kinds, which aren't known anymore, are skipped
+                    if (EnumUtils.isValidEnum(TimeoutKind.class, kind))
+                        loaded.computeIfAbsent(key, ignored -> new EnumMap<>(TimeoutKind.class))
+                                .put(TimeoutKind.valueOf(kind), samples);
+                }));
+
+            return loaded;
+        } catch (Exception cause) {
+            Log.warn("Couldn't load timeouts calibration profile, default timeouts are used: " + cause);
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package infrastructure.timeouts;
+
+import infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Timeouts, which could be calibrated by {@link TimeoutCalibration}.
+ * Default timeout is used, until the calibration profile has enough samples. <br>
+ * Timeout of a positive wait, which fails the step on expiration, isn't shortened below the default one:
+ * its samples are shared by all waits of the kind, so fast waits would cut the timeout of slow ones
+ */
+@AllArgsConstructor
+@Getter
+public enum TimeoutKind {
+
+    /** page readiness after navigation */
+    NAVIGATION(TimeoutDuration.GO_TO_URL_DURATION, true),
+    /** appearance of the Privacy / CCPA popup */
+    POPUP(TimeoutDuration.POPUP_WAITING_DURATION, true),
+    /** element visibility */
+    ELEMENT(TimeoutDuration.ELEMENT_WAITING_DURATION_FULL, false);
+
+    private final Duration defaultTimeout;
+    private final boolean shortenable;
+}
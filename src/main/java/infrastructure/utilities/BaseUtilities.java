@@ -3,6 +3,10 @@ package infrastructure.utilities;
 import infrastructure.exceptions.InvestingException;
 import infrastructure.logger.Log;
 import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
+import infrastructure.waits.ElementState;
+import infrastructure.waits.WaitEngine;
 import org.apache.commons.lang.IllegalClassException;
 import org.openqa.selenium.*;
 
@@ -10,10 +14,8 @@ import java.time.Duration;
 
 import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.LONG_CLICK_DURATION;
 import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.MINIMAL_WAITING_DURATION;
-import static infrastructure.utilities.WaitUtilities.waitForVisibility;
 import static infrastructure.utilities.WaitUtilities.waitUntil;
 import static io.qameta.allure.Allure.step;
-import static org.openqa.selenium.support.ui.ExpectedConditions.elementToBeClickable;
 import static org.openqa.selenium.support.ui.ExpectedConditions.presenceOfElementLocated;
 
 public class BaseUtilities {
@@ -58,10 +60,12 @@ public class BaseUtilities {
      */
     public static <T> void clickOnVisibleElement(T elementAttr) {
         try {
-            waitUntil(
-                    LONG_CLICK_DURATION,
-                    elementToBeClickable(waitForVisibility(elementAttr))
-            ).click();
+            // visibility and clickability are checked on each poll under single deadline
+            WaitEngine.waitFor(
+                    elementAttr,
+                    TimeoutCalibration.timeout(TimeoutKind.ELEMENT).plus(LONG_CLICK_DURATION),
+                    ElementState.CLICKABLE
+            ).getElement().click();
         } catch (Exception cause) {
             throw new InvestingException("Couldn't click on " + elementAttr + " element!", cause);
         }
@@ -4,15 +4,20 @@ import infrastructure.enums.BySelectorType;
 import infrastructure.exceptions.InvestingException;
 import org.apache.commons.lang3.RegExUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.openqa.selenium.By;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.pagefactory.ByAll;
 import org.openqa.selenium.support.pagefactory.ByChained;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
+import org.openqa.selenium.support.pagefactory.internal.LocatingElementHandler;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -67,6 +72,44 @@ public class ByLocatorUtilities {
         return new ByChained(locators);
     }
 
+    /**
+     * This method converts locator to the W3C locator strategy and value,
+     * which could be passed as argument into the framework's JS scripts (see <b>scripts/locate.js</b>)
+     *
+     * @param locator simple locator from {@link By}
+     * @return map with "using" and "value" keys
+     */
+    public static Map<String, Object> getScriptLocator(By locator) {
+        if (!(locator instanceof By.Remotable))
+            throw new IllegalArgumentException("Couldn't convert locator for the script, it's not remotable: " + locator);
+
+        By.Remotable.Parameters parameters = ((By.Remotable) locator).getRemoteParameters();
+        String value = String.valueOf(parameters.value());
+
+        // id, class name and name aren't W3C strategies, they are sent as CSS selectors as by WebDriver itself
+        return switch (parameters.using()) {
+            case "id" -> Map.of("using", "css selector", "value", "#" + escapeCss(value));
+            case "class name" -> Map.of("using", "css selector", "value", "." + escapeCss(value));
+            case "name" -> Map.of("using", "css selector", "value", "*[name='" + value.replace("'", "\\'") + "']");
+            default -> Map.of("using", parameters.using(), "value", parameters.value());
+        };
+    }
+
+    private static final Pattern CSS_SPECIAL_CHARS = Pattern.compile("([\\s'\"\\\\#.:;,!?+<>=~*^$|%&@`{}\\-/\\[\\]()])");
+
+    /**
+     * Escape identifier for CSS selector, as it's done by WebDriver for id and class name locators
+     */
+    private static String escapeCss(String identifier) {
+        String escaped = CSS_SPECIAL_CHARS.matcher(identifier).replaceAll("\\\\$1");
+
+        // identifier can't start with a digit, so it's escaped by its code point
+        if (!escaped.isEmpty() && Character.isDigit(escaped.charAt(0)))
+            escaped = "\\" + (30 + Character.digit(escaped.charAt(0), 10)) + " " + escaped.substring(1);
+
+        return escaped;
+    }
+
     /**
      * This method builds locator using string selector
      *
@@ -177,4 +220,25 @@ public class ByLocatorUtilities {
                     }
                 });
     }
+
+    /**
+     * Read locator of the {@link org.openqa.selenium.support.PageFactory} element proxy.
+     * Proxy isn't asked for its description, because it would look up the element
+     *
+     * @return locator of the proxy, or NULL if element isn't a PageFactory proxy
+     */
+    public static By getPageFactoryLocator(WebElement element) {
+        if (!Proxy.isProxyClass(element.getClass())
+                || !(Proxy.getInvocationHandler(element) instanceof LocatingElementHandler))
+            return null;
+
+        try {
+            Object locator = FieldUtils.readField(Proxy.getInvocationHandler(element), "locator", true);
+            return locator instanceof DefaultElementLocator
+                    ? (By) FieldUtils.readField(locator, "by", true)
+                    : null;
+        } catch (IllegalAccessException | IllegalArgumentException cause) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+package infrastructure.utilities;
+
+import infrastructure.logger.Log;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Chrome DevTools Protocol commands for Chromium based sessions. <br>
+ * Remote sessions are augmented to support CDP commands, augmented instance is cached per session.
+ * For other browsers commands are not executed, so callers should have a WebDriver fallback.
+ */
+public class DevToolsUtilities {
+
+    private static final Map<WebDriver, Optional<HasCdp>> cdpByDriver = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private DevToolsUtilities() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Execute CDP command
+     *
+     * @param driver     not decorated driver
+     * @param command    CDP command, e.g. "Network.setCookies"
+     * @param parameters command parameters
+     * @return command result, or empty if CDP isn't supported for the session or command failed
+     */
+    public static Optional<Map<String, Object>> executeCdpCommand(WebDriver driver, String command, Map<String, Object> parameters) {
+        Optional<HasCdp> cdp = cdpByDriver.computeIfAbsent(driver, DevToolsUtilities::defineCdp);
+
+        if (cdp.isEmpty())
+            return Optional.empty();
+
+        try {
+            return Optional.of(cdp.get().executeCdpCommand(command, parameters));
+        } catch (Exception cause) {
+            Log.warn(String.format("Couldn't execute CDP command \"%s\": %s", command, cause));
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param driver not decorated driver
+     * @return TRUE if CDP commands could be executed for the session
+     */
+    public static boolean isCdpSupported(WebDriver driver) {
+        return cdpByDriver.computeIfAbsent(driver, DevToolsUtilities::defineCdp).isPresent();
+    }
+
+    private static Optional<HasCdp> defineCdp(WebDriver driver) {
+        if (driver instanceof HasCdp)
+            return Optional.of((HasCdp) driver);
+
+        if (driver instanceof RemoteWebDriver)
+            try {
+                WebDriver augmented = new Augmenter().augment(driver);
+                if (augmented instanceof HasCdp)
+                    return Optional.of((HasCdp) augmented);
+            } catch (Exception cause) {
+                Log.warn("Couldn't augment remote session to support CDP: " + cause);
+            }
+
+        return Optional.empty();
+    }
+}
@@ -4,6 +4,8 @@ import infrastructure.Investing;
 import infrastructure.constants.ConstantProvider;
 import infrastructure.enums.Edition;
 import infrastructure.exceptions.InvestingException;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
 import infrastructure.threadlocals.ThreadLocalDriver;
 import infrastructure.threadlocals.ThreadLocalEdition;
 import org.apache.commons.lang3.StringUtils;
@@ -52,10 +54,12 @@ public class NavigationUtilities {
     public static void goToURL(Investing driver, String url) {
         step(textWithCopyToLog(INFO, "Navigating to the " + url + " url"), () -> {
             try {
-                if (getNoCashParam().equals("0"))
-                    driver.get(url);
-                else
-                    driver.get(url.concat(NO_CASH_PARAM.concat(getNoCashParam())));
+                TimeBudget.measure(Phase.NAVIGATION, () -> {
+                    if (getNoCashParam().equals("0"))
+                        driver.get(url);
+                    else
+                        driver.get(url.concat(NO_CASH_PARAM.concat(getNoCashParam())));
+                });
             } catch (Exception cause) {
                 throw new InvestingException("Couldn't open the " + url + " url!", cause);
             }
@@ -1,12 +1,21 @@
 package infrastructure.utilities;
 
+import infrastructure.constants.GlobalLocators;
 import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
 
+import java.lang.reflect.Field;
 import java.time.Duration;
+import java.util.*;
+import java.util.function.Predicate;
 
 import static infrastructure.ReportAttachments.textWithCopyToLog;
 import static infrastructure.allure.AllureAttachments.allureAttachText;
@@ -14,16 +23,108 @@ import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDurat
 import static infrastructure.constants.GlobalLocators.WebGlobalLocators.PopupLocators.*;
 import static infrastructure.constants.GlobalLocators.WebGlobalLocators.WorkstationLocators.watchlistOnboardingPanel;
 import static infrastructure.enums.LogLevel.INFO;
-import static infrastructure.utilities.BaseUtilities.clickOnVisibleElement;
-import static infrastructure.utilities.WaitUtilities.waitForInvisibility;
-import static infrastructure.utilities.WaitUtilities.waitForVisibility;
 import static io.qameta.allure.Allure.step;
 
 public class PopupUtilities {
 
+    private static final Duration PROBE_POLLING_DURATION = Duration.ofMillis(100);
+
+    /**
+     * All known popup locators from {@link GlobalLocators.WebGlobalLocators.PopupLocators} by field name.
+     * Only locators, which could be converted for scripts, are included
+     */
+    private static final Map<String, By> knownPopupLocators = collectKnownPopupLocators();
+
+    /**
+     * Presence and visibility of popup element on the page
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class PopupState {
+        private final boolean present;
+        private final boolean visible;
+    }
+
+    private static Map<String, By> collectKnownPopupLocators() {
+        Map<String, By> locators = new LinkedHashMap<>();
+
+        for (Field field : ReflectionUtils.getStaticFields(GlobalLocators.WebGlobalLocators.PopupLocators.class, By.class)) {
+            try {
+                By locator = (By) field.get(null);
+                if (locator instanceof By.Remotable)
+                    locators.put(field.getName(), locator);
+            } catch (IllegalAccessException cause) {
+                throw new InvestingException("Couldn't read popup locator " + field.getName(), cause);
+            }
+        }
+
+        return Collections.unmodifiableMap(locators);
+    }
+
+    /**
+     * Check all known popups by single script execution.
+     * Provided popups, which aren't in {@link GlobalLocators.WebGlobalLocators.PopupLocators}, are probed by the same script
+     *
+     * @param popups popups to probe besides the known ones
+     * @return state of each known and provided popup by its locator
+     * @throws IllegalArgumentException if provided popup locator couldn't be converted for the script
+     */
+    public static Map<By, PopupState> probePopups(By... popups) {
+        Map<String, By> locators = new LinkedHashMap<>(knownPopupLocators);
+        for (By popup : popups)
+            if (!locators.containsValue(popup))
+                locators.put("unknown" + locators.size(), popup);
+
+        List<Map<String, Object>> probes = new ArrayList<>();
+        locators.forEach((name, locator) -> {
+            Map<String, Object> probe = new HashMap<>(ByLocatorUtilities.getScriptLocator(locator));
+            probe.put("name", name);
+            probes.add(probe);
+        });
+
+        Map<?, ?> states = (Map<?, ?>) ScriptUtilities.readSilently(
+                ScriptUtilities.loadScript("locate.js", "popupProbe.js"), probes);
+
+        Map<By, PopupState> result = new LinkedHashMap<>();
+        locators.forEach((name, locator) -> {
+            Map<?, ?> state = (Map<?, ?>) states.get(name);
+            result.put(locator, new PopupState(
+                    Boolean.TRUE.equals(state.get("present")),
+                    Boolean.TRUE.equals(state.get("visible"))));
+        });
+
+        return result;
+    }
+
+    /**
+     * Poll all known and provided popups until any of provided popups is visible
+     *
+     * @param duration duration to wait
+     * @param popups   expected popups in order of priority
+     * @return the first visible popup from provided ones
+     * @throws TimeoutException if none of popups became visible
+     * @throws IllegalArgumentException if popup locator couldn't be converted for the script
+     */
+    public static By waitForAnyPopup(Duration duration, By... popups) {
+        By[] found = new By[1];
+
+        pollPopups(duration, popups, states -> {
+            found[0] = Arrays.stream(popups)
+                    .filter(popup -> states.get(popup).isVisible())
+                    .findFirst()
+                    .orElse(null);
+            return found[0] != null;
+        });
+
+        return found[0];
+    }
+
+    /**
+     * @throws IllegalArgumentException if popup locator couldn't be converted for the script
+     */
     public static boolean isPopupDisplayed(Duration duration, By popup) {
         try {
-            waitForVisibility(duration, popup);
+            waitForAnyPopup(duration, popup);
             return true;
         } catch (TimeoutException | NoSuchElementException exception) {
             return false;
@@ -31,38 +132,64 @@ public class PopupUtilities {
     }
 
     /**
-     * close any Pop-up on page init
+     * close any Pop-up on page init. <br>
+     * Popup is detected and closed by scripts, so it costs a few WebDriver calls instead of a chain of waits
      *
      * @param popup       expected popup
      * @param closeButton button, which closes expected popup
      *
      * @return true means popup was closed
+     * @throws IllegalArgumentException if popup or button locator couldn't be converted for the script
      */
     public static boolean closePopup(Duration duration, By popup, By closeButton) {
         try {
             if (isPopupDisplayed(duration, popup)) {
-                BaseUtilities.removeElementFromDOM(watchlistOnboardingPanel, MINIMAL_WAITING_DURATION);
-                clickOnVisibleElement(closeButton);
+                Map<?, ?> result = (Map<?, ?>) ScriptUtilities.executeSilently(
+                        ScriptUtilities.loadScript("locate.js", "closePopup.js"),
+                        ByLocatorUtilities.getScriptLocator(popup),
+                        ByLocatorUtilities.getScriptLocator(closeButton),
+                        List.of(ByLocatorUtilities.getScriptLocator(watchlistOnboardingPanel)));
+
+                if (!Boolean.TRUE.equals(result.get("clicked")))
+                    throw new InvestingException("Close button of the " + popup + " pop-up wasn't clicked: " + result);
 
-                waitForInvisibility(ELEMENT_WAITING_DURATION_SMALL, popup);
+                pollPopups(ELEMENT_WAITING_DURATION_SMALL, new By[]{popup}, states -> !states.get(popup).isVisible());
 
                 allureAttachText("info", "Pop-up was closed: " + popup.toString());
                 return true;
             } else {
                 allureAttachText("info", "Pop-up was not displayed: " + popup.toString());
             }
-        } catch (InvestingException | TimeoutException | NoSuchElementException | StaleElementReferenceException ignore) {
+        } catch (InvestingException | TimeoutException | NoSuchElementException | StaleElementReferenceException cause) {
+            Log.warn("Couldn't close pop-up " + popup + ": " + cause);
         }
 
         return false;
     }
 
+    /**
+     * Probe known and provided popups until provided condition is true
+     *
+     * @throws TimeoutException if condition wasn't met within the duration
+     */
+    private static void pollPopups(Duration duration, By[] popups, Predicate<Map<By, PopupState>> condition) {
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        while (!condition.test(probePopups(popups))) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                throw new TimeoutException("Pop-ups didn't reach expected state within " + duration.toMillis() + " ms");
+
+            Utilities.sleepQuietly(Duration.ofNanos(Math.min(left, PROBE_POLLING_DURATION.toNanos())));
+        }
+    }
+
     /**
      * close the Privacy Pop-up on page init (happens only for European IPs)
      */
     public static void closePrivacyPopUp() {
         step(textWithCopyToLog(INFO, "Closing Privacy pop-up"), () ->
-                closePopup(POPUP_WAITING_DURATION, privacyPopUp, privacyPopUpAcceptBtn)
+                closePopup(TimeoutCalibration.timeout(TimeoutKind.POPUP), privacyPopUp, privacyPopUpAcceptBtn)
         );
     }
 
@@ -71,7 +198,7 @@ public class PopupUtilities {
      */
     public static void closeCCPAPopUp() {
         step(textWithCopyToLog(INFO, "Closing CCPA pop-up"), () ->
-            closePopup(POPUP_WAITING_DURATION, ccpaPopUp, ccpaPopUpCloseBtn)
+            closePopup(TimeoutCalibration.timeout(TimeoutKind.POPUP), ccpaPopUp, ccpaPopUpCloseBtn)
         );
     }
 
@@ -0,0 +1,88 @@
+package infrastructure.utilities;
+
+import infrastructure.elements.DomSnapshot;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+public class ScriptUtilities {
+
+    private static final Map<String, String> scripts = new ConcurrentHashMap<>();
+
+    private ScriptUtilities() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Load JS scripts from the <b>scripts</b> resources folder. Loaded scripts are cached
+     *
+     * @param names file names of the scripts, e.g. "locate.js"
+     * @return scripts content joined in the provided order
+     */
+    public static String loadScript(String... names) {
+        return Arrays.stream(names)
+                .map(name -> scripts.computeIfAbsent(name, ScriptUtilities::readScript))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static String readScript(String name) {
+        try (InputStream stream = ScriptUtilities.class.getClassLoader().getResourceAsStream("scripts/" + name)) {
+            if (stream == null)
+                throw new InvestingException("Couldn't find script in resources: " + name);
+
+            return IOUtils.toString(stream, StandardCharsets.UTF_8);
+        } catch (IOException cause) {
+            throw new InvestingException("Couldn't read script from resources: " + name, cause);
+        }
+    }
+
+    /**
+     * Execute script without WebDriver listener events.
+     * Should be used for framework's own scripts, which shouldn't trigger
+     * popups processing after {@link JavascriptExecutor#executeScript} event. <br>
+     * Script could change the page, so {@link DomSnapshot} is invalidated
+     *
+     * @param driver not decorated driver, e.g. {@link infrastructure.Investing#getDelegate()}
+     */
+    public static Object executeSilently(WebDriver driver, String script, Object... args) {
+        DomSnapshot.invalidate();
+        return readSilently(driver, script, args);
+    }
+
+    /**
+     * Execute script in the session of the current thread without WebDriver listener events
+     */
+    public static Object executeSilently(String script, Object... args) {
+        return executeSilently(ThreadLocalDriver.get().getDelegate(), script, args);
+    }
+
+    /**
+     * Execute script, which only reads the page (probes, states, counters), without WebDriver listener events.
+     * {@link DomSnapshot} is kept, as the page isn't changed
+     *
+     * @param driver not decorated driver, e.g. {@link infrastructure.Investing#getDelegate()}
+     */
+    public static Object readSilently(WebDriver driver, String script, Object... args) {
+        if (!(driver instanceof JavascriptExecutor))
+            throw new InvestingException("Scripts can't be executed by " + driver.getClass().getSimpleName());
+
+        return ((JavascriptExecutor) driver).executeScript(script, args);
+    }
+
+    /**
+     * Execute script, which only reads the page, in the session of the current thread without WebDriver listener events
+     */
+    public static Object readSilently(String script, Object... args) {
+        return readSilently(ThreadLocalDriver.get().getDelegate(), script, args);
+    }
+}
@@ -2,6 +2,8 @@ package infrastructure.utilities;
 
 import infrastructure.exceptions.InvestingException;
 import infrastructure.logger.Log;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
 import lombok.extern.log4j.Log4j2;
 
 import java.time.Duration;
@@ -19,10 +21,24 @@ public class Utilities {
      */
     public static void sleep(Duration duration) {
         Log.info(String.format("Sleeping for %d seconds", duration.getSeconds()));
+        TimeBudget.measure(Phase.SLEEP, () -> {
+            try {
+                Thread.sleep(duration.toMillis());
+            } catch (InterruptedException cause) {
+                throw new InvestingException("Couldn't sleep for " + duration.getSeconds() + " seconds!", cause);
+            }
+        });
+    }
+
+    /**
+     * Sleep by given duration without logging. Should be used for short polling intervals
+     */
+    public static void sleepQuietly(Duration duration) {
         try {
             Thread.sleep(duration.toMillis());
         } catch (InterruptedException cause) {
-            throw new InvestingException("Couldn't sleep for " + duration.getSeconds() + " seconds!", cause);
+            Thread.currentThread().interrupt();
+            throw new InvestingException("Couldn't sleep for " + duration.toMillis() + " ms!", cause);
         }
     }
 
@@ -1,19 +1,27 @@
 package infrastructure.utilities;
 
 import infrastructure.constants.ConstantProvider;
+import infrastructure.constants.WebEnvParams;
 import infrastructure.exceptions.InvestingException;
 import infrastructure.logger.Log;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
 import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
+import infrastructure.waits.AdaptivePolling;
+import infrastructure.waits.ElementState;
+import infrastructure.waits.WaitEngine;
+import infrastructure.waits.WaitLatencyHistory;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.FluentWait;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
+import java.time.Clock;
 import java.time.Duration;
 
-import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.ELEMENT_WAITING_DURATION_FULL;
 import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.MINIMAL_WAITING_DURATION;
-import static org.openqa.selenium.support.ui.ExpectedConditions.*;
 
 public class WaitUtilities {
 
@@ -24,7 +32,25 @@ public class WaitUtilities {
      * @param duration: to wait
      */
     public static FluentWait<WebDriver> customWait(Duration duration) {
-        Log.info("Waiting for " + duration.toMillis() + " ms");
+        return customWait(duration, null);
+    }
+
+    /**
+     * waits for the specified amount of time. <br>
+     * Polling is adaptive if <b>polling.adaptive</b> is enabled, else Selenium's default polling is used
+     *
+     * @param duration    to wait
+     * @param typicalWait typical waiting time of the condition to seed adaptive polling, could be NULL
+     */
+    public static FluentWait<WebDriver> customWait(Duration duration, Duration typicalWait) {
+        Log.debug("Waiting for " + duration.toMillis() + " ms");
+
+        if (WebEnvParams.getAdaptivePollingParam())
+            // interval is defined by the sleeper, so the provided one is ignored.
+            // Sleeper doesn't know the deadline, so it isn't seeded by waits longer than the current one
+            return new WebDriverWait(ThreadLocalDriver.get(), duration, Duration.ZERO, Clock.systemDefaultZone(),
+                    new AdaptivePolling(typicalWait != null && typicalWait.compareTo(duration) < 0 ? typicalWait : null));
+
         return new WebDriverWait(ThreadLocalDriver.get(), duration);
     }
 
@@ -36,7 +62,21 @@ public class WaitUtilities {
      */
     public static <T> T waitUntil(Duration duration, ExpectedCondition<T> isTrue) {
         Log.info("Expected condition to wait: " + isTrue.toString());
-        return customWait(duration).until(isTrue);
+
+        // conditions defined by lambdas have no stable description, so their latency isn't kept
+        String historyKey = WebEnvParams.getAdaptivePollingParam() && !isTrue.getClass().isSynthetic()
+                ? WaitLatencyHistory.key(isTrue.toString())
+                : null;
+
+        return TimeBudget.measure(Phase.WAIT, () -> {
+            long started = System.nanoTime();
+            T result = customWait(duration, historyKey == null ? null : WaitLatencyHistory.median(historyKey)).until(isTrue);
+
+            if (historyKey != null)
+                WaitLatencyHistory.record(historyKey, Duration.ofNanos(System.nanoTime() - started));
+
+            return result;
+        });
     }
 
     /**
@@ -47,15 +87,12 @@ public class WaitUtilities {
      */
     public static <T> WebElement waitForPresence(Duration duration, T elementAttr) {
         try {
-            BaseUtilities.validateElementOrLocator(elementAttr);
-
-            if (elementAttr instanceof By)
-                return waitUntil(duration, presenceOfElementLocated((By) elementAttr));
-            else {
-                WebElement element = (WebElement) elementAttr;
-                waitUntil(MINIMAL_WAITING_DURATION, not(stalenessOf(element)));
-                return element;
-            }
+            // provided element is expected to be found already, so it's only checked for staleness
+            return WaitEngine.waitFor(
+                    elementAttr,
+                    elementAttr instanceof By ? duration : MINIMAL_WAITING_DURATION,
+                    ElementState.PRESENT
+            ).getElement();
         } catch (TimeoutException cause) {
             throw new NoSuchElementException("Element \"" + elementAttr + "\" did not show up within given time '" + duration.toMillis() + "' ms!", cause);
         } catch (Exception cause) {
@@ -71,8 +108,8 @@ public class WaitUtilities {
      */
     public static <T> WebElement waitForVisibility(Duration duration, T elementAttr) {
         try {
-            WebElement element = waitForPresence(duration, elementAttr);
-            return waitUntil(duration, visibilityOf(element));
+            // presence and visibility are checked on each poll under single deadline
+            return WaitEngine.waitFor(elementAttr, duration, ElementState.VISIBLE).getElement();
         } catch (TimeoutException | NoSuchElementException cause) {
             throw new TimeoutException("Time for waiting for visibility of " + elementAttr + " element finished, but it is not visible!", cause);
         } catch (Exception cause) {
@@ -82,12 +119,13 @@ public class WaitUtilities {
 
     /**
      * waits for visibility of existing Web element. <br>
-     * Duration of waiting is provided from {@link ConstantProvider.WebConstant.TimeoutDuration#ELEMENT_WAITING_DURATION_FULL} const
+     * Duration of waiting is provided from {@link ConstantProvider.WebConstant.TimeoutDuration#ELEMENT_WAITING_DURATION_FULL} const,
+     * or it's calibrated by {@link TimeoutCalibration}
      *
      * @param elementAttr element or locator to wait for
      */
     public static <T> WebElement waitForVisibility(T elementAttr) {
-        return waitForVisibility(ELEMENT_WAITING_DURATION_FULL, elementAttr);
+        return waitForVisibility(TimeoutCalibration.timeout(TimeoutKind.ELEMENT), elementAttr);
     }
 
     /**
@@ -98,12 +136,7 @@ public class WaitUtilities {
      */
     public static <T> void waitForInvisibility(Duration duration, T elementAttr) {
         try {
-            BaseUtilities.validateElementOrLocator(elementAttr);
-
-            if (elementAttr instanceof By)
-                waitUntil(duration, invisibilityOfElementLocated((By) elementAttr));
-            else
-                waitUntil(duration, invisibilityOf((WebElement) elementAttr));
+            WaitEngine.waitFor(elementAttr, duration, ElementState.INVISIBLE);
         } catch (TimeoutException cause) {
             throw new TimeoutException("Element \"" + elementAttr + "\" wasn't hidden after " + duration.toMillis() + " ms!", cause);
         } catch (Exception cause) {
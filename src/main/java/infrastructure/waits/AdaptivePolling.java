@@ -0,0 +1,56 @@
+package infrastructure.waits;
+
+import org.openqa.selenium.support.ui.Sleeper;
+
+import java.time.Duration;
+
+/**
+ * Polling schedule of a single wait. <br><br>
+ *
+ * Intervals start tight and grow exponentially up to Selenium's default 500 ms,
+ * so quick elements are caught right after they appear, and slow ones don't flood the hub. <br>
+ * If typical waiting time is known from {@link WaitLatencyHistory}, the first interval jumps
+ * close to it, and tight polling starts from there. <br>
+ * Schedule is stateful, so new instance should be created for each wait.
+ */
+public class AdaptivePolling implements Sleeper {
+
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(20);
+    private static final Duration MAX_INTERVAL = Duration.ofMillis(500);
+    private static final double BACKOFF_FACTOR = 1.5;
+    private static final double SEED_SHARE = 0.8;
+
+    private Duration seed;
+    private Duration interval = MIN_INTERVAL;
+
+    /**
+     * @param typicalWait typical waiting time of the condition, or NULL if it's unknown
+     */
+    public AdaptivePolling(Duration typicalWait) {
+        if (typicalWait != null && typicalWait.compareTo(MIN_INTERVAL) > 0)
+            seed = Duration.ofMillis((long) (typicalWait.toMillis() * SEED_SHARE));
+    }
+
+    /**
+     * @return interval before the next poll
+     */
+    public Duration next() {
+        if (seed != null) {
+            Duration first = seed;
+            seed = null;
+            return first;
+        }
+
+        Duration current = interval;
+        interval = Duration.ofMillis(Math.min(MAX_INTERVAL.toMillis(), (long) (interval.toMillis() * BACKOFF_FACTOR)));
+        return current;
+    }
+
+    /**
+     * Sleep by the schedule, provided interval of {@link org.openqa.selenium.support.ui.FluentWait} is ignored
+     */
+    @Override
+    public void sleep(Duration ignored) throws InterruptedException {
+        Thread.sleep(next().toMillis());
+    }
+}
@@ -0,0 +1,32 @@
+package infrastructure.waits;
+
+/**
+ * Expected state of the element for {@link WaitEngine}
+ */
+public enum ElementState {
+
+    /** element is in the DOM */
+    PRESENT,
+    /** element is in the DOM and displayed */
+    VISIBLE,
+    /** element is displayed and enabled */
+    CLICKABLE,
+    /** element is hidden or not in the DOM */
+    INVISIBLE,
+    /** element is not in the DOM or became stale */
+    ABSENT;
+
+    boolean isMet(WaitEngine.Probe probe) {
+        return switch (this) {
+            case PRESENT -> probe.isPresent();
+            case VISIBLE -> probe.isPresent() && probe.isVisible();
+            case CLICKABLE -> probe.isPresent() && probe.isVisible() && probe.isEnabled();
+            case INVISIBLE -> !probe.isPresent() || !probe.isVisible();
+            case ABSENT -> !probe.isPresent();
+        };
+    }
+
+    boolean requiresElement() {
+        return this == PRESENT || this == VISIBLE || this == CLICKABLE;
+    }
+}
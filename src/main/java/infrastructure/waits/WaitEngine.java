@@ -0,0 +1,222 @@
+package infrastructure.waits;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import infrastructure.metrics.TimeBudget;
+import infrastructure.metrics.TimeBudget.Phase;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
+import infrastructure.utilities.BaseUtilities;
+import infrastructure.utilities.ByLocatorUtilities;
+import infrastructure.utilities.ScriptUtilities;
+import infrastructure.utilities.Utilities;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openqa.selenium.*;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Waits for element states in a single poll loop under one deadline. <br><br>
+ *
+ * All expected states are checked on each poll, e.g. presence, visibility and clickability
+ * are not waited one after another, so the worst case is limited by the provided duration. <br>
+ * Polling is adaptive, if <b>polling.adaptive</b> is enabled:
+ * intervals are defined by {@link AdaptivePolling} and seeded from {@link WaitLatencyHistory}. <br>
+ * Element state is read by single script per poll. If locator couldn't be used by script
+ * (e.g. {@link org.openqa.selenium.support.pagefactory.ByChained}) or session is browserless,
+ * state is read by WebDriver calls. <br>
+ * Located element is resolved by the decorated driver once the states are reached,
+ * so further actions with it trigger WebDriver listener events.
+ */
+public class WaitEngine {
+
+    private static final Duration POLLING_DURATION = Duration.ofMillis(100);
+    private static final Probe ABSENT = new Probe(false, false, false);
+
+    private WaitEngine() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Element state read on a single poll
+     */
+    @AllArgsConstructor
+    @Getter
+    static class Probe {
+        private final boolean present;
+        private final boolean visible;
+        private final boolean enabled;
+
+        @Override
+        public String toString() {
+            return String.format("present: %s, visible: %s, enabled: %s", present, visible, enabled);
+        }
+    }
+
+    /**
+     * Wait until element reaches all provided states
+     *
+     * @param elementAttr element or locator to wait for
+     * @param duration    maximum time to wait
+     * @param states      expected states
+     * @return waited element, time spent and number of polls
+     * @throws TimeoutException if states weren't reached within the duration
+     */
+    public static <T> WaitResult waitFor(T elementAttr, Duration duration, ElementState... states) {
+        BaseUtilities.validateElementOrLocator(elementAttr);
+
+        Map<String, Object> locator = scriptLocator(elementAttr);
+        // element is passed into the probe script as is, if it has no locator
+        boolean scripted = !ThreadLocalDriver.get().isBrowserless() && (locator != null || !(elementAttr instanceof By));
+
+        boolean adaptive = WebEnvParams.getAdaptivePollingParam();
+        String historyKey = adaptive ? WaitLatencyHistory.key(elementAttr) : null;
+        if (historyKey != null)
+            historyKey += " " + Arrays.toString(states);
+        AdaptivePolling polling = adaptive ? new AdaptivePolling(WaitLatencyHistory.median(historyKey)) : null;
+
+        long started = System.nanoTime();
+        int polls = TimeBudget.measure(Phase.WAIT, () -> poll(elementAttr, locator, scripted, polling, duration, states));
+
+        WaitResult result = new WaitResult(
+                resolve(elementAttr, states),
+                Duration.ofNanos(System.nanoTime() - started),
+                polls);
+
+        if (historyKey != null)
+            WaitLatencyHistory.record(historyKey, result.getElapsed());
+
+        if (Arrays.asList(states).contains(ElementState.VISIBLE) || Arrays.asList(states).contains(ElementState.CLICKABLE))
+            TimeoutCalibration.record(TimeoutKind.ELEMENT, result.getElapsed());
+
+        Log.debug(String.format("Element %s became %s: %s", describe(elementAttr), Arrays.toString(states), result));
+        return result;
+    }
+
+    /**
+     * Probe element until it reaches all provided states
+     *
+     * @return number of polls
+     * @throws TimeoutException if states weren't reached within the duration
+     */
+    private static int poll(Object elementAttr, Map<String, Object> locator, boolean scripted,
+                            AdaptivePolling polling, Duration duration, ElementState... states) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        int polls = 0;
+
+        while (true) {
+            polls++;
+            Probe probe = null;
+
+            if (scripted)
+                try {
+                    probe = probeByScript(locator, elementAttr);
+                } catch (JavascriptException cause) {
+                    Log.debug("Couldn't probe element by script, WebDriver calls are used: " + cause);
+                    scripted = false;
+                }
+
+            if (probe == null)
+                probe = probeByDriver(elementAttr);
+
+            if (isMet(probe, states))
+                return polls;
+
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                throw new TimeoutException(String.format("Element %s didn't become %s within %d ms, polls: %d, last state: %s",
+                        describe(elementAttr), Arrays.toString(states), duration.toMillis(), polls, probe));
+
+            Duration interval = polling == null ? POLLING_DURATION : polling.next();
+            Utilities.sleepQuietly(Duration.ofNanos(Math.min(left, interval.toNanos())));
+        }
+    }
+
+    /**
+     * PageFactory proxy is resolved to its locator, so the probe script doesn't make the proxy find element on each poll
+     *
+     * @return locator, which could be passed into the probe script, or NULL if element has no such locator
+     */
+    private static Map<String, Object> scriptLocator(Object elementAttr) {
+        By locator = elementAttr instanceof By
+                ? (By) elementAttr
+                : ByLocatorUtilities.getPageFactoryLocator((WebElement) elementAttr);
+
+        if (locator == null)
+            return null;
+
+        try {
+            return ByLocatorUtilities.getScriptLocator(locator);
+        } catch (IllegalArgumentException unsupported) {
+            return null;
+        }
+    }
+
+    /**
+     * PageFactory proxy is described by its locator, as its toString() finds the element
+     */
+    private static String describe(Object elementAttr) {
+        By locator = elementAttr instanceof WebElement
+                ? ByLocatorUtilities.getPageFactoryLocator((WebElement) elementAttr)
+                : null;
+
+        return String.valueOf(locator == null ? elementAttr : locator);
+    }
+
+    private static boolean isMet(Probe probe, ElementState... states) {
+        for (ElementState state : states)
+            if (!state.isMet(probe))
+                return false;
+
+        return true;
+    }
+
+    private static Probe probeByScript(Map<String, Object> locator, Object elementAttr) {
+        try {
+            Map<?, ?> state = (Map<?, ?>) ScriptUtilities.readSilently(
+                    ScriptUtilities.loadScript("locate.js", "waitProbe.js"),
+                    locator,
+                    locator == null ? elementAttr : null);
+
+            return new Probe(
+                    Boolean.TRUE.equals(state.get("present")),
+                    Boolean.TRUE.equals(state.get("visible")),
+                    Boolean.TRUE.equals(state.get("enabled")));
+        } catch (StaleElementReferenceException | NoSuchElementException absent) {
+            return ABSENT;
+        }
+    }
+
+    private static Probe probeByDriver(Object elementAttr) {
+        try {
+            WebElement element;
+
+            if (elementAttr instanceof By) {
+                List<WebElement> found = ThreadLocalDriver.get().getDelegate().findElements((By) elementAttr);
+                if (found.isEmpty())
+                    return ABSENT;
+                element = found.get(0);
+            } else
+                element = (WebElement) elementAttr;
+
+            boolean visible = element.isDisplayed();
+            return new Probe(true, visible, visible && element.isEnabled());
+        } catch (StaleElementReferenceException | NoSuchElementException absent) {
+            return ABSENT;
+        }
+    }
+
+    private static WebElement resolve(Object elementAttr, ElementState... states) {
+        if (elementAttr instanceof WebElement)
+            return (WebElement) elementAttr;
+
+        return Arrays.stream(states).anyMatch(ElementState::requiresElement)
+                ? ThreadLocalDriver.get().findElement((By) elementAttr)
+                : null;
+    }
+}
@@ -0,0 +1,136 @@
+package infrastructure.waits;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.logger.Log;
+import infrastructure.utilities.ByLocatorUtilities;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Waiting time of conditions from previous waits and runs. <br><br>
+ *
+ * Latency is kept per page section and condition, e.g. "/equities | tag name: h1".
+ * Only the latest samples are kept. History is loaded from the <b>polling.history</b> file
+ * on the first use and saved back at the run end.
+ */
+public class WaitLatencyHistory {
+
+    private static final int SAMPLES_LIMIT = 50;
+
+    private static final ThreadLocal<String> currentSection = ThreadLocal.withInitial(() -> "");
+    private static final Map<String, Deque<Long>> samples = load();
+
+    private WaitLatencyHistory() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Remember the section of the opened page, e.g. "/equities" for the "/equities/apple-computer-inc" page
+     *
+     * @param page page without domain
+     */
+    public static void setPage(String page) {
+        String[] parts = page.split("[/?#]");
+        currentSection.set(parts.length > 1 ? "/" + parts[1] : "/");
+    }
+
+    /**
+     * @return history key of the element condition in the current page section,
+     *         or NULL if locator of the element couldn't be defined without WebDriver calls
+     */
+    public static String key(Object elementAttr) {
+        By locator = elementAttr instanceof By
+                ? (By) elementAttr
+                : ByLocatorUtilities.getPageFactoryLocator((WebElement) elementAttr);
+
+        if (locator == null)
+            return null;
+
+        try {
+            Map<String, Object> scriptLocator = ByLocatorUtilities.getScriptLocator(locator);
+            return key(scriptLocator.get("using") + ": " + scriptLocator.get("value"));
+        } catch (IllegalArgumentException unsupported) {
+            return key(locator.toString());
+        }
+    }
+
+    /**
+     * @return history key of the condition in the current page section
+     */
+    public static String key(String condition) {
+        return currentSection.get() + " | " + condition;
+    }
+
+    public static void record(String key, Duration waited) {
+        Deque<Long> keySamples = samples.computeIfAbsent(key, ignored -> new ArrayDeque<>());
+
+        synchronized (keySamples) {
+            keySamples.addLast(waited.toMillis());
+            if (keySamples.size() > SAMPLES_LIMIT)
+                keySamples.removeFirst();
+        }
+    }
+
+    /**
+     * @return median waiting time of the condition, or NULL if it wasn't waited yet
+     */
+    public static Duration median(String key) {
+        Deque<Long> keySamples = samples.get(key);
+
+        if (keySamples == null)
+            return null;
+
+        long[] sorted;
+        synchronized (keySamples) {
+            sorted = keySamples.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        return sorted.length == 0 ? null : Duration.ofMillis(sorted[sorted.length / 2]);
+    }
+
+    public static void save() {
+        File file = new File(WebEnvParams.getPollingHistoryParam());
+        if (file.getParentFile() != null)
+            file.getParentFile().mkdirs();
+
+        Map<String, List<Long>> snapshot = new TreeMap<>();
+        samples.forEach((key, keySamples) -> {
+            synchronized (keySamples) {
+                snapshot.put(key, new ArrayList<>(keySamples));
+            }
+        });
+
+        try (Writer writer = new FileWriter(file)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(snapshot, writer);
+            Log.info(String.format("Wait latency history of %d conditions is saved into %s", snapshot.size(), file));
+        } catch (IOException cause) {
+            Log.error("Couldn't save wait latency history: " + cause);
+        }
+    }
+
+    private static Map<String, Deque<Long>> load() {
+        Map<String, Deque<Long>> loaded = new ConcurrentHashMap<>();
+        File file = new File(WebEnvParams.getPollingHistoryParam());
+
+        if (!file.exists())
+            return loaded;
+
+        try (Reader reader = new FileReader(file)) {
+            Map<String, List<Long>> history = new Gson().fromJson(reader, new TypeToken<Map<String, List<Long>>>() {}.getType());
+            if (history != null)
+                history.forEach((key, keySamples) -> loaded.put(key, new ArrayDeque<>(keySamples)));
+        } catch (Exception cause) {
+            Log.warn("Couldn't load wait latency history, polling starts without it: " + cause);
+        }
+
+        return loaded;
+    }
+}
@@ -0,0 +1,27 @@
+package infrastructure.waits;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+
+/**
+ * Outcome of the {@link WaitEngine} wait
+ */
+@AllArgsConstructor
+@Getter
+public class WaitResult {
+
+    /**
+     * Waited element, resolved by the decorated driver. NULL if element isn't expected to be present
+     */
+    private final WebElement element;
+    private final Duration elapsed;
+    private final int polls;
+
+    @Override
+    public String toString() {
+        return String.format("reached after %d ms, polls: %d", elapsed.toMillis(), polls);
+    }
+}
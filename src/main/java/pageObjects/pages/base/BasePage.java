@@ -1,20 +1,28 @@
 package pageObjects.pages.base;
 
 import infrastructure.Investing;
+import infrastructure.constants.WebEnvParams;
+import infrastructure.elements.DomSnapshot;
+import infrastructure.elements.ElementQuery;
+import infrastructure.elements.ElementQueryResult;
 import infrastructure.exceptions.InvestingException;
+import infrastructure.logger.Log;
 import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.timeouts.TimeoutCalibration;
+import infrastructure.timeouts.TimeoutKind;
+import infrastructure.utilities.ByLocatorUtilities;
+import infrastructure.waits.ElementState;
+import infrastructure.waits.WaitEngine;
 import lombok.NonNull;
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
 import java.util.Objects;
-
-import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.ELEMENT_WAITING_DURATION_FULL;
+import java.util.Optional;
+import java.util.function.BiFunction;
 
 public class BasePage {
     protected final Investing driver;
@@ -25,10 +33,18 @@ public class BasePage {
     }
 
     public <T> String getText(Investing driver, T elementAttr) {
-        return getAndWaitForElement(driver, elementAttr).getText();
+        Optional<String> text = readSnapshot(driver, elementAttr, DomSnapshot::getVisibleText);
+
+        return text.isPresent()
+                ? text.get()
+                : getAndWaitForElement(driver, elementAttr).getText();
     }
 
     public <T> boolean isDisplayed(Investing driver, T elementAttr) {
+        // hidden element could be shown later, so only visible one is treated as a hit
+        if (readSnapshot(driver, elementAttr, DomSnapshot::isDisplayed).orElse(false))
+            return true;
+
         try {
             return getAndWaitForElement(driver, elementAttr).isDisplayed();
         } catch (TimeoutException | NoSuchElementException | InvestingException ignore) {}
@@ -36,22 +52,74 @@ public class BasePage {
         return false;
     }
 
-    protected <T> WebElement getAndWaitForElement(Investing driver, @NonNull T elementAttr, Duration duration) {
+    public <T> String getAttribute(Investing driver, T elementAttr, String name) {
+        Optional<String> value = readSnapshot(driver, elementAttr, (snapshot, locator) -> snapshot.getAttribute(locator, name));
+
+        return value.isPresent()
+                ? value.get()
+                : getAndWaitForElement(driver, elementAttr).getAttribute(name);
+    }
+
+    public int countElements(Investing driver, By locator) {
+        Optional<Integer> count = readSnapshot(driver, locator, DomSnapshot::count)
+                .filter(found -> found > 0);
+
+        return count.isPresent()
+                ? count.get()
+                : driver.findElements(locator).size();
+    }
+
+    /**
+     * Read the page from the DOM snapshot, if <b>dom.snapshot</b> mode is enabled. <br>
+     * Snapshot is taken once after the page change and reused by all further reads.
+     * {@link org.openqa.selenium.support.PageFactory} elements are read by their locators.
+     *
+     * @return read value, or empty on a miss, so the live page should be used
+     */
+    private <T, R> Optional<R> readSnapshot(Investing driver, T elementAttr, BiFunction<DomSnapshot, By, Optional<R>> reader) {
+        // browserless session reads already parsed page, so snapshot isn't needed
+        if (!WebEnvParams.getDomSnapshotParam() || driver.isBrowserless())
+            return Optional.empty();
+
+        By locator = elementAttr instanceof By
+                ? (By) elementAttr
+                : ByLocatorUtilities.getPageFactoryLocator((WebElement) elementAttr);
+
+        if (locator == null)
+            return Optional.empty();
+
         try {
-            WebDriverWait wait = new WebDriverWait(driver, duration);
+            return reader.apply(DomSnapshot.get(driver.getDelegate()), locator);
+        } catch (InvestingException cause) {
+            Log.warn("Couldn't read DOM snapshot, live page is used: " + cause);
+            return Optional.empty();
+        }
+    }
 
-            if (elementAttr instanceof By) {
-                return Objects.requireNonNull(wait.until(ExpectedConditions.visibilityOfElementLocated((By) elementAttr)));
-            } else {
-                return Objects.requireNonNull(wait.until(ExpectedConditions.visibilityOf((WebElement) elementAttr)));
-            }
+    /**
+     * Read properties of several elements by single script execution instead of a call per property, e.g.
+     * <pre>
+     * queryElements(driver, new ElementQuery()
+     *         .element("title", pageTitle)
+     *         .text()
+     *         .displayed()).get("title").getText();
+     * </pre>
+     * Elements aren't waited, so the page should be ready for checks.
+     */
+    public ElementQueryResult queryElements(Investing driver, @NonNull ElementQuery query) {
+        return query.execute(driver.getDelegate());
+    }
+
+    protected <T> WebElement getAndWaitForElement(Investing driver, @NonNull T elementAttr, Duration duration) {
+        try {
+            return Objects.requireNonNull(WaitEngine.waitFor(elementAttr, duration, ElementState.VISIBLE).getElement());
         } catch (Exception cause) {
             throw new InvestingException("Couldn't get element: " + elementAttr, cause);
         }
     }
 
     protected <T> WebElement getAndWaitForElement(Investing driver, @NonNull T elementAttr) {
-        return getAndWaitForElement(driver, elementAttr, ELEMENT_WAITING_DURATION_FULL);
+        return getAndWaitForElement(driver, elementAttr, TimeoutCalibration.timeout(TimeoutKind.ELEMENT));
     }
 
 }
@@ -2,6 +2,7 @@
 package pageObjects.pages.equities;
 
 import infrastructure.Investing;
+import infrastructure.readiness.PageReadiness;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.FindBy;
 import org.openqa.selenium.support.PageFactory;
@@ -10,12 +11,18 @@ import pageObjects.interfaces.equities.BaseInstrumentMethods;
 import pageObjects.pages.base.BasePage;
 
 import static infrastructure.allure.AllureAttachments.allureAttachText;
+import static infrastructure.constants.ConstantProvider.WebConstant.Page.EQUITIES_PAGE;
 
 public class BaseInstrumentPage extends BasePage implements BaseInstrumentMethods {
 
     @FindBy(tagName = "h1")
     protected WebElement pageTitle;
 
+    static {
+        // instrument page is ready for checks, when its title is shown
+        PageReadiness.registerSentinel(EQUITIES_PAGE, By.tagName("h1"));
+    }
+
     public BaseInstrumentPage(Investing driver) {
         super(driver);
         PageFactory.initElements(new AjaxElementLocatorFactory(driver, 10), this);
@@ -28,6 +35,7 @@ public class BaseInstrumentPage extends BasePage implements BaseInstrumentMethod
 
     public String getTitle() {
         allureAttachText("Instrument page title", "Get text");
-        return getText(this.driver, getAndWaitForElement(driver, pageTitle));
+        // title is waited by getText, if it can't be read from the DOM snapshot
+        return getText(this.driver, pageTitle);
     }
 }
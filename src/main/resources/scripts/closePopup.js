@@ -0,0 +1,20 @@
+// Closes popup by single action: removes overlapping elements and clicks the close button.
+// arguments[0]: popup locator, arguments[1]: close button locator, arguments[2]: array of locators to remove
+var popup = arguments[0], closeButton = arguments[1], obstacles = arguments[2] || [];
+
+for (var i = 0; i < obstacles.length; i++)
+    __invLocate(obstacles[i]).forEach(function (element) { element.remove(); });
+
+if (!__invLocate(popup).some(__invIsVisible))
+    return { shown: false, clicked: false };
+
+var button = __invLocate(closeButton).filter(__invIsVisible)[0];
+if (!button)
+    return { shown: true, clicked: false };
+
+if (typeof button.click === 'function')
+    button.click();
+else
+    button.dispatchEvent(new MouseEvent('click', { bubbles: true, cancelable: true, view: window }));
+
+return { shown: true, clicked: true };
@@ -0,0 +1,31 @@
+// Serializes the rendered DOM by single script execution.
+// Elements, which aren't rendered, are marked in the serialized copy by the data-inv-hidden attribute,
+// so visibility could be estimated without the browser. Their descendants aren't checked.
+// Scripts and styles content is dropped to reduce the snapshot size.
+var copy = document.documentElement.cloneNode(true);
+
+function isRendered(element) {
+    return typeof element.checkVisibility === 'function'
+        ? element.checkVisibility({ checkOpacity: true, checkVisibilityCSS: true })
+        : __invIsVisible(element);
+}
+
+function mark(original, copied) {
+    for (var i = 0; i < original.children.length && i < copied.children.length; i++) {
+        var child = original.children[i], childCopy = copied.children[i];
+
+        // elements with "display: contents" have no box, but their children are rendered
+        if (isRendered(child) || window.getComputedStyle(child).display === 'contents')
+            mark(child, childCopy);
+        else
+            childCopy.setAttribute('data-inv-hidden', '');
+    }
+}
+
+mark(document.documentElement, copy);
+
+Array.prototype.forEach.call(copy.querySelectorAll('script, style'), function (element) {
+    element.textContent = '';
+});
+
+return { url: window.location.href, html: '<!DOCTYPE html>' + copy.outerHTML };
@@ -0,0 +1,37 @@
+// Finds elements by W3C locator strategy, as it is provided by By.Remotable parameters
+function __invLocate(locator, root) {
+    root = root || document;
+    var using = locator.using, value = locator.value, found = [], i;
+
+    switch (using) {
+        case 'css selector':
+            return Array.prototype.slice.call(root.querySelectorAll(value));
+        case 'tag name':
+            return Array.prototype.slice.call(root.getElementsByTagName(value));
+        case 'xpath':
+            var snapshot = document.evaluate(value, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+            for (i = 0; i < snapshot.snapshotLength; i++)
+                found.push(snapshot.snapshotItem(i));
+            return found;
+        case 'link text':
+        case 'partial link text':
+            var links = root.getElementsByTagName('a');
+            for (i = 0; i < links.length; i++) {
+                var text = (links[i].innerText || '').trim();
+                if (using === 'link text' ? text === value : text.indexOf(value) !== -1)
+                    found.push(links[i]);
+            }
+            return found;
+        default:
+            throw new Error('Unsupported locator strategy: ' + using);
+    }
+}
+
+function __invIsVisible(element) {
+    if (!element || !element.isConnected)
+        return false;
+    var style = window.getComputedStyle(element);
+    if (style.display === 'none' || style.visibility === 'hidden' || style.opacity === '0')
+        return false;
+    return element.getClientRects().length > 0;
+}
@@ -0,0 +1,24 @@
+// Returns current readiness signals of the document, which is tracked by readinessTracker.js.
+// arguments[0]: optional sentinel locator {using, value}
+var tracker = window.__invReadiness;
+
+// requests started before tracking was installed are visible only in resource timings
+var lastActivity = tracker.lastActivity;
+var resources = performance.getEntriesByType('resource');
+for (var i = 0; i < resources.length; i++) {
+    var end = performance.timeOrigin + resources[i].responseEnd;
+    if (end > lastActivity)
+        lastActivity = end;
+}
+
+var navigation = performance.getEntriesByType('navigation')[0];
+
+return {
+    readyState: document.readyState,
+    inflight: tracker.inflight,
+    idleMs: Math.max(0, Date.now() - lastActivity),
+    sentinel: arguments[0] ? __invLocate(arguments[0]).some(__invIsVisible) : true,
+    status: navigation && navigation.responseStatus ? navigation.responseStatus : 0,
+    title: document.title,
+    url: location.href
+};
@@ -0,0 +1,60 @@
+// Watches the DOM and closes known banners as soon as they appear.
+// Installed once per document, so it could be evaluated on each new document by CDP or injected after navigation.
+// __RULES__ is replaced with array of {name, target: {using, value}, close: {using, value} | null}
+(function () {
+    if (window.__invPopupGuard)
+        return;
+
+    var rules = __RULES__;
+    var storageKey = '__invPopupGuard';
+    var guard = window.__invPopupGuard = { scheduled: false };
+
+    var count = function (name) {
+        try {
+            var counts = JSON.parse(window.sessionStorage.getItem(storageKey) || '{}');
+            counts[name] = (counts[name] || 0) + 1;
+            window.sessionStorage.setItem(storageKey, JSON.stringify(counts));
+        } catch (e) {}
+    };
+
+    var scan = function () {
+        guard.scheduled = false;
+
+        rules.forEach(function (rule) {
+            var targets;
+            try {
+                targets = __invLocate(rule.target).filter(function (target) {
+                    return !target.__invGuarded && __invIsVisible(target);
+                });
+            } catch (e) {
+                return;
+            }
+
+            if (!targets.length)
+                return;
+
+            targets.forEach(function (target) { target.__invGuarded = true; });
+
+            var button = rule.close ? __invLocate(rule.close).filter(__invIsVisible)[0] : null;
+
+            if (button && typeof button.click === 'function')
+                button.click();
+            else if (button)
+                button.dispatchEvent(new MouseEvent('click', { bubbles: true, cancelable: true, view: window }));
+            else
+                targets.forEach(function (target) { target.remove(); });
+
+            count(rule.name);
+        });
+    };
+
+    var schedule = function () {
+        if (!guard.scheduled) {
+            guard.scheduled = true;
+            setTimeout(scan, 0);
+        }
+    };
+
+    new MutationObserver(schedule).observe(document, { childList: true, subtree: true, attributes: true, attributeFilter: ['class', 'style'] });
+    schedule();
+})();
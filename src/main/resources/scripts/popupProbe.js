@@ -0,0 +1,17 @@
+// Reports presence and visibility of each provided popup element.
+// arguments[0]: array of {name, using, value}
+var probes = arguments[0], states = {};
+
+for (var i = 0; i < probes.length; i++) {
+    var found = [];
+    try {
+        found = __invLocate(probes[i]);
+    } catch (e) {}
+
+    states[probes[i].name] = {
+        present: found.length > 0,
+        visible: found.some(__invIsVisible)
+    };
+}
+
+return states;
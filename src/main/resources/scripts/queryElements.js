@@ -0,0 +1,46 @@
+// Reads requested properties of several elements by single script execution.
+// arguments[0]: array of targets {name, locator}, locator is NULL for the elements provided in arguments[1]
+// arguments[1]: array of elements for targets without locator, in the same order
+// arguments[2]: requested properties {text, displayed, rect, attributes: [names], css: [names]}
+var targets = arguments[0], elements = arguments[1], properties = arguments[2], result = {}, next = 0;
+
+function readAttribute(element, name) {
+    var value = element[name];
+    if (value === undefined || value === null || typeof value === 'object' || typeof value === 'function')
+        value = element.getAttribute(name);
+    return value === undefined || value === null ? null : String(value);
+}
+
+targets.forEach(function (target) {
+    var element = target.locator ? __invLocate(target.locator)[0] : elements[next++];
+    var state = { present: !!element && element.isConnected };
+
+    if (state.present) {
+        var visible = __invIsVisible(element);
+
+        if (properties.displayed)
+            state.displayed = visible;
+        if (properties.text)
+            state.text = visible ? (element.innerText || '').trim() : '';
+        if (properties.rect) {
+            var rect = element.getBoundingClientRect();
+            state.rect = {
+                x: Math.round(rect.left + window.scrollX), y: Math.round(rect.top + window.scrollY),
+                width: Math.round(rect.width), height: Math.round(rect.height)
+            };
+        }
+
+        state.attributes = {};
+        (properties.attributes || []).forEach(function (name) { state.attributes[name] = readAttribute(element, name); });
+
+        state.css = {};
+        if ((properties.css || []).length) {
+            var style = window.getComputedStyle(element);
+            properties.css.forEach(function (name) { state.css[name] = style.getPropertyValue(name); });
+        }
+    }
+
+    result[target.name] = state;
+});
+
+return result;
@@ -0,0 +1,31 @@
+// Tracks fetch/XHR requests of the document.
+// Installed once per document, so it could be evaluated on each new document by CDP or injected by the readiness poll.
+(function () {
+    if (window.__invReadiness)
+        return;
+
+    var tracker = window.__invReadiness = { inflight: 0, lastActivity: Date.now() };
+    var finished = function () {
+        tracker.inflight = Math.max(0, tracker.inflight - 1);
+        tracker.lastActivity = Date.now();
+    };
+
+    if (window.fetch) {
+        var originalFetch = window.fetch;
+        window.fetch = function () {
+            tracker.inflight++;
+            tracker.lastActivity = Date.now();
+            return originalFetch.apply(this, arguments).then(
+                function (response) { finished(); return response; },
+                function (error) { finished(); throw error; });
+        };
+    }
+
+    var originalSend = XMLHttpRequest.prototype.send;
+    XMLHttpRequest.prototype.send = function () {
+        tracker.inflight++;
+        tracker.lastActivity = Date.now();
+        this.addEventListener('loadend', finished);
+        return originalSend.apply(this, arguments);
+    };
+})();
@@ -0,0 +1,21 @@
+// Sets all provided cookies by single script execution.
+// arguments[0]: array of cookies {name, value, path, domain, expiry, secure, sameSite}, domain is omitted for host-only cookies.
+// httpOnly cookies can't be written by script, browser ignores them, so they are reported by the caller as not changed
+var cookies = arguments[0];
+
+cookies.forEach(function (cookie) {
+    var entry = cookie.name + '=' + cookie.value + '; path=' + (cookie.path || '/');
+
+    if (cookie.domain)
+        entry += '; domain=' + cookie.domain;
+    if (cookie.expiry)
+        entry += '; expires=' + new Date(cookie.expiry).toUTCString();
+    if (cookie.secure)
+        entry += '; secure';
+    if (cookie.sameSite)
+        entry += '; samesite=' + cookie.sameSite;
+
+    document.cookie = entry;
+});
+
+return cookies.length;
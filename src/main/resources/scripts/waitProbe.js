@@ -0,0 +1,9 @@
+// Reads state of the waited element by single script execution.
+// arguments[0]: locator {using, value} or NULL, arguments[1]: element, if locator isn't provided
+var locator = arguments[0];
+var element = locator ? __invLocate(locator)[0] : arguments[1];
+
+if (!element || !element.isConnected)
+    return { present: false, visible: false, enabled: false };
+
+return { present: true, visible: __invIsVisible(element), enabled: !element.disabled };
@@ -0,0 +1,189 @@
+package infrastructure;
+
+import hooks.Hooks;
+import infrastructure.session.SessionAffinity;
+import infrastructure.session.SessionKey;
+import infrastructure.stubs.StubScenario;
+import infrastructure.stubs.StubWebDriver;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.threadlocals.ThreadLocalScenario;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public class InvestingTest {
+
+    /**
+     * Investing, which counts decorations of its sessions
+     */
+    private static class CountingInvesting extends Investing {
+        private final AtomicInteger decorations = new AtomicInteger();
+
+        @Override
+        WebDriver decorate(WebDriver session) {
+            decorations.incrementAndGet();
+            return super.decorate(session);
+        }
+    }
+
+    private static Investing withStubSession() {
+        Investing investing = new Investing();
+        investing.delegate = new StubWebDriver();
+        return investing;
+    }
+
+    /**
+     * Investing of the current scenario, which takes the provided session as parked by the previous scenario,
+     * so the new session of the respawn is taken the same way
+     */
+    private static Investing withParkedSession(StubWebDriver session) {
+        SessionAffinity.park(SessionKey.forCurrentScenario(), session, false);
+
+        Investing investing = new Investing();
+        investing.getDelegate();
+        return investing;
+    }
+
+    private static void enableSessionHealth() {
+        System.setProperty("session.health", "true");
+        System.setProperty("session.heartbeat.seconds", "1");
+        System.setProperty("scenarios.batching", "true");
+        ThreadLocalScenario.put(StubScenario.create());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clearSessionHealth() {
+        System.clearProperty("session.health");
+        System.clearProperty("session.heartbeat.seconds");
+        System.clearProperty("scenarios.batching");
+        SessionAffinity.end();
+        ThreadLocalDriver.clear();
+        ThreadLocalScenario.clear();
+    }
+
+    @Test
+    public void deadSessionIsRespawnedAndDisposed() {
+        enableSessionHealth();
+        StubWebDriver dead = new StubWebDriver();
+        StubWebDriver respawned = new StubWebDriver();
+
+        Investing investing = withParkedSession(dead);
+        dead.kill();
+        investing.markUnhealthy();
+
+        SessionAffinity.park(SessionKey.forCurrentScenario(), respawned, false);
+        new Hooks().beforeStepRespawnDeadSession();
+
+        assertSame(investing.delegate, respawned, "Dead session should be replaced by the new one");
+        assertTrue(investing.isHealthy(), "Respawned session should be healthy");
+        assertEquals(dead.getQuits(), 1, "Dead session should be quit");
+
+        investing.dispose();
+
+        assertFalse(investing.belongsToCurrentScenario(), "Disposed instance shouldn't belong to the scenario");
+        assertSame(SessionAffinity.take(SessionKey.forCurrentScenario()).getDriver(), respawned,
+                "Healthy respawned session should be parked for the next scenario");
+    }
+
+    @Test
+    public void disposedDeadSessionIsQuitAndHealthIsReset() {
+        enableSessionHealth();
+        StubWebDriver dead = new StubWebDriver();
+
+        Investing investing = withParkedSession(dead);
+        dead.kill();
+        investing.markUnhealthy();
+        investing.dispose();
+
+        assertTrue(investing.isHealthy(), "Health of the disposed session shouldn't be kept");
+        assertEquals(dead.getQuits(), 1, "Dead session should be quit");
+        assertNull(SessionAffinity.take(SessionKey.forCurrentScenario()), "Dead session shouldn't be parked");
+    }
+
+    @Test
+    public void sessionOfAnotherScenarioIsNotRespawned() {
+        enableSessionHealth();
+        StubWebDriver dead = new StubWebDriver();
+
+        Investing investing = withParkedSession(dead);
+        dead.kill();
+        investing.markUnhealthy();
+
+        // the next scenario of the thread, which didn't open its session yet
+        ThreadLocalScenario.put(StubScenario.create());
+        new Hooks().beforeStepRespawnDeadSession();
+
+        assertFalse(investing.belongsToCurrentScenario());
+        assertSame(investing.delegate, dead, "Session of another scenario shouldn't be respawned");
+    }
+
+    @Test
+    public void decoratedDriverIsBuiltOncePerSession() {
+        Investing investing = withStubSession();
+
+        assertSame(investing.getDriver(), investing.getDriver());
+    }
+
+    @Test
+    public void decoratedDriverIsDroppedOnQuit() {
+        Investing investing = withStubSession();
+        WebDriver decorated = investing.getDriver();
+
+        investing.quit();
+        investing.delegate = new StubWebDriver();
+
+        assertNotSame(investing.getDriver(), decorated);
+    }
+
+    @Test
+    public void decoratedDriverIsDroppedOnDispose() {
+        Investing investing = withStubSession();
+        WebDriver decorated = investing.getDriver();
+
+        investing.dispose();
+        investing.delegate = new StubWebDriver();
+
+        assertNotSame(investing.getDriver(), decorated);
+    }
+
+    @Test
+    public void sessionIsDecoratedOnceForConcurrentCalls() throws Exception {
+        CountingInvesting investing = new CountingInvesting();
+        investing.delegate = new StubWebDriver();
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> calls = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++)
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    for (int call = 0; call < 100; call++)
+                        investing.getDriver().getWindowHandle();
+                    return null;
+                }));
+
+            start.countDown();
+            for (Future<?> call : calls)
+                call.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(investing.decorations.get(), 1, "Session should be decorated once");
+
+        investing.quit();
+        investing.delegate = new StubWebDriver();
+        investing.getDriver().getWindowHandle();
+
+        assertEquals(investing.decorations.get(), 2, "New session should be decorated again");
+    }
+}
@@ -0,0 +1,253 @@
+package infrastructure.cookies;
+
+import infrastructure.stubs.StubWebDriver;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * Cookie changes by CDP, script and session options against stub sessions, which keep cookies like a browser:
+ * not secure cookie can't overwrite secure one, and script can't write httpOnly cookies
+ */
+public class CookieJarTest {
+
+    private static final String HOST = "www.investing.com";
+
+    /**
+     * Session, which sets cookies by scripts and reads them by options
+     */
+    private static class ScriptSession extends StubWebDriver {
+        private final Map<String, Cookie> cookies = new LinkedHashMap<>();
+
+        private ScriptSession() {
+            get("https://" + HOST + "/");
+        }
+
+        synchronized void put(Cookie cookie) {
+            cookies.put(cookie.getName() + "@" + cookie.getDomain(), cookie);
+        }
+
+        /**
+         * Set cookie like a browser does
+         */
+        synchronized void set(Cookie cookie, boolean byScript) {
+            Cookie existing = cookies.values().stream()
+                    .filter(candidate -> candidate.getName().equals(cookie.getName()))
+                    .filter(candidate -> candidate.getDomain().equalsIgnoreCase(cookie.getDomain()))
+                    .findFirst()
+                    .orElse(null);
+
+            if (existing != null && existing.isSecure() && !cookie.isSecure())
+                return;
+
+            if (byScript && (cookie.isHttpOnly() || existing != null && existing.isHttpOnly()))
+                return;
+
+            put(cookie);
+        }
+
+        synchronized Cookie cookie(String name) {
+            return cookies.values().stream().filter(cookie -> cookie.getName().equals(name)).findFirst().orElse(null);
+        }
+
+        synchronized Set<Cookie> all() {
+            return new HashSet<>(cookies.values());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object executeScript(String script, Object... args) {
+            super.executeScript(script, args);
+
+            for (Map<String, Object> target : (List<Map<String, Object>>) args[0]) {
+                Object domain = target.get("domain") != null ? target.get("domain") : HOST;
+                set(new Cookie.Builder((String) target.get("name"), (String) target.get("value"))
+                        .domain(domain.toString())
+                        .path((String) target.get("path"))
+                        .isSecure(Boolean.TRUE.equals(target.get("secure")))
+                        .sameSite((String) target.get("sameSite"))
+                        .build(), true);
+            }
+
+            return null;
+        }
+
+        @Override
+        public Options manage() {
+            return (Options) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Options.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "getCookies":
+                                return all();
+                            case "addCookie":
+                                Cookie cookie = (Cookie) args[0];
+                                set(cookie.getDomain() != null ? cookie : new Cookie.Builder(cookie.getName(), cookie.getValue())
+                                        .domain(HOST).path(cookie.getPath()).isSecure(cookie.isSecure())
+                                        .isHttpOnly(cookie.isHttpOnly()).sameSite(cookie.getSameSite()).build(), false);
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Chromium session, which sets and reads cookies by CDP
+     */
+    private static class CdpSession extends ScriptSession implements HasCdp {
+        private final List<String> commands = new ArrayList<>();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> executeCdpCommand(String commandName, Map<String, Object> parameters) {
+            commands.add(commandName);
+
+            if (commandName.equals("Network.setCookies")) {
+                for (Map<String, Object> cookie : (List<Map<String, Object>>) parameters.get("cookies")) {
+                    String domain = cookie.get("domain") != null
+                            ? (String) cookie.get("domain")
+                            : ((String) cookie.get("url")).replaceFirst("^https?://([^/]+).*$", "$1");
+
+                    set(new Cookie.Builder((String) cookie.get("name"), (String) cookie.get("value"))
+                            .domain(domain)
+                            .path((String) cookie.get("path"))
+                            .isSecure(Boolean.TRUE.equals(cookie.get("secure")))
+                            .isHttpOnly(Boolean.TRUE.equals(cookie.get("httpOnly")))
+                            .sameSite((String) cookie.get("sameSite"))
+                            .build(), false);
+                }
+                return Map.of();
+            }
+
+            if (commandName.equals("Network.getCookies"))
+                return Map.of("cookies", all().stream()
+                        .map(cookie -> {
+                            Map<String, Object> cdpCookie = new HashMap<>();
+                            cdpCookie.put("name", cookie.getName());
+                            cdpCookie.put("value", cookie.getValue());
+                            cdpCookie.put("domain", cookie.getDomain());
+                            cdpCookie.put("path", cookie.getPath());
+                            cdpCookie.put("secure", cookie.isSecure());
+                            cdpCookie.put("httpOnly", cookie.isHttpOnly());
+                            cdpCookie.put("sameSite", cookie.getSameSite());
+                            return cdpCookie;
+                        })
+                        .collect(Collectors.toList()));
+
+            throw new UnsupportedOperationException(commandName);
+        }
+    }
+
+    /**
+     * Session, which can't execute scripts, e.g. HTTP session
+     */
+    private static WebDriver optionsOnly(ScriptSession session) {
+        return (WebDriver) Proxy.newProxyInstance(CookieJarTest.class.getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "manage":
+                            return session.manage();
+                        case "getCurrentUrl":
+                            return session.getCurrentUrl();
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "Options only session";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static Cookie secureHttpOnly(String name, String value) {
+        return new Cookie.Builder(name, value).domain(".investing.com").path("/")
+                .isSecure(true).isHttpOnly(true).sameSite("Lax").build();
+    }
+
+    @Test
+    public void cdpKeepsAttributesOfExistingCookie() {
+        CdpSession session = new CdpSession();
+        session.put(secureHttpOnly("event_popup_counter", "1"));
+
+        CookieDiff diff = new CookieJar(session).apply(new Cookie("event_popup_counter", "3"));
+
+        Cookie changed = session.cookie("event_popup_counter");
+        assertEquals(changed.getValue(), "3");
+        assertTrue(changed.isSecure(), "Secure flag of the existing cookie should be kept");
+        assertTrue(changed.isHttpOnly(), "HttpOnly flag of the existing cookie should be kept");
+        assertEquals(changed.getSameSite(), "Lax");
+
+        assertEquals(diff.getAppliedBy(), "CDP");
+        assertEquals(diff.getChanges().size(), 1);
+        assertTrue(diff.getIgnored().isEmpty());
+        assertEquals(session.commands, List.of("Network.setCookies", "Network.getCookies"));
+        assertEquals(session.getScripts(), 0, "Cookies shouldn't be set by script with CDP");
+    }
+
+    @Test
+    public void cdpAddsHostOnlyCookieForCurrentPage() {
+        CdpSession session = new CdpSession();
+
+        CookieDiff diff = new CookieJar(session).apply(new Cookie("promo_banner_auto", "1"));
+
+        assertEquals(session.cookie("promo_banner_auto").getDomain(), HOST);
+        assertEquals(diff.getChanges().get(0).getDomain(), "host-only");
+        assertTrue(diff.getChanges().get(0).isAdded());
+    }
+
+    @Test
+    public void scriptChangesAreReportedAsTheyAreRead() {
+        ScriptSession session = new ScriptSession();
+        session.put(new Cookie.Builder("event_popup_counter", "1").domain(".investing.com").path("/").isSecure(true).build());
+        session.put(secureHttpOnly("invpro_promote_variant", "1"));
+
+        CookieDiff diff = new CookieJar(session).apply(
+                new Cookie("event_popup_counter", "3"),
+                new Cookie("invpro_promote_variant", "0"));
+
+        assertEquals(session.getScripts(), 1, "All cookies should be set by single script");
+        assertEquals(session.cookie("event_popup_counter").getValue(), "3", "Secure cookie should be overwritten as secure");
+        assertEquals(diff.getAppliedBy(), "script");
+        assertEquals(diff.getChanges().stream().map(CookieChange::getName).collect(Collectors.toList()),
+                List.of("event_popup_counter"));
+        assertEquals(diff.getIgnored().stream().map(CookieChange::getName).collect(Collectors.toList()),
+                List.of("invpro_promote_variant"), "HttpOnly cookie can't be changed by script");
+    }
+
+    @Test
+    public void unchangedCookiesAreNotApplied() {
+        ScriptSession session = new ScriptSession();
+        session.put(new Cookie.Builder("event_popup_counter", "3").domain(".investing.com").path("/").build());
+
+        CookieDiff diff = new CookieJar(session).apply(new Cookie("event_popup_counter", "3"));
+
+        assertTrue(diff.isEmpty());
+        assertEquals(session.getScripts(), 0);
+    }
+
+    @Test
+    public void optionsAreUsedIfScriptsAreNotSupported() {
+        ScriptSession session = new ScriptSession();
+        session.put(secureHttpOnly("event_popup_counter", "1"));
+
+        CookieDiff diff = new CookieJar(optionsOnly(session)).apply(new Cookie("event_popup_counter", "3"));
+
+        Cookie changed = session.cookie("event_popup_counter");
+        assertEquals(changed.getValue(), "3");
+        assertTrue(changed.isSecure());
+        assertTrue(changed.isHttpOnly());
+        assertEquals(diff.getAppliedBy(), "options");
+        assertEquals(diff.getChanges().size(), 1);
+        assertEquals(session.getScripts(), 0);
+    }
+}
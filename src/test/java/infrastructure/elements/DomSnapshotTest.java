@@ -0,0 +1,33 @@
+package infrastructure.elements;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class DomSnapshotTest {
+
+    @DataProvider
+    public Object[][] renderedTexts() {
+        return new Object[][]{
+                {"<span>  S&amp;P   500 </span>", "S&P 500"},
+                {"<div><p>Price</p><p>Change</p></div>", "Price\nChange"},
+                {"<div>Open<br>Close</div>", "Open\nClose"},
+                {"<div>Open<br><br>Close</div>", "Open\n\nClose"},
+                {"<div>Last <b>4,500.10</b> USD</div>", "Last 4,500.10 USD"},
+                {"<div>Shown<span data-inv-hidden>Hidden</span></div>", "Shown"},
+                {"<div>&nbsp;Indented</div>", " Indented"},
+                {"<table><tr><td>Name</td><td>Last</td></tr><tr><td>SPX</td><td>4,500</td></tr></table>", "Name Last\nSPX 4,500"},
+                {"<ul>\n  <li>One</li>\n  <li>Two</li>\n</ul>", "One\nTwo"},
+        };
+    }
+
+    @Test(dataProvider = "renderedTexts")
+    public void textIsRenderedAsWebDriverText(String html, String expected) {
+        Element root = Jsoup.parseBodyFragment("<div id='root'>" + html + "</div>").getElementById("root");
+
+        assertEquals(DomSnapshot.renderText(root), expected);
+    }
+}
@@ -0,0 +1,164 @@
+package infrastructure.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import infrastructure.Investing;
+import infrastructure.cookies.CookieJar;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import infrastructure.utilities.BaseUtilities;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.*;
+
+/**
+ * HTTP session against a local fixture server
+ */
+public class HttpPageDriverTest {
+
+    private static final String QUOTE_PAGE = "<html><head><title>S&amp;P 500</title></head><body>"
+            + "<h1 id='name'>S&amp;P 500</h1>"
+            + "<div class='price'><span data-test='last'>4,500.10</span><br><span data-test='change'>+0.5%</span></div>"
+            + "<ul class='related'><li><a href='/dow'>Dow Jones</a></li><li><a href='/nasdaq'>Nasdaq 100</a></li></ul>"
+            + "<div style='display:none' id='hidden'>Hidden</div>"
+            + "</body></html>";
+
+    private static final String ETAG = "\"quote-v1\"";
+
+    private HttpServer server;
+    private String baseUrl;
+
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final List<String> receivedCookies = new CopyOnWriteArrayList<>();
+
+    @BeforeClass
+    public void startFixtureServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::serve);
+        server.start();
+
+        // unique path keeps the shared disk cache from answering by responses of previous runs
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/" + UUID.randomUUID();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopFixtureServer() {
+        server.stop(0);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clearDriver() {
+        ThreadLocalDriver.clear();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+        if (cookie != null)
+            receivedCookies.add(cookie);
+
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().add("Set-Cookie", "session_id=fixture; Path=/");
+
+        if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            notModifiedResponses.incrementAndGet();
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        fullResponses.incrementAndGet();
+        byte[] body = QUOTE_PAGE.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(body);
+        }
+    }
+
+    @Test
+    public void elementsAreFoundByWebDriverLocators() {
+        HttpPageDriver driver = new HttpPageDriver();
+        driver.get(baseUrl + "/locators");
+
+        assertEquals(driver.getTitle(), "S&P 500");
+        assertEquals(driver.findElement(By.id("name")).getText(), "S&P 500");
+        assertEquals(driver.findElement(By.cssSelector("[data-test='last']")).getText(), "4,500.10");
+        assertEquals(driver.findElement(By.xpath("//span[@data-test='change']")).getText(), "+0.5%");
+        assertEquals(driver.findElement(By.linkText("Nasdaq 100")).getAttribute("href"), "/nasdaq");
+        assertEquals(driver.findElements(By.partialLinkText("Dow")).size(), 1);
+        assertEquals(driver.findElements(By.tagName("li")).size(), 2);
+        assertEquals(driver.findElement(By.className("price")).getText(), "4,500.10\n+0.5%");
+        assertFalse(driver.findElement(By.id("hidden")).isDisplayed());
+        assertThrows(NoSuchElementException.class, () -> driver.findElement(By.id("absent")));
+
+        WebElement related = driver.findElement(By.className("related"));
+        assertEquals(related.findElements(By.tagName("a")).stream().map(WebElement::getText).collect(Collectors.toList()),
+                List.of("Dow Jones", "Nasdaq 100"));
+    }
+
+    @Test
+    public void cachedPageIsRevalidatedByETag() {
+        String url = baseUrl + "/revalidated";
+        int full = fullResponses.get();
+        int notModified = notModifiedResponses.get();
+
+        HttpPageDriver first = new HttpPageDriver();
+        first.get(url);
+        HttpPageDriver second = new HttpPageDriver();
+        second.get(url);
+
+        assertEquals(fullResponses.get() - full, 1, "Page should be downloaded once");
+        assertEquals(notModifiedResponses.get() - notModified, 1, "Cached page should be revalidated");
+        assertEquals(second.findElement(By.cssSelector("[data-test='last']")).getText(), "4,500.10");
+    }
+
+    @Test
+    public void cookiesAreManagedPerSession() {
+        HttpPageDriver driver = new HttpPageDriver();
+        driver.get(baseUrl + "/cookies");
+
+        assertEquals(driver.manage().getCookieNamed("session_id").getValue(), "fixture");
+
+        driver.manage().addCookie(new Cookie("invpro_promote_variant", "0"));
+        receivedCookies.clear();
+        driver.navigate().refresh();
+        assertTrue(receivedCookies.stream().anyMatch(header -> header.contains("invpro_promote_variant=0")),
+                "Cookies sent: " + receivedCookies);
+
+        driver.manage().deleteAllCookies();
+        assertTrue(driver.manage().getCookies().isEmpty());
+
+        assertTrue(new HttpPageDriver().manage().getCookies().isEmpty(), "New session shouldn't see cookies of other session");
+    }
+
+    @Test
+    public void sharedCookieHelpersWorkWithoutBrowser() {
+        Investing investing = new Investing();
+        investing.delegate = new HttpPageDriver();
+        ThreadLocalDriver.put(investing);
+        investing.get(baseUrl + "/helpers");
+
+        assertTrue(BaseUtilities.isCookiePresented("session_id"));
+
+        new CookieJar(investing.delegate).apply(new Cookie("event_popup_counter", "3"));
+        assertEquals(investing.manage().getCookieNamed("event_popup_counter").getValue(), "3");
+    }
+}
@@ -0,0 +1,39 @@
+package infrastructure.listeners.webriver.helpers;
+
+import infrastructure.Investing;
+import infrastructure.stubs.StubWebDriver;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+
+public class WDListenerPopupGuardHelperTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void clearDriver() {
+        ThreadLocalDriver.clear();
+    }
+
+    /**
+     * Session is kept between scenarios, so each scenario should get only banners closed after the previous one
+     */
+    @Test
+    public void countersAreResetWhenTaken() {
+        AtomicReference<String> storage = new AtomicReference<>("{\"privacyPopUp\":2,\"proPromoPopup\":1}");
+        Investing investing = new Investing();
+        investing.delegate = new StubWebDriver(script -> script.contains("removeItem")
+                ? storage.getAndSet(null)
+                : storage.get());
+        ThreadLocalDriver.put(investing);
+
+        assertEquals(WDListenerPopupGuardHelper.takeCounters(), Map.of("privacyPopUp", 2L, "proPromoPopup", 1L));
+
+        storage.set("{\"privacyPopUp\":1}");
+        assertEquals(WDListenerPopupGuardHelper.takeCounters(), Map.of("privacyPopUp", 1L));
+        assertEquals(WDListenerPopupGuardHelper.takeCounters(), Map.of());
+    }
+}
@@ -0,0 +1,80 @@
+package infrastructure.listeners.webriver.helpers;
+
+import infrastructure.Investing;
+import infrastructure.stubs.StubWebDriver;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static infrastructure.constants.ConstantProvider.WebConstant.TimeoutDuration.ELEMENT_WAITING_DURATION_SMALL;
+import static org.testng.Assert.assertTrue;
+
+public class WDListenerPopupHelperTest {
+
+    private static final String PRO_PICKS_PAGE = "https://www.investing.com/indices/us-spx-500";
+
+    /**
+     * Popup probe answer, where none of known popups is present
+     */
+    private static final Map<String, Object> HIDDEN = Map.of("present", false, "visible", false);
+
+    /**
+     * Each thread waits the whole popup timeout in its own session.
+     * Without locks the wall time doesn't grow with the number of threads
+     */
+    @Test
+    public void popupWaitTimeIsFlatFrom1To32Threads() throws Exception {
+        Duration single = detectInParallel(1);
+        Duration parallel = detectInParallel(32);
+
+        // popup wait really happened, so the check isn't passed by an early failure
+        assertTrue(single.compareTo(ELEMENT_WAITING_DURATION_SMALL) >= 0, "Popup wait took " + single.toMillis() + " ms");
+
+        assertTrue(parallel.compareTo(single.multipliedBy(2)) < 0,
+                String.format("Popup processing took %d ms for 1 thread and %d ms for 32 threads",
+                        single.toMillis(), parallel.toMillis()));
+    }
+
+    private static Duration detectInParallel(int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++)
+                calls.add(executor.submit(() -> {
+                    Investing investing = new Investing();
+                    investing.delegate = new StubWebDriver(script -> new HashMap<String, Object>() {
+                        @Override
+                        public Object get(Object name) {
+                            return HIDDEN;
+                        }
+                    });
+                    ThreadLocalDriver.put(investing);
+
+                    ready.countDown();
+                    start.await();
+                    WDListenerPopupHelper.detectAndCloseProPicksPromoPopup(PRO_PICKS_PAGE);
+                    return null;
+                }));
+
+            ready.await();
+            long started = System.nanoTime();
+            start.countDown();
+
+            for (Future<?> call : calls)
+                call.get(1, TimeUnit.MINUTES);
+
+            return Duration.ofNanos(System.nanoTime() - started);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package infrastructure.readiness;
+
+import infrastructure.stubs.StubWebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+/**
+ * Installation of the fetch/XHR tracker and readiness polling against stub sessions
+ */
+public class PageReadinessTest {
+
+    private static final Map<String, Object> READY = Map.of(
+            "readyState", "complete", "inflight", 0L, "idleMs", 10_000L, "sentinel", true,
+            "status", 200L, "title", "Investing.com", "url", "https://www.investing.com/");
+
+    private static class CdpSession extends StubWebDriver implements HasCdp {
+        private final List<String> commands = new ArrayList<>();
+
+        @Override
+        public Map<String, Object> executeCdpCommand(String commandName, Map<String, Object> parameters) {
+            commands.add(commandName);
+            return Map.of("identifier", "1");
+        }
+    }
+
+    @Test
+    public void trackerIsInstalledOncePerSession() {
+        CdpSession session = new CdpSession();
+
+        assertTrue(PageReadiness.installOnNewDocument(session));
+        assertTrue(PageReadiness.installOnNewDocument(session), "Installed tracker should be reported for the next lease");
+
+        assertEquals(session.commands, List.of("Page.addScriptToEvaluateOnNewDocument"));
+    }
+
+    @Test
+    public void trackerIsInjectedByPollWithoutCdp() {
+        List<String> polls = new ArrayList<>();
+        StubWebDriver session = new StubWebDriver(script -> {
+            polls.add(script);
+            return READY;
+        });
+
+        assertFalse(PageReadiness.installOnNewDocument(session));
+
+        PageReadinessResult result = PageReadiness.waitFor(session, null, Duration.ofSeconds(1));
+
+        assertTrue(result.isReady());
+        assertEquals(polls.size(), 1);
+        assertTrue(polls.get(0).contains("window.__invReadiness = {"), "Poll should install the tracker into the document");
+    }
+}
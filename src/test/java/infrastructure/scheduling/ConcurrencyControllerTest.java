@@ -0,0 +1,118 @@
+package infrastructure.scheduling;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * AIMD adjustment of the concurrency limit by scenario outcomes and latency signals
+ */
+public class ConcurrencyControllerTest {
+
+    /**
+     * Run scenarios of the provided number at the same time, each in its own thread
+     */
+    private static void runTogether(ConcurrencyController controller, int scenarios, boolean failed) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(scenarios);
+        CyclicBarrier admitted = new CyclicBarrier(scenarios);
+
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int scenario = 0; scenario < scenarios; scenario++)
+                runs.add(executor.submit(() -> {
+                    controller.acquire();
+                    admitted.await(10, TimeUnit.SECONDS);
+                    controller.release(failed);
+                    return null;
+                }));
+
+            for (Future<?> run : runs)
+                run.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return controller, which limit has grown up to the provided one
+     */
+    private static ConcurrencyController grownTo(int limit, int max) throws Exception {
+        ConcurrencyController controller = new ConcurrencyController(1, max);
+
+        for (int round = 0; round < 100 && controller.getLimit() < limit; round++)
+            runTogether(controller, controller.getLimit(), false);
+
+        assertEquals(controller.getLimit(), limit);
+        return controller;
+    }
+
+    @Test
+    public void limitGrowsByOnePerWindowWhilePermitsAreUsed() throws Exception {
+        ConcurrencyController controller = new ConcurrencyController(1, 4);
+
+        runTogether(controller, 1, false);
+        assertEquals(controller.getLimit(), 2);
+
+        // each saturated window of 2 scenarios adds 1/limit
+        runTogether(controller, 2, false);
+        runTogether(controller, 2, false);
+        assertEquals(controller.getLimit(), 2);
+        runTogether(controller, 2, false);
+        assertEquals(controller.getLimit(), 3);
+    }
+
+    @Test
+    public void limitDoesNotGrowWithoutLoad() throws Exception {
+        ConcurrencyController controller = grownTo(2, 4);
+
+        for (int scenario = 0; scenario < 10; scenario++)
+            runTogether(controller, 1, false);
+
+        assertEquals(controller.getLimit(), 2, "Limit shouldn't grow, while permits aren't used");
+    }
+
+    @Test
+    public void limitIsNotAboveMax() throws Exception {
+        ConcurrencyController controller = grownTo(2, 2);
+
+        for (int round = 0; round < 10; round++)
+            runTogether(controller, 2, false);
+
+        assertEquals(controller.getLimit(), 2);
+    }
+
+    @Test
+    public void limitBacksOffOncePerWindowOnDegradedLatency() throws Exception {
+        ConcurrencyController controller = grownTo(4, 8);
+
+        for (int sample = 0; sample < 5; sample++)
+            controller.recordSessionLatency(Duration.ofMillis(100));
+        controller.recordSessionLatency(Duration.ofMillis(1000));
+
+        runTogether(controller, 1, false);
+        assertEquals(controller.getLimit(), 3);
+
+        // cooldown of the limit size
+        runTogether(controller, 1, false);
+        runTogether(controller, 1, false);
+        assertEquals(controller.getLimit(), 3, "Limit shouldn't back off again during the window");
+
+        runTogether(controller, 1, false);
+        assertEquals(controller.getLimit(), 2);
+    }
+
+    @Test
+    public void limitBacksOffOnErrorRateUpToMin() throws Exception {
+        ConcurrencyController controller = grownTo(2, 8);
+
+        for (int scenario = 0; scenario < 10; scenario++)
+            runTogether(controller, 1, true);
+
+        assertEquals(controller.getLimit(), 1);
+    }
+}
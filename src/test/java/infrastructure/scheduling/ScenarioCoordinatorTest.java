@@ -0,0 +1,182 @@
+package infrastructure.scheduling;
+
+import infrastructure.exceptions.InvestingException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Line protocol of the coordinator, which is served on a local port, against real client connections
+ */
+public class ScenarioCoordinatorTest {
+
+    private static final Duration SCENARIO_DURATION = Duration.ofMillis(10);
+
+    private final List<CoordinatorClient> clients = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    private String address;
+    private Future<?> serving;
+
+    @AfterMethod(alwaysRun = true)
+    public void stopCoordinator() throws IOException {
+        for (CoordinatorClient client : clients)
+            client.close();
+        clients.clear();
+
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Serve coordinator on a free port
+     */
+    private void startCoordinator(int tries) throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        address = "127.0.0.1:" + port;
+        executor = Executors.newCachedThreadPool();
+        serving = executor.submit(() -> {
+            new ScenarioCoordinator(tries).serve(port);
+            return null;
+        });
+    }
+
+    /**
+     * @return client, which is connected as soon as the coordinator listens
+     */
+    private CoordinatorClient connect(String worker) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+
+        while (true)
+            try {
+                CoordinatorClient client = new CoordinatorClient(address, worker);
+                clients.add(client);
+                return client;
+            } catch (InvestingException notListening) {
+                if (System.nanoTime() > deadline)
+                    throw notListening;
+                Thread.sleep(50);
+            }
+    }
+
+    private void assertFinished() throws Exception {
+        clients.forEach(client -> {
+            try {
+                client.close();
+            } catch (IOException ignore) {
+            }
+        });
+        clients.clear();
+
+        serving.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void eachScenarioIsRunOnceByPullingWorkers() throws Exception {
+        startCoordinator(1);
+        List<String> ids = new ArrayList<>();
+        for (int i = 1; i <= 20; i++)
+            ids.add("classpath:features/stub.feature:" + i);
+
+        connect("seeder").seed(ids);
+        // the second seed of another runner is ignored
+        connect("late seeder").seed(List.of("classpath:features/other.feature:1"));
+
+        List<Future<List<String>>> workers = new ArrayList<>();
+        for (int worker = 0; worker < 3; worker++) {
+            CoordinatorClient client = connect("worker#" + worker);
+            workers.add(executor.submit(() -> {
+                List<String> run = new ArrayList<>();
+                for (Optional<String> id = client.next(); id.isPresent(); id = client.next()) {
+                    run.add(id.get());
+                    assertFalse(client.result(id.get(), CoordinatorClient.Status.PASSED, SCENARIO_DURATION));
+                }
+                return run;
+            }));
+        }
+
+        List<String> run = new ArrayList<>();
+        for (Future<List<String>> worker : workers)
+            run.addAll(worker.get(30, TimeUnit.SECONDS));
+
+        assertEqualsNoOrder(run.toArray(), ids.toArray(), "Each seeded scenario should be run once");
+        assertFinished();
+    }
+
+    @Test
+    public void failedScenarioIsRetriedUpToTries() throws Exception {
+        startCoordinator(2);
+        connect("seeder").seed(List.of("a", "b"));
+        CoordinatorClient client = connect("worker");
+
+        assertEquals(client.next(), Optional.of("a"));
+        assertTrue(client.result("a", CoordinatorClient.Status.FAILED, SCENARIO_DURATION), "Failed scenario should be retried");
+
+        assertEquals(client.next(), Optional.of("a"), "Retry should go first");
+        assertFalse(client.result("a", CoordinatorClient.Status.FAILED, SCENARIO_DURATION), "The last try shouldn't be retried");
+
+        assertEquals(client.next(), Optional.of("b"));
+        assertFalse(client.result("b", CoordinatorClient.Status.SKIPPED, SCENARIO_DURATION), "Skipped scenario shouldn't be retried");
+
+        assertEquals(client.next(), Optional.empty());
+        assertFinished();
+    }
+
+    @Test
+    public void scenarioOfDisconnectedWorkerIsPutBack() throws Exception {
+        startCoordinator(1);
+        connect("seeder").seed(List.of("a"));
+        CoordinatorClient lost = connect("lost worker");
+        CoordinatorClient other = connect("other worker");
+
+        assertEquals(lost.next(), Optional.of("a"));
+
+        // other worker waits, while the scenario is in flight
+        Future<Optional<String>> next = executor.submit(other::next);
+        lost.close();
+
+        assertEquals(next.get(10, TimeUnit.SECONDS), Optional.of("a"), "Scenario of the lost worker should be put back");
+        assertFalse(other.result("a", CoordinatorClient.Status.PASSED, SCENARIO_DURATION));
+        assertEquals(other.next(), Optional.empty());
+        assertFinished();
+    }
+
+    @Test
+    public void unknownCommandIsRejected() throws Exception {
+        startCoordinator(1);
+        connect("seeder").seed(List.of("a"));
+
+        try (Socket socket = new Socket("127.0.0.1", Integer.parseInt(address.split(":")[1]));
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true)) {
+            out.println("HELLO raw worker");
+            assertEquals(in.readLine(), "OK");
+
+            out.println("SKIP a");
+            assertEquals(in.readLine(), "ERROR unknown command: SKIP");
+
+            out.println("NEXT");
+            assertEquals(in.readLine(), "RUN a", "Connection should be kept after the rejected command");
+            out.println("RESULT PASSED 10 a");
+            assertEquals(in.readLine(), "OK");
+            out.println("NEXT");
+            assertEquals(in.readLine(), "DONE");
+        }
+
+        assertFinished();
+    }
+}
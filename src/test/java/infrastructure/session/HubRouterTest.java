@@ -0,0 +1,174 @@
+package infrastructure.session;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import infrastructure.exceptions.InvestingException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Routing of sessions between local fake hubs, which answer /status and new session requests like Selenoid
+ */
+public class HubRouterTest {
+
+    private final List<FakeHub> started = new ArrayList<>();
+
+    private static class FakeHub {
+        private final HttpServer server;
+        private final AtomicInteger sessionRequests = new AtomicInteger();
+        private volatile String status;
+        private volatile int sessionStatusCode = 200;
+        private volatile long sessionDelayMs;
+
+        private FakeHub(String status) throws IOException {
+            this.status = status;
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.createContext("/status", exchange -> respond(exchange, 200, this.status));
+            server.createContext("/wd/hub/session", this::serveSession);
+            server.start();
+        }
+
+        private String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort() + "/wd/hub";
+        }
+
+        private void serveSession(HttpExchange exchange) throws IOException {
+            if ("DELETE".equals(exchange.getRequestMethod())) {
+                respond(exchange, 200, "{\"value\":null}");
+                return;
+            }
+
+            int request = sessionRequests.incrementAndGet();
+            try {
+                Thread.sleep(sessionDelayMs);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (sessionStatusCode == 200)
+                respond(exchange, 200, "{\"value\":{\"sessionId\":\"session-" + request + "\","
+                        + "\"capabilities\":{\"browserName\":\"chrome\"}}}");
+            else
+                respond(exchange, sessionStatusCode, "{\"value\":{\"error\":\"session not created\","
+                        + "\"message\":\"Requested environment is not available\",\"stacktrace\":\"\"}}");
+        }
+
+        private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(code, bytes.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(bytes);
+            }
+        }
+    }
+
+    private FakeHub startHub(int total, int used) throws IOException {
+        FakeHub hub = new FakeHub(String.format("{\"total\":%d,\"used\":%d,\"queued\":0,\"pending\":0}", total, used));
+        started.add(hub);
+        return hub;
+    }
+
+    /**
+     * @return URL of the hub, which refuses connections
+     */
+    private static String closedHubUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://127.0.0.1:" + socket.getLocalPort() + "/wd/hub";
+        }
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopHubs() {
+        started.forEach(hub -> hub.server.stop(0));
+        started.clear();
+    }
+
+    @Test
+    public void statusesOrderHubsByLoad() throws IOException {
+        FakeHub busy = startHub(5, 4);
+        FakeHub free = startHub(5, 1);
+        String closed = closedHubUrl();
+
+        HubRouter router = new HubRouter(List.of(closed, busy.url(), free.url()));
+        router.pollStatuses();
+
+        assertEquals(router.getCandidates(), List.of(new URL(free.url()), new URL(busy.url()), new URL(closed)),
+                "Hubs should be ordered by load, unreachable hub should go last");
+
+        free.status = "{\"total\":5,\"used\":5,\"queued\":2,\"pending\":0}";
+        router.pollStatuses();
+
+        assertEquals(router.getCandidates().get(0), new URL(busy.url()), "Hub should be reordered by polled status");
+    }
+
+    @Test
+    public void sessionIsFailedOverFromUnreachableHub() throws IOException {
+        FakeHub hub = startHub(5, 0);
+
+        // statuses aren't polled, so unreachable hub goes first
+        HubRouter router = new HubRouter(List.of(closedHubUrl(), hub.url()));
+
+        WebDriver driver = router.create(new ChromeOptions());
+        driver.quit();
+
+        assertEquals(hub.sessionRequests.get(), 1, "Session should be created on the reachable hub");
+        assertEquals(router.getCandidates().get(0), new URL(hub.url()), "Unreachable hub should be skipped");
+    }
+
+    @Test
+    public void sessionIsNotFailedOverOnHubError() throws IOException {
+        FakeHub failing = startHub(5, 0);
+        FakeHub other = startHub(5, 0);
+        failing.sessionStatusCode = 500;
+
+        HubRouter router = new HubRouter(List.of(failing.url(), other.url()));
+
+        assertThrows(InvestingException.class, () -> router.create(new ChromeOptions()));
+        assertEquals(failing.sessionRequests.get(), 1, "Session should be requested from the first hub");
+        assertEquals(other.sessionRequests.get(), 0, "Connected hub error shouldn't be failed over");
+    }
+
+    @Test
+    public void parallelSessionsAreSpreadBetweenHubs() throws Exception {
+        FakeHub first = startHub(4, 0);
+        FakeHub second = startHub(4, 0);
+        first.sessionDelayMs = 500;
+        second.sessionDelayMs = 500;
+
+        HubRouter router = new HubRouter(List.of(first.url(), second.url()));
+        router.pollStatuses();
+
+        int sessions = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        try {
+            List<Future<WebDriver>> drivers = new ArrayList<>();
+            for (int i = 0; i < sessions; i++)
+                drivers.add(executor.submit(() -> router.create(new ChromeOptions())));
+
+            for (Future<WebDriver> driver : drivers)
+                driver.get(30, TimeUnit.SECONDS).quit();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(first.sessionRequests.get(), sessions / 2, "Sessions being created should be counted by hub");
+        assertEquals(second.sessionRequests.get(), sessions / 2, "Sessions being created should be counted by hub");
+    }
+}
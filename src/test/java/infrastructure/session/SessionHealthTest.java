@@ -0,0 +1,71 @@
+package infrastructure.session;
+
+import infrastructure.Investing;
+import infrastructure.stubs.StubScenario;
+import infrastructure.stubs.StubWebDriver;
+import infrastructure.threadlocals.ThreadLocalScenario;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.*;
+
+public class SessionHealthTest {
+
+    private static final long DETECTION_TIMEOUT_MILLIS = 10_000;
+
+    @AfterMethod(alwaysRun = true)
+    public void clearScenario() {
+        System.clearProperty("session.heartbeat.seconds");
+        ThreadLocalScenario.clear();
+    }
+
+    @Test
+    public void deadSessionIsNotAlive() {
+        StubWebDriver session = new StubWebDriver();
+        assertTrue(SessionHealth.isAlive(session));
+
+        session.kill();
+        assertFalse(SessionHealth.isAlive(session));
+    }
+
+    @Test
+    public void heartbeatMarksDeadSessionUnhealthy() throws InterruptedException {
+        System.setProperty("session.heartbeat.seconds", "1");
+
+        Investing alive = new Investing();
+        alive.delegate = new StubWebDriver();
+        Investing dead = new Investing();
+        StubWebDriver deadSession = new StubWebDriver();
+        dead.delegate = deadSession;
+
+        SessionHealth.watch(alive);
+        SessionHealth.watch(dead);
+        try {
+            deadSession.kill();
+
+            long deadline = System.currentTimeMillis() + DETECTION_TIMEOUT_MILLIS;
+            while (dead.isHealthy() && System.currentTimeMillis() < deadline)
+                Thread.sleep(100);
+
+            assertFalse(dead.isHealthy(), "Dead session should be found by the heartbeat");
+            assertTrue(alive.isHealthy(), "Alive session shouldn't be marked unhealthy");
+        } finally {
+            SessionHealth.unwatch(alive);
+            SessionHealth.unwatch(dead);
+        }
+    }
+
+    @Test
+    public void failureOnDeadSessionGetsOneFreeRetry() {
+        ThreadLocalScenario.put(StubScenario.create());
+
+        assertFalse(SessionHealth.takeFreeRetry(), "Scenario without dead session failure shouldn't get free retry");
+
+        SessionHealth.onScenarioFailedOnDeadSession("dead-session");
+        assertTrue(SessionHealth.takeFreeRetry(), "Failure on dead session should get free retry");
+        assertFalse(SessionHealth.takeFreeRetry(), "Free retry should be taken once");
+
+        SessionHealth.onScenarioFailedOnDeadSession("dead-session");
+        assertFalse(SessionHealth.takeFreeRetry(), "Scenario should get only one free retry");
+    }
+}
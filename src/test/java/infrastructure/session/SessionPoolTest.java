@@ -0,0 +1,95 @@
+package infrastructure.session;
+
+import infrastructure.stubs.StubWebDriver;
+import org.openqa.selenium.chromium.HasCdp;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import static org.testng.Assert.*;
+
+/**
+ * Scrubbing of the pooled session, which was used on several edition origins
+ */
+public class SessionPoolTest {
+
+    private static final Set<String> EDITIONS = new LinkedHashSet<>(List.of(
+            "https://www.investing.com", "https://uk.investing.com"));
+
+    /**
+     * Session without CDP, which records opened pages and cleared cookies
+     */
+    private static class Session extends StubWebDriver {
+        final List<String> opened = new ArrayList<>();
+        final List<String> cookiesCleared = new ArrayList<>();
+
+        @Override
+        public void get(String url) {
+            super.get(url);
+            opened.add(url);
+        }
+
+        @Override
+        public Options manage() {
+            return (Options) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Options.class},
+                    (proxy, method, args) -> {
+                        if (!method.getName().equals("deleteAllCookies"))
+                            throw new UnsupportedOperationException(method.getName());
+
+                        cookiesCleared.add(getCurrentUrl());
+                        return null;
+                    });
+        }
+    }
+
+    private static class CdpSession extends Session implements HasCdp {
+        private final List<String> commands = new ArrayList<>();
+
+        @Override
+        public Map<String, Object> executeCdpCommand(String commandName, Map<String, Object> parameters) {
+            commands.add(parameters.containsKey("origin") ? commandName + " " + parameters.get("origin") : commandName);
+            return Map.of();
+        }
+    }
+
+    @Test
+    public void cookiesAndStoragesOfAllOriginsAreClearedByCdp() {
+        CdpSession session = new CdpSession();
+        session.get("https://de.investing.com/equities");
+
+        assertTrue(SessionPool.scrub(session, EDITIONS));
+
+        assertEquals(session.commands, List.of(
+                "Network.clearBrowserCookies",
+                "Storage.clearDataForOrigin https://www.investing.com",
+                "Storage.clearDataForOrigin https://uk.investing.com",
+                "Storage.clearDataForOrigin https://de.investing.com"));
+        assertEquals(session.opened.get(session.opened.size() - 1), "about:blank");
+        assertTrue(session.cookiesCleared.isEmpty(), "Cookies shouldn't be cleared page by page with CDP");
+    }
+
+    @Test
+    public void eachOriginIsOpenedToBeClearedWithoutCdp() {
+        Session session = new Session();
+        session.get("https://de.investing.com/equities");
+        session.opened.clear();
+
+        assertTrue(SessionPool.scrub(session, EDITIONS));
+
+        assertEquals(session.cookiesCleared, List.of(
+                "https://www.investing.com/robots.txt",
+                "https://uk.investing.com/robots.txt",
+                "https://de.investing.com/robots.txt"));
+        assertEquals(session.opened.get(session.opened.size() - 1), "about:blank");
+        assertEquals(session.getScripts(), 4, "Storages of the current page and of each origin should be cleared");
+    }
+
+    @Test
+    public void deadSessionIsNotScrubbed() {
+        Session session = new Session();
+        session.kill();
+
+        assertFalse(SessionPool.scrub(session, EDITIONS));
+    }
+}
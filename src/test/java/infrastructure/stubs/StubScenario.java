@@ -0,0 +1,91 @@
+package infrastructure.stubs;
+
+import io.cucumber.core.backend.Status;
+import io.cucumber.core.backend.TestCaseState;
+import io.cucumber.java.Scenario;
+
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cucumber Scenario for unit checks, which use thread local scenario without a Cucumber run
+ */
+public class StubScenario implements TestCaseState {
+
+    private final String name;
+    private final int line;
+    private final List<String> tags;
+
+    private StubScenario(String name, int line, List<String> tags) {
+        this.name = name;
+        this.line = line;
+        this.tags = tags;
+    }
+
+    /**
+     * @return scenario with unique name, so its state isn't shared with other checks
+     */
+    public static Scenario create(String... tags) {
+        return create("Stub scenario " + UUID.randomUUID(), 1, tags);
+    }
+
+    public static Scenario create(String name, int line, String... tags) {
+        try {
+            Constructor<Scenario> constructor = Scenario.class.getDeclaredConstructor(TestCaseState.class);
+            constructor.setAccessible(true);
+            return constructor.newInstance(new StubScenario(name, line, List.of(tags)));
+        } catch (ReflectiveOperationException cause) {
+            throw new IllegalStateException("Couldn't create Cucumber Scenario", cause);
+        }
+    }
+
+    @Override
+    public Collection<String> getSourceTagNames() {
+        return tags;
+    }
+
+    @Override
+    public Status getStatus() {
+        return Status.PASSED;
+    }
+
+    @Override
+    public boolean isFailed() {
+        return false;
+    }
+
+    @Override
+    public void attach(byte[] data, String mediaType, String name) {
+    }
+
+    @Override
+    public void attach(String data, String mediaType, String name) {
+    }
+
+    @Override
+    public void log(String text) {
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getId() {
+        return name;
+    }
+
+    @Override
+    public URI getUri() {
+        return URI.create("classpath:stub.feature");
+    }
+
+    @Override
+    public Integer getLine() {
+        return line;
+    }
+}
@@ -0,0 +1,162 @@
+package infrastructure.stubs;
+
+import org.openqa.selenium.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Browser session without browser for unit checks. <br>
+ * Scripts are answered by the provided responder, and the session could be made dead,
+ * so each command fails like a session deleted by the hub
+ */
+public class StubWebDriver implements WebDriver, JavascriptExecutor {
+
+    private final Function<String, Object> scriptResponder;
+
+    private volatile boolean dead;
+    private volatile String currentUrl = "about:blank";
+
+    private final AtomicInteger scripts = new AtomicInteger();
+    private final AtomicInteger quits = new AtomicInteger();
+    private final AtomicInteger navigations = new AtomicInteger();
+    private final AtomicInteger finds = new AtomicInteger();
+    private volatile List<Object> lastScriptArgs = Collections.emptyList();
+
+    public StubWebDriver() {
+        this(script -> null);
+    }
+
+    public StubWebDriver(Function<String, Object> scriptResponder) {
+        this.scriptResponder = scriptResponder;
+    }
+
+    /**
+     * Make each next command fail with {@link NoSuchSessionException}
+     */
+    public void kill() {
+        dead = true;
+    }
+
+    public int getScripts() {
+        return scripts.get();
+    }
+
+    public int getQuits() {
+        return quits.get();
+    }
+
+    public int getNavigations() {
+        return navigations.get();
+    }
+
+    /**
+     * @return number of findElement and findElements calls
+     */
+    public int getFinds() {
+        return finds.get();
+    }
+
+    public List<Object> getLastScriptArgs() {
+        return lastScriptArgs;
+    }
+
+    private void checkAlive() {
+        if (dead)
+            throw new NoSuchSessionException("Session is deleted by the stub");
+    }
+
+    @Override
+    public void get(String url) {
+        checkAlive();
+        navigations.incrementAndGet();
+        currentUrl = url;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        checkAlive();
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        checkAlive();
+        return "";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        checkAlive();
+        finds.incrementAndGet();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        checkAlive();
+        finds.incrementAndGet();
+        throw new NoSuchElementException("Stub page has no elements: " + by);
+    }
+
+    @Override
+    public String getPageSource() {
+        checkAlive();
+        return "<html><head></head><body></body></html>";
+    }
+
+    @Override
+    public void close() {
+        checkAlive();
+    }
+
+    @Override
+    public void quit() {
+        quits.incrementAndGet();
+        dead = true;
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        checkAlive();
+        return Set.of("main");
+    }
+
+    @Override
+    public String getWindowHandle() {
+        checkAlive();
+        return "main";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        throw new UnsupportedOperationException("Stub session has no windows to switch");
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException("Stub session has no navigation history");
+    }
+
+    @Override
+    public Options manage() {
+        throw new UnsupportedOperationException("Stub session has no options");
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        checkAlive();
+        scripts.incrementAndGet();
+        lastScriptArgs = Arrays.asList(args);
+        return scriptResponder.apply(script);
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return executeScript(script, args);
+    }
+}
@@ -0,0 +1,80 @@
+package infrastructure.throttling;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.*;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(SECOND);
+
+    @Test
+    public void burstIsServedAtOnceThenByRate() {
+        TokenBucket bucket = new TokenBucket(2, 3, now::get);
+
+        for (int i = 0; i < 3; i++)
+            assertEquals(bucket.reserve(), 0, "Burst request " + i + " shouldn't wait");
+
+        assertEquals(bucket.reserve(), SECOND / 2);
+        assertEquals(bucket.reserve(), SECOND);
+        assertEquals(bucket.getDelayed(), 2);
+    }
+
+    @Test
+    public void tokensAreRefilledByElapsedTime() {
+        TokenBucket bucket = new TokenBucket(2, 1, now::get);
+
+        assertEquals(bucket.reserve(), 0);
+        now.addAndGet(SECOND / 2);
+        assertEquals(bucket.reserve(), 0, "Token should be refilled after 1 / rate");
+    }
+
+    @Test
+    public void requestsQueuedDuringPauseAreSpreadAfterIt() {
+        TokenBucket bucket = new TokenBucket(2, 5, now::get);
+        bucket.onThrottled();
+
+        // rate is halved to 1 request per second, pause is 5 seconds
+        assertEquals(bucket.getRate(), 1.0);
+
+        long first = bucket.reserve();
+        long second = bucket.reserve();
+        long third = bucket.reserve();
+
+        assertTrue(first >= 5 * SECOND, "Request shouldn't be sent during the pause");
+        assertEquals(second - first, SECOND, "Queued requests should be spaced by the lowered rate");
+        assertEquals(third - second, SECOND, "Queued requests should be spaced by the lowered rate");
+    }
+
+    @Test
+    public void tokensAreNotSavedDuringPause() {
+        TokenBucket bucket = new TokenBucket(2, 5, now::get);
+        bucket.onThrottled();
+
+        // the pause has just ended, so there is no time to refill tokens
+        now.addAndGet(5 * SECOND);
+        assertTrue(bucket.reserve() > 0, "Tokens shouldn't be refilled during the pause");
+        assertTrue(bucket.reserve() > 0, "Requests after the pause shouldn't be released as a burst");
+    }
+
+    @Test
+    public void repeatedThrottlingExtendsPauseAndRateRecovers() {
+        TokenBucket bucket = new TokenBucket(2, 1, now::get);
+        bucket.onThrottled();
+        bucket.onThrottled();
+
+        assertTrue(bucket.reserve() >= 10 * SECOND, "Pause should grow with throttling in a row");
+        assertEquals(bucket.getRate(), 0.5);
+
+        for (int i = 0; i < 20; i++)
+            bucket.onSuccess();
+
+        assertEquals(bucket.getRate(), 2.0, "Rate should recover to the configured one");
+        assertEquals(bucket.getThrottled(), 2);
+    }
+}
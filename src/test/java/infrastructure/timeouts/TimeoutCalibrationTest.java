@@ -0,0 +1,44 @@
+package infrastructure.timeouts;
+
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Limits of calibrated timeouts with the default percentile and margin
+ */
+public class TimeoutCalibrationTest {
+
+    private static List<Long> samples(long millis) {
+        return Collections.nCopies(50, millis);
+    }
+
+    @Test
+    public void elementTimeoutIsNotShortenedByFastWaits() {
+        assertEquals(TimeoutCalibration.calibrate(TimeoutKind.ELEMENT, samples(100)), TimeoutKind.ELEMENT.getDefaultTimeout());
+    }
+
+    @Test
+    public void elementTimeoutIsLengthenedBySlowWaits() {
+        Duration slow = TimeoutKind.ELEMENT.getDefaultTimeout();
+
+        assertEquals(TimeoutCalibration.calibrate(TimeoutKind.ELEMENT, samples(slow.toMillis())),
+                slow.multipliedBy(3).dividedBy(2));
+    }
+
+    @Test
+    public void popupTimeoutIsShortenedUpToMinimum() {
+        assertEquals(TimeoutCalibration.calibrate(TimeoutKind.POPUP, samples(1000)), Duration.ofMillis(1500));
+        assertEquals(TimeoutCalibration.calibrate(TimeoutKind.POPUP, samples(100)), Duration.ofMillis(500));
+    }
+
+    @Test
+    public void timeoutIsLimitedByTwiceDefault() {
+        assertEquals(TimeoutCalibration.calibrate(TimeoutKind.NAVIGATION, samples(60_000)),
+                TimeoutKind.NAVIGATION.getDefaultTimeout().multipliedBy(2));
+    }
+}
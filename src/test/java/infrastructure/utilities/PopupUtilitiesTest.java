@@ -0,0 +1,76 @@
+package infrastructure.utilities;
+
+import infrastructure.Investing;
+import infrastructure.stubs.StubWebDriver;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import org.openqa.selenium.By;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static infrastructure.constants.GlobalLocators.WebGlobalLocators.PopupLocators.privacyPopUp;
+import static org.testng.Assert.*;
+
+/**
+ * Popups, which aren't in the PopupLocators, are probed by the same script as the known ones
+ */
+public class PopupUtilitiesTest {
+
+    private static final By UNKNOWN_POPUP = By.cssSelector(".unknown-popup");
+
+    /**
+     * @return session, where only popups with provided name prefixes are visible
+     */
+    private static StubWebDriver withVisiblePopups(List<String> visible) {
+        Investing investing = new Investing();
+        StubWebDriver session = new StubWebDriver(script -> new HashMap<String, Object>() {
+            @Override
+            public Object get(Object name) {
+                boolean shown = visible.stream().anyMatch(prefix -> name.toString().startsWith(prefix));
+                return Map.of("present", shown, "visible", shown);
+            }
+        });
+        investing.delegate = session;
+        ThreadLocalDriver.put(investing);
+        return session;
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void clearDriver() {
+        ThreadLocalDriver.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void unknownPopupIsProbedWithKnownOnes() {
+        StubWebDriver session = withVisiblePopups(List.of("unknown"));
+        int scripts = session.getScripts();
+
+        assertTrue(PopupUtilities.isPopupDisplayed(Duration.ofMillis(200), UNKNOWN_POPUP));
+        assertEquals(session.getScripts(), scripts + 1, "Unknown popup should be probed by the same script");
+
+        List<Map<String, Object>> probes = (List<Map<String, Object>>) session.getLastScriptArgs().get(0);
+        assertTrue(probes.stream().anyMatch(probe -> ".unknown-popup".equals(probe.get("value"))));
+        assertTrue(probes.size() > 1, "Known popups should be probed too");
+    }
+
+    @Test
+    public void hiddenUnknownPopupIsNotDisplayed() {
+        withVisiblePopups(List.of());
+
+        assertFalse(PopupUtilities.isPopupDisplayed(Duration.ofMillis(200), UNKNOWN_POPUP));
+        assertFalse(PopupUtilities.closePopup(Duration.ofMillis(200), UNKNOWN_POPUP, By.cssSelector(".close")));
+    }
+
+    @Test
+    public void knownPopupIsNotProbedTwice() {
+        StubWebDriver session = withVisiblePopups(List.of("privacyPopUp"));
+
+        assertTrue(PopupUtilities.isPopupDisplayed(Duration.ofMillis(200), privacyPopUp));
+        assertEquals(((List<?>) session.getLastScriptArgs().get(0)).size(), PopupUtilities.probePopups().size());
+    }
+}
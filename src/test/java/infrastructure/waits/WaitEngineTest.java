@@ -0,0 +1,49 @@
+package infrastructure.waits;
+
+import infrastructure.Investing;
+import infrastructure.stubs.StubWebDriver;
+import infrastructure.threadlocals.ThreadLocalDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.PageFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.testng.Assert.*;
+
+public class WaitEngineTest {
+
+    private static final Map<String, Object> SHOWN = Map.of("present", true, "visible", true, "enabled", true);
+
+    public static class QuotePage {
+        @FindBy(id = "last-price")
+        public WebElement lastPrice;
+    }
+
+    @AfterMethod
+    public void clearDriver() {
+        ThreadLocalDriver.clear();
+    }
+
+    @Test
+    public void pageFactoryProxyIsProbedByItsLocator() {
+        StubWebDriver stub = new StubWebDriver(script -> SHOWN);
+        Investing investing = new Investing();
+        investing.delegate = stub;
+        ThreadLocalDriver.put(investing);
+
+        QuotePage page = new QuotePage();
+        PageFactory.initElements(stub, page);
+
+        WaitResult result = WaitEngine.waitFor(page.lastPrice, Duration.ofSeconds(1), ElementState.VISIBLE);
+
+        assertEquals(result.getPolls(), 1);
+        assertEquals(stub.getScripts(), 1);
+        assertEquals(stub.getFinds(), 0, "Proxy shouldn't find element to be passed into the probe script");
+        assertTrue(stub.getLastScriptArgs().stream().noneMatch(arg -> arg instanceof WebElement),
+                "Probe script arguments: " + stub.getLastScriptArgs());
+    }
+}
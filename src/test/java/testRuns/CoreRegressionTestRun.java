@@ -1,10 +1,8 @@
 package testRuns;
 
-import infrastructure.listeners.retry.common.CucumberAnnotationTransformer;
-import io.cucumber.testng.AbstractTestNGCucumberTests;
 import io.cucumber.testng.CucumberOptions;
 import org.testng.annotations.DataProvider;
-import org.testng.annotations.Listeners;
+import testRuns.abstracts.AbstractTestNGCucumberBatchTests;
 
 @CucumberOptions(
         features = {
@@ -15,8 +13,7 @@ import org.testng.annotations.Listeners;
         tags = "@CoreRegression" // insert your specific tag here - example is already inserted
 )
 
-@Listeners({CucumberAnnotationTransformer.class})
-public class CoreRegressionTestRun extends AbstractTestNGCucumberTests {
+public class CoreRegressionTestRun extends AbstractTestNGCucumberBatchTests {
 
     @Override
     @DataProvider(parallel = true)
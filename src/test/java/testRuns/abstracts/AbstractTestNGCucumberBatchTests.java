@@ -0,0 +1,317 @@
+package testRuns.abstracts;
+
+import infrastructure.constants.WebEnvParams;
+import infrastructure.exceptions.InvestingException;
+import infrastructure.listeners.retry.common.NotRetried;
+import infrastructure.logger.Log;
+import infrastructure.scheduling.ConcurrencyController;
+import infrastructure.scheduling.CoordinatorClient;
+import infrastructure.scheduling.ScenarioDurations;
+import infrastructure.scheduling.ScenarioSchedule;
+import infrastructure.scheduling.ScenarioShards;
+import infrastructure.session.SessionAffinity;
+import infrastructure.session.SessionKey;
+import io.cucumber.core.gherkin.Step;
+import io.cucumber.testng.FeatureWrapper;
+import io.cucumber.testng.Pickle;
+import io.cucumber.testng.PickleWrapper;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.testng.ITestContext;
+import org.testng.SkipException;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Runs scenarios by groups, if <b>scenarios.batching</b> is enabled. <br><br>
+ *
+ * Scenarios are grouped by the kind of session ({@link SessionKey#SESSION_TAGS}) and by the edition of the
+ * "in {edition} edition" step, e.g. rows of different Scenario Outlines with the same edition.
+ * Each group is run sequentially on one browser session, which is kept by {@link SessionAffinity}
+ * between its scenarios. Groups are run in parallel, so number of sessions is the number of groups. <br>
+ * Failed scenarios of the group are kept, so retry of the group runs only them.
+ * Otherwise, scenarios are provided one by one by {@link #scenarios()}. <br><br>
+ *
+ * If <b>scenarios.ordering</b> is enabled, scenarios or groups are provided by {@link ScenarioSchedule},
+ * the longest first. If <b>shard.total</b> is more than 1, only scenarios or groups of the
+ * <b>shard.index</b> shard are provided, see {@link ScenarioShards}. <br><br>
+ *
+ * If <b>coordinator</b> address is provided, each data provider thread pulls scenarios one by one
+ * from the {@link infrastructure.scheduling.ScenarioCoordinator}, which is shared with other runner JVMs.
+ * Failed scenarios are retried by the coordinator on any runner, so these threads aren't retried by TestNG. <br><br>
+ *
+ * If <b>concurrency.adaptive</b> is enabled, each scenario waits for admission of the {@link ConcurrencyController}
+ * before its pickle is started, so waiting time isn't counted in the scenario duration.
+ */
+public abstract class AbstractTestNGCucumberBatchTests extends AbstractTestNGCucumberRetriesTests {
+
+    private static final Pattern EDITION_STEP = Pattern.compile("\\bin (\\w+) edition\\b");
+
+    private int threads = 1;
+
+    /**
+     * Scenarios of the coordinated run by their id
+     */
+    private final Map<String, Object[]> coordinatedScenarios = new LinkedHashMap<>();
+
+    /**
+     * Scenarios of one group, which are not passed yet
+     */
+    public static class ScenarioGroup {
+        private final String name;
+        private final List<Object[]> pending = new ArrayList<>();
+
+        private ScenarioGroup(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d scenario(s)", name, pending.size());
+        }
+    }
+
+    @BeforeClass(alwaysRun = true)
+    public void defineThreads(ITestContext context) {
+        threads = context.getSuite().getXmlSuite().getDataProviderThreadCount();
+    }
+
+    /**
+     * Scenario takes the admission permit before Cucumber starts it and returns the permit after all its hooks
+     */
+    @Override
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios", dataProvider = "scenarios")
+    public void runScenario(PickleWrapper pickleWrapper, FeatureWrapper featureWrapper) {
+        if (!WebEnvParams.getConcurrencyAdaptiveParam()) {
+            super.runScenario(pickleWrapper, featureWrapper);
+            return;
+        }
+
+        ConcurrencyController controller = ConcurrencyController.getInstance();
+        controller.acquire();
+
+        boolean failed = true;
+        try {
+            super.runScenario(pickleWrapper, featureWrapper);
+            failed = false;
+        } catch (SkipException skipped) {
+            failed = false;
+            throw skipped;
+        } finally {
+            controller.release(failed);
+        }
+    }
+
+    @Override
+    public Object[][] scenarios() {
+        if (WebEnvParams.getScenarioBatchingParam() || isCoordinated())
+            return new Object[0][];
+
+        List<Object[]> scenarios = Arrays.asList(super.scenarios());
+
+        if (ScenarioShards.isSharded())
+            scenarios = ScenarioShards.select(scenarios, scenario -> List.of(key(scenario)));
+
+        if (WebEnvParams.getScenarioOrderingParam())
+            scenarios = ScenarioSchedule.longestFirst(scenarios, scenario -> List.of(key(scenario)), threads);
+
+        return scenarios.toArray(Object[][]::new);
+    }
+
+    @DataProvider(parallel = true)
+    public Object[][] scenarioGroups() {
+        if (!WebEnvParams.getScenarioBatchingParam() || isCoordinated())
+            return new Object[0][];
+
+        Map<String, ScenarioGroup> groups = new LinkedHashMap<>();
+
+        for (Object[] scenario : super.scenarios()) {
+            String name = groupName(((PickleWrapper) scenario[0]).getPickle());
+            groups.computeIfAbsent(name, ScenarioGroup::new).pending.add(scenario);
+        }
+
+        Log.info(String.format("Scenarios are batched into %d group(s): %s", groups.size(), groups.values()));
+
+        List<ScenarioGroup> ordered = new ArrayList<>(groups.values());
+
+        if (ScenarioShards.isSharded())
+            ordered = ScenarioShards.select(ordered, AbstractTestNGCucumberBatchTests::keys);
+
+        if (WebEnvParams.getScenarioOrderingParam())
+            ordered = ScenarioSchedule.longestFirst(ordered, AbstractTestNGCucumberBatchTests::keys, threads);
+
+        return ordered.stream()
+                .map(group -> new Object[]{group})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios of one group", dataProvider = "scenarioGroups")
+    public void runScenarioGroup(ScenarioGroup group) throws Throwable {
+        Throwable firstFailure = null;
+        SkipException firstSkip = null;
+
+        try {
+            for (Iterator<Object[]> iterator = group.pending.iterator(); iterator.hasNext(); ) {
+                Object[] scenario = iterator.next();
+
+                try {
+                    runScenario((PickleWrapper) scenario[0], (FeatureWrapper) scenario[1]);
+                    iterator.remove();
+                } catch (SkipException skipped) {
+                    // pending or undefined steps aren't fixed by retry, so skipped scenario isn't kept
+                    iterator.remove();
+                    if (firstSkip == null)
+                        firstSkip = skipped;
+                } catch (Throwable failure) {
+                    if (firstFailure == null)
+                        firstFailure = failure;
+                }
+            }
+        } finally {
+            SessionAffinity.end();
+        }
+
+        // failure goes first, so the group is retried and the skip doesn't hide it
+        if (firstFailure != null)
+            throw firstFailure;
+
+        if (firstSkip != null)
+            throw firstSkip;
+    }
+
+    /**
+     * Provide the scenarios to the coordinator
+     *
+     * @return one row per data provider thread
+     */
+    @DataProvider(parallel = true)
+    public Object[][] coordinatedWorkers() throws IOException {
+        if (!isCoordinated())
+            return new Object[0][];
+
+        List<Object[]> scenarios = Arrays.asList(super.scenarios());
+
+        if (WebEnvParams.getScenarioOrderingParam())
+            scenarios = ScenarioSchedule.longestFirst(scenarios, scenario -> List.of(key(scenario)), threads);
+
+        scenarios.forEach(scenario -> coordinatedScenarios.put(id(scenario), scenario));
+
+        try (CoordinatorClient client = new CoordinatorClient(WebEnvParams.getCoordinatorParam(), workerName(-1))) {
+            client.seed(new ArrayList<>(coordinatedScenarios.keySet()));
+        }
+
+        Object[][] workers = new Object[threads][];
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Object[]{i};
+
+        return workers;
+    }
+
+    @NotRetried
+    @Test(groups = "cucumber", description = "Runs Cucumber Scenarios from the coordinator", dataProvider = "coordinatedWorkers")
+    public void runCoordinatedScenarios(int worker) throws Throwable {
+        Throwable firstFailure = null;
+
+        try (CoordinatorClient client = new CoordinatorClient(WebEnvParams.getCoordinatorParam(), workerName(worker))) {
+            for (Optional<String> id = client.next(); id.isPresent(); id = client.next()) {
+                Object[] scenario = coordinatedScenarios.get(id.get());
+                CoordinatorClient.Status status = CoordinatorClient.Status.PASSED;
+                Throwable failure = null;
+                long started = System.nanoTime();
+
+                try {
+                    // runners could select different scenarios, so unknown one is failed and could be retried by another runner
+                    if (scenario == null)
+                        throw new InvestingException("Scenario " + id.get() + " of the coordinator isn't selected by this runner");
+
+                    runScenario((PickleWrapper) scenario[0], (FeatureWrapper) scenario[1]);
+                } catch (SkipException skipped) {
+                    status = CoordinatorClient.Status.SKIPPED;
+                } catch (Throwable cause) {
+                    status = CoordinatorClient.Status.FAILED;
+                    failure = cause;
+                }
+
+                boolean retried = client.result(id.get(), status, Duration.ofNanos(System.nanoTime() - started));
+
+                if (failure != null && !retried && firstFailure == null)
+                    firstFailure = failure;
+            }
+        }
+
+        if (firstFailure != null)
+            throw firstFailure;
+    }
+
+    private static boolean isCoordinated() {
+        return !WebEnvParams.getCoordinatorParam().isEmpty();
+    }
+
+    private static String workerName(int worker) {
+        return ManagementFactory.getRuntimeMXBean().getName() + "#" + worker;
+    }
+
+    /**
+     * @return unique id of the scenario: feature file and line
+     */
+    private static String id(Object[] scenario) {
+        Pickle pickle = ((PickleWrapper) scenario[0]).getPickle();
+        return pickle.getUri() + ":" + pickle.getLine();
+    }
+
+    /**
+     * @return stable identity of the scenario for durations history
+     */
+    private static String key(Object[] scenario) {
+        Pickle pickle = ((PickleWrapper) scenario[0]).getPickle();
+        return ScenarioDurations.key(pickle.getName(), pickle.getLine());
+    }
+
+    private static List<String> keys(ScenarioGroup group) {
+        return group.pending.stream()
+                .map(AbstractTestNGCucumberBatchTests::key)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return group of the scenario: session tags and edition
+     */
+    private static String groupName(Pickle pickle) {
+        String tags = pickle.getTags().stream()
+                .filter(SessionKey.SESSION_TAGS::contains)
+                .sorted()
+                .collect(Collectors.joining(" "));
+
+        return String.format("[%s] %s", tags, getEdition(pickle));
+    }
+
+    /**
+     * Edition is parsed from the steps text, as it's defined by Examples of Scenario Outline
+     *
+     * @return edition in lower case, or "default" if scenario doesn't define it
+     */
+    private static String getEdition(Pickle pickle) {
+        try {
+            io.cucumber.core.gherkin.Pickle gherkinPickle =
+                    (io.cucumber.core.gherkin.Pickle) FieldUtils.readField(pickle, "pickle", true);
+
+            for (Step step : gherkinPickle.getSteps()) {
+                Matcher matcher = EDITION_STEP.matcher(step.getText());
+                if (matcher.find())
+                    return matcher.group(1).toLowerCase();
+            }
+        } catch (IllegalAccessException | RuntimeException cause) {
+            Log.warn("Couldn't read steps of the scenario " + pickle.getName() + ": " + cause);
+        }
+
+        return "default";
+    }
+}